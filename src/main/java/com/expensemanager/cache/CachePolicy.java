@@ -0,0 +1,18 @@
+package com.expensemanager.cache;
+
+public enum CachePolicy {
+	LFU {
+		@Override
+		<T> EvictionPolicy<T> create(int maxCapacity) {
+			return new LfuPolicy<>();
+		}
+	},
+	W_TINY_LFU {
+		@Override
+		<T> EvictionPolicy<T> create(int maxCapacity) {
+			return new WindowTinyLfuPolicy<>(maxCapacity);
+		}
+	};
+
+	abstract <T> EvictionPolicy<T> create(int maxCapacity);
+}
@@ -0,0 +1,28 @@
+package com.expensemanager.cache;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.util.unit.DataSize;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class CacheSettings {
+
+	private CachePolicy policy = CachePolicy.LFU;
+	private int maximumSize = 100;
+	// Upper bound on the summed LFUCache.weigh() estimates; unbounded when null
+	private DataSize maximumWeight;
+	private Duration expireAfterWrite;
+	// Entries older than this are still served, but reloaded in the background
+	private Duration refreshAfterWrite;
+	// Keep values serialized outside the heap; requires a maximum weight
+	private boolean offHeap;
+
+	public CacheSettings(CachePolicy policy, int maximumSize) {
+		this.policy = policy;
+		this.maximumSize = maximumSize;
+	}
+}
@@ -0,0 +1,58 @@
+package com.expensemanager.cache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Hot keys of a cache, one "<id> <frequency>" line each, hottest first. The file is
+// written next to its final location and then moved, so a crash while saving leaves
+// the previous snapshot intact.
+public final class CacheSnapshotFile {
+
+	private static final Pattern LINE = Pattern.compile("(\\d{1,18}) (\\d{1,9})");
+
+	private CacheSnapshotFile() {
+	}
+
+	public static Path of(Path directory, String cacheName) {
+		return directory.resolve(cacheName + ".snapshot");
+	}
+
+	public static void write(Path file, List<HotKey> hotKeys) throws IOException {
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+			for (HotKey hotKey : hotKeys) {
+				writer.write(hotKey.id() + " " + hotKey.frequency());
+				writer.newLine();
+			}
+		}
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// An empty list if there is no snapshot; malformed lines are skipped
+	public static List<HotKey> read(Path file) throws IOException {
+		List<HotKey> hotKeys = new ArrayList<>();
+		if (!Files.isRegularFile(file)) {
+			return hotKeys;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				Matcher matcher = LINE.matcher(line);
+				if (matcher.matches()) {
+					hotKeys.add(new HotKey(Long.valueOf(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+				}
+			}
+		}
+		return hotKeys;
+	}
+}
@@ -0,0 +1,34 @@
+package com.expensemanager.cache;
+
+public record CacheStats(
+		String name,
+		long size,
+		long weightedSize,
+		int maxCapacity,
+		long hitCount,
+		long missCount,
+		double hitRate,
+		long loadSuccessCount,
+		long loadFailureCount,
+		double averageLoadPenaltyMillis,
+		long evictionCount
+) {
+
+	static CacheStats of(String name, long size, long weightedSize, int maxCapacity, long hitCount, long missCount,
+	                     long loadSuccessCount, long loadFailureCount, long totalLoadTimeNanos, long evictionCount) {
+		long requests = hitCount + missCount;
+		long loads = loadSuccessCount + loadFailureCount;
+		return new CacheStats(
+				name,
+				size,
+				weightedSize,
+				maxCapacity,
+				hitCount,
+				missCount,
+				requests == 0 ? 0.0 : (double) hitCount / requests,
+				loadSuccessCount,
+				loadFailureCount,
+				loads == 0 ? 0.0 : totalLoadTimeNanos / 1_000_000.0 / loads,
+				evictionCount);
+	}
+}
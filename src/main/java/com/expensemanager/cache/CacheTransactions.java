@@ -0,0 +1,25 @@
+package com.expensemanager.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class CacheTransactions {
+
+	private CacheTransactions() {
+	}
+
+	// Cache writes for data changed in a transaction must not be visible before it
+	// commits, nor at all if it rolls back. Outside a transaction the action runs at once.
+	public static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+}
@@ -1,12 +1,20 @@
 package com.expensemanager.cache;
 
+import com.expensemanager.config.CacheProperties;
 import com.expensemanager.model.Category;
 import org.springframework.stereotype.Component;
 
 @Component
 public class CategoryCache extends LFUCache<Category> {
 
-	public CategoryCache() {
-		super(100);
+	private static final int CATEGORY_OVERHEAD = 64;
+
+	public CategoryCache(CacheProperties cacheProperties) {
+		super("categories", cacheProperties.getCategories());
+	}
+
+	@Override
+	protected long weigh(Category category) {
+		return CATEGORY_OVERHEAD + stringSize(category.getName());
 	}
 }
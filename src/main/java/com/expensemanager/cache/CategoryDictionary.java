@@ -0,0 +1,29 @@
+package com.expensemanager.cache;
+
+import com.expensemanager.model.Category;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CategoryDictionary extends NameDictionary<Category> {
+
+	public CategoryDictionary() {
+		super("categories");
+	}
+
+	@Override
+	protected Long idOf(Category category) {
+		return category.getId();
+	}
+
+	@Override
+	protected String nameOf(Category category) {
+		return category.getName();
+	}
+
+	@Override
+	protected Category create(Long id, String name) {
+		Category category = new Category(name);
+		category.setId(id);
+		return category;
+	}
+}
@@ -0,0 +1,54 @@
+package com.expensemanager.cache;
+
+// Intrusive doubly linked list over cache entries, least recently used at the head
+final class EntryQueue<T> {
+
+	LFUCache.CacheEntry<T> head;
+	LFUCache.CacheEntry<T> tail;
+	int size;
+
+	void addLast(LFUCache.CacheEntry<T> entry) {
+		entry.prev = tail;
+		entry.next = null;
+		if (tail == null) {
+			head = entry;
+		} else {
+			tail.next = entry;
+		}
+		tail = entry;
+		size++;
+	}
+
+	void unlink(LFUCache.CacheEntry<T> entry) {
+		if (entry.prev == null) {
+			head = entry.next;
+		} else {
+			entry.prev.next = entry.next;
+		}
+		if (entry.next == null) {
+			tail = entry.prev;
+		} else {
+			entry.next.prev = entry.prev;
+		}
+		entry.prev = null;
+		entry.next = null;
+		size--;
+	}
+
+	void moveToTail(LFUCache.CacheEntry<T> entry) {
+		if (entry != tail) {
+			unlink(entry);
+			addLast(entry);
+		}
+	}
+
+	boolean isEmpty() {
+		return head == null;
+	}
+
+	void clear() {
+		head = null;
+		tail = null;
+		size = 0;
+	}
+}
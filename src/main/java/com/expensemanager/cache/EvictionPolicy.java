@@ -0,0 +1,23 @@
+package com.expensemanager.cache;
+
+// Ordering state of a cache. Implementations are not thread-safe; LFUCache only
+// calls them while holding its eviction lock.
+interface EvictionPolicy<T> {
+
+	void onAccess(LFUCache.CacheEntry<T> entry);
+
+	void onInsert(LFUCache.CacheEntry<T> entry);
+
+	void onRemove(LFUCache.CacheEntry<T> entry);
+
+	// Called before an insert into a full cache; returns the entry to drop
+	LFUCache.CacheEntry<T> selectVictim();
+
+	// Estimated popularity of an entry, as saved in cache snapshots
+	int frequency(LFUCache.CacheEntry<T> entry);
+
+	// Gives a freshly inserted entry the popularity it had when its snapshot was taken
+	void restore(LFUCache.CacheEntry<T> entry, int frequency);
+
+	void clear();
+}
@@ -1,12 +1,42 @@
 package com.expensemanager.cache;
 
-import com.expensemanager.model.Expense;
+import com.expensemanager.config.CacheProperties;
+import com.expensemanager.dto.ExpenseSnapshot;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.stereotype.Component;
 
 @Component
-public class ExpenseCache extends LFUCache<Expense> {
+public class ExpenseCache extends LFUCache<ExpenseSnapshot> {
 
-	public ExpenseCache() {
-		super(100);
+	// Rough retained sizes on a 64-bit JVM with compressed oops
+	private static final int EXPENSE_OVERHEAD = 96;
+	private static final int CATEGORY_OVERHEAD = 32;
+	private static final int TAG_OVERHEAD = 40;
+
+	public ExpenseCache(CacheProperties cacheProperties) {
+		super("expenses", cacheProperties.getExpenses(), new ExpenseCodec());
+	}
+
+	// Drops the snapshots embedding one of the given categories, whose names may have changed
+	public List<Long> removeWithCategories(Collection<Long> categoryIds) {
+		return removeIf(expense -> expense.category() != null && categoryIds.contains(expense.category().id()));
+	}
+
+	// Drops the snapshots embedding one of the given tags, whose names may have changed
+	public List<Long> removeWithTags(Collection<Long> tagIds) {
+		return removeIf(expense -> expense.tags().stream().anyMatch(tag -> tagIds.contains(tag.id())));
+	}
+
+	@Override
+	protected long weigh(ExpenseSnapshot expense) {
+		long weight = EXPENSE_OVERHEAD + stringSize(expense.name()) + stringSize(expense.currency());
+		if (expense.category() != null) {
+			weight += CATEGORY_OVERHEAD + stringSize(expense.category().name());
+		}
+		for (ExpenseSnapshot.TagRef tag : expense.tags()) {
+			weight += TAG_OVERHEAD + stringSize(tag.name());
+		}
+		return weight;
 	}
 }
@@ -0,0 +1,94 @@
+package com.expensemanager.cache;
+
+import com.expensemanager.dto.ExpenseSnapshot;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// id, name, amount, currency, expense date, category and tags of an ExpenseSnapshot
+final class ExpenseCodec implements RecordCodec<ExpenseSnapshot> {
+
+	@Override
+	public byte[] encode(ExpenseSnapshot expense) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeLong(expense.id());
+			writeString(out, expense.name());
+			out.writeBoolean(expense.amount() != null);
+			if (expense.amount() != null) {
+				out.writeDouble(expense.amount());
+			}
+			writeString(out, expense.currency());
+			out.writeBoolean(expense.expenseDate() != null);
+			if (expense.expenseDate() != null) {
+				out.writeLong(expense.expenseDate().toEpochDay());
+			}
+			ExpenseSnapshot.CategoryRef category = expense.category();
+			out.writeBoolean(category != null);
+			if (category != null) {
+				out.writeLong(category.id());
+				writeString(out, category.name());
+			}
+			out.writeInt(expense.tags().size());
+			for (ExpenseSnapshot.TagRef tag : expense.tags()) {
+				out.writeLong(tag.id());
+				writeString(out, tag.name());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public ExpenseSnapshot decode(ByteBuffer record) {
+		try (DataInputStream in = new DataInputStream(
+				new ByteArrayInputStream(record.array(), record.position(), record.remaining()))) {
+			long id = in.readLong();
+			String name = readString(in);
+			Double amount = in.readBoolean() ? in.readDouble() : null;
+			String currency = readString(in);
+			LocalDate expenseDate = in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null;
+			ExpenseSnapshot.CategoryRef category = in.readBoolean()
+					? new ExpenseSnapshot.CategoryRef(in.readLong(), readString(in))
+					: null;
+			int tagCount = in.readInt();
+			List<ExpenseSnapshot.TagRef> tags = new ArrayList<>(tagCount);
+			for (int i = 0; i < tagCount; i++) {
+				tags.add(new ExpenseSnapshot.TagRef(in.readLong(), readString(in)));
+			}
+			return new ExpenseSnapshot(id, name, amount, currency, expenseDate, category, tags);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Length-prefixed UTF-8, -1 for null; writeUTF would fail on strings over 64 KB
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
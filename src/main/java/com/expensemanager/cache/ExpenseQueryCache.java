@@ -0,0 +1,169 @@
+package com.expensemanager.cache;
+
+import com.expensemanager.config.CacheProperties;
+import com.expensemanager.dto.ExpensePageRequest;
+import com.expensemanager.dto.ExpenseSnapshot;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+// Ids matching an expense search, resolved by the caller through ExpenseCache. Only the
+// maximum size and expire-after-write of the "queries" cache settings apply, and the
+// others are rejected; entries are evicted in LRU order.
+@Component
+public class ExpenseQueryCache {
+
+	public enum QueryType {
+		ALL,
+		CATEGORY,
+		TAG,
+		AMOUNT_RANGE,
+		NAME_PART
+	}
+
+	// page is null for a whole result, otherwise the key holds the ids of that page only
+	public record QueryKey(QueryType type, String text, double min, double max, ExpensePageRequest page) {
+
+		public static QueryKey all() {
+			return new QueryKey(QueryType.ALL, null, 0, 0, null);
+		}
+
+		public static QueryKey byCategory(String categoryName) {
+			return new QueryKey(QueryType.CATEGORY, categoryName, 0, 0, null);
+		}
+
+		public static QueryKey byTag(String tagName) {
+			return new QueryKey(QueryType.TAG, tagName, 0, 0, null);
+		}
+
+		public static QueryKey byAmountRange(double min, double max) {
+			return new QueryKey(QueryType.AMOUNT_RANGE, null, min, max, null);
+		}
+
+		public static QueryKey byNamePart(String namePart) {
+			return new QueryKey(QueryType.NAME_PART, namePart, 0, 0, null);
+		}
+
+		public QueryKey withPage(ExpensePageRequest page) {
+			return new QueryKey(type, text, min, max, page);
+		}
+
+		// Mirrors the corresponding ExpenseSpecifications. A change to a matching expense
+		// may move rows between pages, so all pages of the query are dropped.
+		boolean matches(ExpenseSnapshot expense) {
+			return switch (type) {
+				case ALL -> true;
+				case CATEGORY -> expense.category() != null && Objects.equals(text, expense.category().name());
+				case TAG -> text != null && expense.tags().stream().anyMatch(tag -> text.equalsIgnoreCase(tag.name()));
+				case AMOUNT_RANGE -> expense.amount() != null && expense.amount() >= min && expense.amount() <= max;
+				case NAME_PART -> expense.name() != null && text != null
+						&& expense.name().toLowerCase(Locale.ROOT).contains(text.toLowerCase(Locale.ROOT));
+			};
+		}
+	}
+
+	private record Result(List<Long> ids, long writeTime) {
+	}
+
+	private final long expireAfterWriteNanos;
+	// Guarded by itself, together with generation
+	private final Map<QueryKey, Result> results;
+	private final ConcurrentHashMap<QueryKey, CompletableFuture<List<Long>>> loading = new ConcurrentHashMap<>();
+	// Bumped by every invalidation, so that a query which overlapped one is not cached
+	private long generation;
+
+	public ExpenseQueryCache(CacheProperties cacheProperties) {
+		CacheSettings settings = cacheProperties.getQueries();
+		if (settings.getPolicy() != null || settings.getMaximumWeight() != null
+				|| settings.getRefreshAfterWrite() != null || settings.isOffHeap()) {
+			throw new IllegalArgumentException(
+					"Cache 'queries' only supports the maximum-size and expire-after-write settings");
+		}
+		int maximumSize = settings.getMaximumSize();
+		Duration expireAfterWrite = settings.getExpireAfterWrite();
+		this.expireAfterWriteNanos = expireAfterWrite != null ? expireAfterWrite.toNanos() : 0;
+		this.results = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<QueryKey, Result> eldest) {
+				return size() > maximumSize;
+			}
+		};
+	}
+
+	// Concurrent misses for the same query share a single call to the loader
+	public List<Long> get(QueryKey key, Supplier<List<Long>> loader) {
+		List<Long> cached = lookup(key);
+		if (cached != null) {
+			return cached;
+		}
+		CompletableFuture<List<Long>> future = new CompletableFuture<>();
+		CompletableFuture<List<Long>> inFlight = loading.putIfAbsent(key, future);
+		if (inFlight != null) {
+			return LFUCache.await(inFlight);
+		}
+		try {
+			long startGeneration;
+			synchronized (results) {
+				startGeneration = generation;
+			}
+			List<Long> ids = List.copyOf(loader.get());
+			synchronized (results) {
+				if (generation == startGeneration) {
+					results.put(key, new Result(ids, System.nanoTime()));
+				}
+			}
+			future.complete(ids);
+			return ids;
+		} catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			loading.remove(key, future);
+		}
+	}
+
+	// Drops the cached queries whose result may include any of the given expenses,
+	// taken before and after the change
+	public void invalidate(List<ExpenseSnapshot> changed) {
+		synchronized (results) {
+			generation++;
+			results.keySet().removeIf(key -> changed.stream().anyMatch(key::matches));
+		}
+	}
+
+	// Drops every cached query of a type, e.g. the tag queries once a tag was renamed
+	public void invalidate(QueryType type) {
+		synchronized (results) {
+			generation++;
+			results.keySet().removeIf(key -> key.type() == type);
+		}
+	}
+
+	public void clear() {
+		synchronized (results) {
+			generation++;
+			results.clear();
+		}
+	}
+
+	private List<Long> lookup(QueryKey key) {
+		synchronized (results) {
+			Result result = results.get(key);
+			if (result == null) {
+				return null;
+			}
+			if (expireAfterWriteNanos > 0 && System.nanoTime() - result.writeTime() >= expireAfterWriteNanos) {
+				results.remove(key);
+				return null;
+			}
+			return result.ids();
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.expensemanager.cache;
+
+import java.util.Arrays;
+
+// Count-min sketch of 4-bit counters used as the TinyLFU popularity estimate.
+// Once the number of recorded increments reaches the sample size every counter
+// is halved, so frequencies of formerly hot keys decay over time.
+final class FrequencySketch {
+
+	static final int MAX_FREQUENCY = 15;
+
+	private static final long[] SEEDS = {
+			0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final long ONE_MASK = 0x1111111111111111L;
+
+	private final long[] table;
+	private final int tableMask;
+	private final int sampleSize;
+	private int size;
+
+	FrequencySketch(int maximumSize) {
+		int capacity = Integer.highestOneBit(Math.max(16, Math.min(maximumSize, 1 << 30)) * 2 - 1);
+		table = new long[capacity];
+		tableMask = capacity - 1;
+		sampleSize = (int) Math.min(10L * maximumSize, Integer.MAX_VALUE);
+	}
+
+	int frequency(long key) {
+		int hash = spread(key);
+		int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		for (int i = 0; i < 4; i++) {
+			int index = indexOf(hash, i);
+			int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	void increment(long key) {
+		int hash = spread(key);
+		int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++) {
+			added |= incrementAt(indexOf(hash, i), start + i);
+		}
+		if (added && ++size >= sampleSize) {
+			reset();
+		}
+	}
+
+	void clear() {
+		Arrays.fill(table, 0L);
+		size = 0;
+	}
+
+	private boolean incrementAt(int index, int counter) {
+		int offset = counter << 2;
+		long mask = 0xfL << offset;
+		if ((table[index] & mask) != mask) {
+			table[index] += 1L << offset;
+			return true;
+		}
+		return false;
+	}
+
+	private void reset() {
+		int odd = 0;
+		for (int i = 0; i < table.length; i++) {
+			odd += Long.bitCount(table[i] & ONE_MASK);
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		size = (size - (odd >>> 2)) >>> 1;
+	}
+
+	private int indexOf(int hash, int depth) {
+		long h = (hash + SEEDS[depth]) * SEEDS[depth];
+		h += h >>> 32;
+		return ((int) h) & tableMask;
+	}
+
+	private static int spread(long key) {
+		long h = key * 0x9e3779b97f4a7c15L;
+		int x = (int) (h ^ (h >>> 32));
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		return (x >>> 16) ^ x;
+	}
+}
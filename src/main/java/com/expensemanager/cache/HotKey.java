@@ -0,0 +1,5 @@
+package com.expensemanager.cache;
+
+// A cached id and its eviction policy frequency, as saved in a cache snapshot
+public record HotKey(Long id, int frequency) {
+}
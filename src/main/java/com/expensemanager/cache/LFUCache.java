@@ -1,69 +1,547 @@
 package com.expensemanager.cache;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 public abstract class LFUCache<T> {
 
+	private static final int STRING_OVERHEAD = 40;
+
+	private static final ExecutorService REFRESH_EXECUTOR = Executors.newFixedThreadPool(2, runnable -> {
+		Thread thread = new Thread(runnable, "cache-refresh");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final String name;
 	private final int maxCapacity;
-	private final Map<Long, CacheEntry<T>> cache = new HashMap<>();
+	private final long maximumWeight;
+	private final long expireAfterWriteNanos;
+	private final long refreshAfterWriteNanos;
+	private final Ticker ticker;
+	private final Executor refreshExecutor;
+	private final StatsCounter statsCounter = new StatsCounter();
+	private final ConcurrentHashMap<Long, CacheEntry<T>> cache = new ConcurrentHashMap<>();
+	private final ReadBuffer<CacheEntry<T>> readBuffer = new ReadBuffer<>();
+	private final ConcurrentHashMap<Long, CompletableFuture<T>> loading = new ConcurrentHashMap<>();
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	// Guarded by evictionLock
+	private final EvictionPolicy<T> policy;
+	private final RecordCodec<T> codec;
+	// Only set for off-heap caches; entries then hold a slot handle instead of the value
+	private final OffHeapStore offHeapStore;
+	private volatile long weightedSize;
+	// Bumped by every put, remove and clear under evictionLock, see warm()
+	private volatile long writeGeneration;
 
 	protected static class CacheEntry<T> {
-		T value;
+		final Long key;
+		volatile T value;
+		volatile long slot = OffHeapStore.NO_SLOT;
+		volatile long writeTime;
+		// The fields below are owned by the eviction policy and guarded by evictionLock
+		long weight;
 		int frequency;
+		byte region;
+		boolean retired;
+		CacheEntry<T> prev;
+		CacheEntry<T> next;
+
+		CacheEntry(Long key, long weight, long writeTime) {
+			this.key = key;
+			this.weight = weight;
+			this.writeTime = writeTime;
+		}
+	}
+
+	protected LFUCache(String name, int maxCapacity) {
+		this(name, maxCapacity, CachePolicy.LFU);
+	}
+
+	protected LFUCache(String name, int maxCapacity, CachePolicy cachePolicy) {
+		this(name, new CacheSettings(cachePolicy, maxCapacity));
+	}
+
+	protected LFUCache(String name, CacheSettings settings) {
+		this(name, settings, null);
+	}
+
+	protected LFUCache(String name, CacheSettings settings, RecordCodec<T> codec) {
+		this(name, settings, codec, Ticker.SYSTEM, REFRESH_EXECUTOR);
+	}
+
+	protected LFUCache(String name, CacheSettings settings, RecordCodec<T> codec, Ticker ticker,
+			Executor refreshExecutor) {
+		if (settings.getMaximumSize() <= 0) {
+			throw new IllegalArgumentException("Cache capacity must be positive");
+		}
+		if (settings.isOffHeap() && (codec == null || settings.getMaximumWeight() == null)) {
+			throw new IllegalArgumentException("Off-heap cache '" + name + "' needs a record codec and a maximum weight");
+		}
+		this.name = name;
+		this.maxCapacity = settings.getMaximumSize();
+		this.maximumWeight = settings.getMaximumWeight() != null
+				? settings.getMaximumWeight().toBytes()
+				: Long.MAX_VALUE;
+		this.expireAfterWriteNanos = toNanos(settings.getExpireAfterWrite());
+		this.refreshAfterWriteNanos = toNanos(settings.getRefreshAfterWrite());
+		this.ticker = ticker;
+		this.refreshExecutor = refreshExecutor;
+		this.policy = settings.getPolicy().create(maxCapacity);
+		this.codec = codec;
+		this.offHeapStore = settings.isOffHeap() ? new OffHeapStore(maximumWeight) : null;
+	}
+
+	// Estimated retained size of a value in bytes; only used when a maximum weight is set.
+	// Off-heap caches weigh entries by the size of their slot instead
+	protected long weigh(T value) {
+		return 1;
+	}
+
+	protected static long stringSize(String value) {
+		return value == null ? 0 : STRING_OVERHEAD + value.length();
+	}
+
+	public T get(Long id) {
+		CacheEntry<T> entry = getEntry(id);
+		return entry != null ? valueOf(entry) : null;
+	}
+
+	// Concurrent misses for the same id share a single call to the loader; the other
+	// callers wait for its result, or get its exception rethrown
+	public T get(Long id, Function<Long, T> loader) {
+		CacheEntry<T> cached = getEntry(id);
+		T cachedValue = cached != null ? valueOf(cached) : null;
+		if (cachedValue != null) {
+			if (refreshAfterWriteNanos > 0 && ticker.read() - cached.writeTime >= refreshAfterWriteNanos) {
+				refreshAsync(id, loader);
+			}
+			return cachedValue;
+		}
+		CompletableFuture<T> future = new CompletableFuture<>();
+		CompletableFuture<T> inFlight = loading.putIfAbsent(id, future);
+		if (inFlight != null) {
+			return await(inFlight);
+		}
+		try {
+			// The previous load may have completed between our miss and putIfAbsent
+			CacheEntry<T> entry = cache.get(id);
+			T present = entry != null && !isExpired(entry) ? valueOf(entry) : null;
+			T value = present != null ? present : load(id, loader);
+			if (present == null && value != null) {
+				putIfStillLoading(id, future, value);
+			}
+			future.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			loading.remove(id, future);
+		}
+	}
+
+	// Lookups are lock-free like get(id); only ids with a cached value are in the result
+	public Map<Long, T> getAll(Collection<Long> ids) {
+		Map<Long, T> found = new HashMap<>();
+		for (Long id : ids) {
+			T value = get(id);
+			if (value != null) {
+				found.put(id, value);
+			}
+		}
+		return found;
+	}
+
+	// A put supersedes any load of the same id still in flight
+	public void put(Long id, T value) {
+		evictionLock.lock();
+		try {
+			writeGeneration++;
+			loading.remove(id);
+			insert(id, value);
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	// Caches the values whose ids are absent (or expired) under a single lock
+	// acquisition and returns how many were added
+	public int putAllIfAbsent(Map<Long, ? extends T> values) {
+		if (values.isEmpty()) {
+			return 0;
+		}
+		evictionLock.lock();
+		try {
+			int added = 0;
+			for (Map.Entry<Long, ? extends T> value : values.entrySet()) {
+				CacheEntry<T> entry = cache.get(value.getKey());
+				if (entry == null || isExpired(entry)) {
+					insert(value.getKey(), value.getValue());
+					added++;
+				}
+			}
+			return added;
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	// Caches absent values of a snapshot's hot keys with the frequencies they were saved
+	// with. Hottest keys are inserted last, so they are the last to be evicted if the
+	// snapshot does not fit. The values must have been loaded after generation() returned
+	// the given generation; if the cache was written to since, they may be older than a
+	// value put or removed meanwhile, and none is added. Returns how many values were added
+	public int warm(List<HotKey> hotKeys, Map<Long, ? extends T> values, long generation) {
+		evictionLock.lock();
+		try {
+			if (writeGeneration != generation) {
+				return 0;
+			}
+			int added = 0;
+			for (int i = hotKeys.size() - 1; i >= 0; i--) {
+				HotKey hotKey = hotKeys.get(i);
+				T value = values.get(hotKey.id());
+				CacheEntry<T> entry = cache.get(hotKey.id());
+				if (value == null || entry != null && !isExpired(entry)) {
+					continue;
+				}
+				insert(hotKey.id(), value);
+				entry = cache.get(hotKey.id());
+				if (entry != null) {
+					policy.restore(entry, hotKey.frequency());
+					added++;
+				}
+			}
+			return added;
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	// Live entries, hottest first
+	public List<HotKey> hotKeys() {
+		evictionLock.lock();
+		try {
+			drainReads();
+			List<HotKey> hotKeys = new ArrayList<>(cache.size());
+			for (CacheEntry<T> entry : cache.values()) {
+				if (!isExpired(entry)) {
+					hotKeys.add(new HotKey(entry.key, policy.frequency(entry)));
+				}
+			}
+			hotKeys.sort(Comparator.comparingInt(HotKey::frequency).reversed());
+			return hotKeys;
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	public void remove(Long id) {
+		evictionLock.lock();
+		try {
+			writeGeneration++;
+			loading.remove(id);
+			CacheEntry<T> entry = cache.get(id);
+			if (entry != null) {
+				removeEntry(entry);
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	// Scans every entry, so meant for rare bulk invalidations; returns the removed ids.
+	// Loads in flight may match too, so none of them is cached
+	public List<Long> removeIf(Predicate<? super T> filter) {
+		evictionLock.lock();
+		try {
+			writeGeneration++;
+			loading.clear();
+			List<Long> removed = new ArrayList<>();
+			for (CacheEntry<T> entry : List.copyOf(cache.values())) {
+				T value = valueOf(entry);
+				if (value != null && filter.test(value)) {
+					removeEntry(entry);
+					removed.add(entry.key);
+				}
+			}
+			return removed;
+		} finally {
+			evictionLock.unlock();
+		}
+	}
 
-		CacheEntry(T value) {
-			this.value = value;
-			this.frequency = 1;
+	public void clear() {
+		evictionLock.lock();
+		try {
+			drainReads();
+			writeGeneration++;
+			loading.clear();
+			cache.values().forEach(entry -> entry.retired = true);
+			cache.clear();
+			if (offHeapStore != null) {
+				offHeapStore.clear();
+			}
+			policy.clear();
+			weightedSize = 0;
+		} finally {
+			evictionLock.unlock();
 		}
 	}
 
-	protected LFUCache(int maxCapacity) {
-		this.maxCapacity = maxCapacity;
+	public long generation() {
+		return writeGeneration;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public CacheStats stats() {
+		return statsCounter.snapshot(name, cache.mappingCount(), weightedSize, maxCapacity);
 	}
 
-	public synchronized T get(Long id) {
+	public void resetStats() {
+		statsCounter.reset();
+	}
+
+	// Hits never block: the access is recorded in a lossy buffer and applied to the
+	// eviction policy in batches by whichever thread wins the eviction lock
+	private CacheEntry<T> getEntry(Long id) {
 		CacheEntry<T> entry = cache.get(id);
-		if (entry != null) {
-			entry.frequency++;
+		if (entry == null) {
+			statsCounter.recordMiss();
+			return null;
+		}
+		if (isExpired(entry)) {
+			statsCounter.recordMiss();
+			expire(entry);
+			return null;
+		}
+		statsCounter.recordHit();
+		if (readBuffer.offer(entry) == ReadBuffer.FULL) {
+			tryDrainReads();
+		}
+		return entry;
+	}
+
+	// An off-heap read returns null if the entry was evicted or replaced while its
+	// record was being copied; that is reported as a miss
+	private T valueOf(CacheEntry<T> entry) {
+		if (offHeapStore == null) {
 			return entry.value;
 		}
-		return null;
+		long slot;
+		byte[] record;
+		do {
+			slot = entry.slot;
+			record = offHeapStore.read(slot);
+		} while (record == null && !entry.retired && entry.slot != slot);
+		return record != null ? codec.decode(ByteBuffer.wrap(record)) : null;
 	}
 
-	public synchronized void put(Long id, T value) {
-		if (cache.containsKey(id)) {
-			CacheEntry<T> entry = cache.get(id);
-			entry.value = value;
-			entry.frequency++;
-		} else {
-			if (cache.size() >= maxCapacity) {
-				evictLeastFrequentlyUsed();
+	private boolean isExpired(CacheEntry<T> entry) {
+		return expireAfterWriteNanos > 0 && ticker.read() - entry.writeTime >= expireAfterWriteNanos;
+	}
+
+	private void expire(CacheEntry<T> entry) {
+		evictionLock.lock();
+		try {
+			if (cache.get(entry.key) == entry) {
+				removeEntry(entry);
+				statsCounter.recordEviction();
 			}
-			cache.put(id, new CacheEntry<>(value));
+		} finally {
+			evictionLock.unlock();
 		}
 	}
 
-	private void evictLeastFrequentlyUsed() {
-		Long lfuKey = null;
-		int minFrequency = Integer.MAX_VALUE;
+	// The stale value keeps being served until the reload completes; a failed reload
+	// leaves it in place until it expires
+	private void refreshAsync(Long id, Function<Long, T> loader) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		if (loading.putIfAbsent(id, future) != null) {
+			return;
+		}
+		refreshExecutor.execute(() -> {
+			try {
+				T value = load(id, loader);
+				if (value != null) {
+					putIfStillLoading(id, future, value);
+				}
+				future.complete(value);
+			} catch (RuntimeException e) {
+				future.completeExceptionally(e);
+				log.warn("Refresh of id {} in cache '{}' failed: {}", id, name, e.getMessage());
+			} finally {
+				loading.remove(id, future);
+			}
+		});
+	}
 
-		for (Map.Entry<Long, CacheEntry<T>> entry : cache.entrySet()) {
-			if (entry.getValue().frequency < minFrequency) {
-				minFrequency = entry.getValue().frequency;
-				lfuKey = entry.getKey();
+	private T load(Long id, Function<Long, T> loader) {
+		long start = ticker.read();
+		try {
+			T value = loader.apply(id);
+			statsCounter.recordLoadSuccess(ticker.read() - start);
+			return value;
+		} catch (RuntimeException | Error e) {
+			statsCounter.recordLoadFailure(ticker.read() - start);
+			throw e;
+		}
+	}
+
+	// A remove() or clear() issued while the loader ran wins over the loaded value
+	private void putIfStillLoading(Long id, CompletableFuture<T> future, T value) {
+		evictionLock.lock();
+		try {
+			if (loading.get(id) == future) {
+				insert(id, value);
 			}
+		} finally {
+			evictionLock.unlock();
 		}
-		if (lfuKey != null) {
-			cache.remove(lfuKey);
+	}
+
+	static <T> T await(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (e.getCause() instanceof Error cause) {
+				throw cause;
+			}
+			throw e;
 		}
 	}
 
-	public synchronized void remove(Long id) {
-		cache.remove(id);
+	private void insert(Long id, T value) {
+		drainReads();
+		byte[] record = offHeapStore != null ? codec.encode(value) : null;
+		long weight = record != null ? OffHeapStore.slotSize(record.length) : weigh(value);
+		if (weight < 0) {
+			throw new IllegalArgumentException("Cache entry weight must not be negative");
+		}
+		CacheEntry<T> entry = cache.get(id);
+		if (weight > maximumWeight) {
+			// Too large to ever fit; drop the old value rather than keep serving it
+			if (entry != null) {
+				removeEntry(entry);
+			}
+			return;
+		}
+		long now = ticker.read();
+		if (entry != null) {
+			if (!store(entry, value, record)) {
+				removeEntry(entry);
+				return;
+			}
+			weightedSize += weight - entry.weight;
+			entry.weight = weight;
+			entry.writeTime = now;
+			policy.onAccess(entry);
+			evictWhile(() -> weightedSize > maximumWeight);
+			return;
+		}
+		evictWhile(() -> cache.size() >= maxCapacity || weightedSize + weight > maximumWeight);
+		entry = new CacheEntry<>(id, weight, now);
+		if (!store(entry, value, record)) {
+			return;
+		}
+		cache.put(id, entry);
+		policy.onInsert(entry);
+		weightedSize += weight;
+	}
+
+	// Off-heap, the slabs may be at their cap with no free slot of the record's size;
+	// entries are then evicted until their slots make room. Returns false if the record
+	// could not be stored without evicting the entry itself
+	private boolean store(CacheEntry<T> entry, T value, byte[] record) {
+		if (offHeapStore == null) {
+			entry.value = value;
+			return true;
+		}
+		long slot = offHeapStore.allocate(record);
+		while (slot == OffHeapStore.NO_SLOT) {
+			CacheEntry<T> victim = policy.selectVictim();
+			if (victim == null || victim == entry) {
+				return false;
+			}
+			removeEntry(victim);
+			statsCounter.recordEviction();
+			slot = offHeapStore.allocate(record);
+		}
+		long previous = entry.slot;
+		entry.slot = slot;
+		offHeapStore.free(previous);
+		return true;
+	}
+
+	private void tryDrainReads() {
+		if (evictionLock.tryLock()) {
+			try {
+				drainReads();
+			} finally {
+				evictionLock.unlock();
+			}
+		}
+	}
+
+	private void drainReads() {
+		readBuffer.drainTo(entry -> {
+			if (!entry.retired) {
+				policy.onAccess(entry);
+			}
+		});
+	}
+
+	private void evictWhile(BooleanSupplier overCapacity) {
+		while (overCapacity.getAsBoolean()) {
+			CacheEntry<T> victim = policy.selectVictim();
+			if (victim == null) {
+				return;
+			}
+			removeEntry(victim);
+			statsCounter.recordEviction();
+		}
+	}
+
+	private void removeEntry(CacheEntry<T> entry) {
+		cache.remove(entry.key);
+		policy.onRemove(entry);
+		retire(entry);
+		weightedSize -= entry.weight;
+	}
+
+	private void retire(CacheEntry<T> entry) {
+		entry.retired = true;
+		if (offHeapStore != null) {
+			offHeapStore.free(entry.slot);
+		}
 	}
 
-	public synchronized void clear() {
-		cache.clear();
+	private static long toNanos(Duration duration) {
+		return duration != null ? duration.toNanos() : 0;
 	}
 }
@@ -0,0 +1,105 @@
+package com.expensemanager.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Classic LFU: frequency buckets plus a min-frequency pointer, ties broken by recency.
+// Frequencies saturate at MAX_FREQUENCY, which also bounds the scan for the next bucket
+// when the one at minFrequency empties.
+final class LfuPolicy<T> implements EvictionPolicy<T> {
+
+	// Entries accessed this often only move to the tail of their bucket, so that a key
+	// hot long ago cannot outweigh the current working set forever
+	static final int MAX_FREQUENCY = 255;
+
+	private final Map<Integer, EntryQueue<T>> buckets = new HashMap<>();
+	private int minFrequency;
+
+	@Override
+	public void onAccess(LFUCache.CacheEntry<T> entry) {
+		int frequency = entry.frequency;
+		EntryQueue<T> current = buckets.get(frequency);
+		if (frequency == MAX_FREQUENCY) {
+			current.moveToTail(entry);
+			return;
+		}
+		current.unlink(entry);
+		if (current.isEmpty()) {
+			buckets.remove(frequency);
+			if (minFrequency == frequency) {
+				minFrequency = frequency + 1;
+			}
+		}
+		entry.frequency = frequency + 1;
+		bucket(entry.frequency).addLast(entry);
+	}
+
+	@Override
+	public void onInsert(LFUCache.CacheEntry<T> entry) {
+		entry.frequency = 1;
+		bucket(1).addLast(entry);
+		minFrequency = 1;
+	}
+
+	@Override
+	public void onRemove(LFUCache.CacheEntry<T> entry) {
+		unlink(entry);
+	}
+
+	@Override
+	public LFUCache.CacheEntry<T> selectVictim() {
+		EntryQueue<T> lowest = buckets.get(minFrequency);
+		return lowest == null ? null : lowest.head;
+	}
+
+	@Override
+	public int frequency(LFUCache.CacheEntry<T> entry) {
+		return entry.frequency;
+	}
+
+	@Override
+	public void restore(LFUCache.CacheEntry<T> entry, int frequency) {
+		frequency = Math.min(frequency, MAX_FREQUENCY);
+		if (frequency <= entry.frequency) {
+			return;
+		}
+		// Created first, so that unlink() finds it if it has to advance minFrequency
+		EntryQueue<T> target = bucket(frequency);
+		unlink(entry);
+		entry.frequency = frequency;
+		target.addLast(entry);
+	}
+
+	@Override
+	public void clear() {
+		buckets.clear();
+		minFrequency = 0;
+	}
+
+	private void unlink(LFUCache.CacheEntry<T> entry) {
+		EntryQueue<T> current = buckets.get(entry.frequency);
+		current.unlink(entry);
+		if (current.isEmpty()) {
+			buckets.remove(entry.frequency);
+			if (minFrequency == entry.frequency) {
+				advanceMinFrequency();
+			}
+		}
+	}
+
+	// Every bucket is above the emptied one, so this takes at most MAX_FREQUENCY lookups,
+	// and usually one as the low frequencies are the crowded ones
+	private void advanceMinFrequency() {
+		if (buckets.isEmpty()) {
+			minFrequency = 0;
+			return;
+		}
+		do {
+			minFrequency++;
+		} while (!buckets.containsKey(minFrequency));
+	}
+
+	private EntryQueue<T> bucket(int frequency) {
+		return buckets.computeIfAbsent(frequency, f -> new EntryQueue<>());
+	}
+}
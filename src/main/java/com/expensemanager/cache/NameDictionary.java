@@ -0,0 +1,145 @@
+package com.expensemanager.cache;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Case-insensitive name to entity read model of a small table, kept in full on every
+// node. Readers never lock: they work on an immutable copy that every write replaces,
+// so writes cost O(n). Entities handed out are new detached instances that callers
+// may modify or attach to other entities.
+public abstract class NameDictionary<T> {
+
+	private record Entry(Long id, String name) {
+	}
+
+	private record Contents(Map<String, Entry> byName, Map<Long, Entry> byId) {
+	}
+
+	private final String name;
+	private final Object writeLock = new Object();
+	// Null until loaded, and again after invalidate()
+	private volatile Contents contents;
+
+	protected NameDictionary(String name) {
+		this.name = name;
+	}
+
+	protected abstract Long idOf(T value);
+
+	protected abstract String nameOf(T value);
+
+	protected abstract T create(Long id, String name);
+
+	public String getName() {
+		return name;
+	}
+
+	// Reads the whole table on first use and after invalidate()
+	public NameDictionary<T> ensureLoaded(Supplier<? extends Collection<T>> loader) {
+		if (contents == null) {
+			synchronized (writeLock) {
+				if (contents == null) {
+					Contents loaded = new Contents(new HashMap<>(), new HashMap<>());
+					loader.get().forEach(value -> add(loaded, value));
+					contents = loaded;
+				}
+			}
+		}
+		return this;
+	}
+
+	public Optional<T> find(String name) {
+		Contents current = contents;
+		if (current == null || name == null) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(current.byName().get(key(name))).map(this::toValue);
+	}
+
+	public Optional<T> get(Long id) {
+		Contents current = contents;
+		if (current == null || id == null) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(current.byId().get(id)).map(this::toValue);
+	}
+
+	public List<T> all() {
+		Contents current = contents;
+		if (current == null) {
+			return List.of();
+		}
+		return current.byId().values().stream()
+				.sorted(Comparator.comparing(Entry::id))
+				.map(this::toValue)
+				.toList();
+	}
+
+	// Ignored until the dictionary is loaded, since the load will include the value
+	public void put(T value) {
+		if (idOf(value) == null || nameOf(value) == null) {
+			return;
+		}
+		synchronized (writeLock) {
+			Contents current = contents;
+			if (current != null) {
+				Contents copy = copyOf(current);
+				removeEntry(copy, idOf(value));
+				add(copy, value);
+				contents = copy;
+			}
+		}
+	}
+
+	public void remove(Long id) {
+		synchronized (writeLock) {
+			Contents current = contents;
+			if (current != null && current.byId().containsKey(id)) {
+				Contents copy = copyOf(current);
+				removeEntry(copy, id);
+				contents = copy;
+			}
+		}
+	}
+
+	// For changes made on other nodes, whose new names are not known here
+	public void invalidate() {
+		synchronized (writeLock) {
+			contents = null;
+		}
+	}
+
+	private T toValue(Entry entry) {
+		return create(entry.id(), entry.name());
+	}
+
+	private void add(Contents target, T value) {
+		if (idOf(value) == null || nameOf(value) == null) {
+			return;
+		}
+		Entry entry = new Entry(idOf(value), nameOf(value));
+		target.byName().put(key(entry.name()), entry);
+		target.byId().put(entry.id(), entry);
+	}
+
+	private static void removeEntry(Contents target, Long id) {
+		Entry removed = target.byId().remove(id);
+		if (removed != null) {
+			target.byName().remove(key(removed.name()), removed);
+		}
+	}
+
+	private static Contents copyOf(Contents contents) {
+		return new Contents(new HashMap<>(contents.byName()), new HashMap<>(contents.byId()));
+	}
+
+	private static String key(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+}
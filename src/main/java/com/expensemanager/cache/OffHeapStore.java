@@ -0,0 +1,248 @@
+package com.expensemanager.cache;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Serialized records kept in direct ByteBuffer slabs outside the Java heap. Slots come
+// in power-of-two size classes, each with its own free list. A slot starts with a stamp
+// that is bumped whenever the slot is freed, and a handle carries the stamp it was
+// issued with, so a lock-free reader racing with a free detects that the bytes it
+// copied were reused (as with a seqlock). Allocating and freeing must be done by a
+// single thread at a time.
+//
+// The slabs are capped at a number of bytes; once they are all allocated, allocate()
+// fails until frees empty a slab. An empty slab is released, or reused from its start
+// if it is the one slots are carved from, and its generation is bumped so that handles
+// issued before can no longer read the slots carved over theirs.
+final class OffHeapStore {
+
+	static final long NO_SLOT = -1;
+
+	private static final int MIN_SLOT_SHIFT = 5;
+	private static final int MAX_SLOT_SHIFT = 16;
+	private static final int SLAB_SHIFT = 22;
+	private static final int SLAB_SIZE = 1 << SLAB_SHIFT;
+	// Stamp and record length
+	private static final int HEADER_SIZE = 8;
+	// A handle packs the generation of its slab, the slab index, the slot offset in
+	// units of the smallest slot, and the stamp
+	private static final int STAMP_BITS = 24;
+	private static final int STAMP_MASK = (1 << STAMP_BITS) - 1;
+	private static final int POSITION_BITS = 16 + SLAB_SHIFT - MIN_SLOT_SHIFT;
+	private static final long POSITION_MASK = (1L << POSITION_BITS) - 1;
+	private static final int GENERATION_MASK = (1 << 6) - 1;
+	private static final int MAX_SLABS = 1 << 16;
+	private static final VarHandle STAMP = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+	private record Slab(ByteBuffer buffer, int generation) {
+	}
+
+	private final long maximumReservedBytes;
+	// Free slot positions (slab index and offset) by size class
+	private final long[][] freeSlots = new long[MAX_SLOT_SHIFT + 1][];
+	private final int[] freeCounts = new int[MAX_SLOT_SHIFT + 1];
+	// Copied on write; a released slab leaves a null behind
+	private volatile Slab[] slabs = new Slab[0];
+	private int[] generations = new int[0];
+	private int[] liveSlots = new int[0];
+	private int slabCount;
+	private int bumpSlab = -1;
+	private int slabOffset = SLAB_SIZE;
+
+	// Slots of one size class are not reused for another, so the slabs may take up to
+	// twice the maximum weight of the cache before allocations fail
+	OffHeapStore(long maximumWeight) {
+		long slabs = Math.max(1, Math.min(MAX_SLABS, (maximumWeight * 2 + SLAB_SIZE - 1) / SLAB_SIZE));
+		this.maximumReservedBytes = slabs * SLAB_SIZE;
+		Arrays.fill(freeSlots, new long[0]);
+	}
+
+	// Bytes taken by a record of the given length, or Long.MAX_VALUE if it is too large to store
+	static long slotSize(int recordLength) {
+		int shift = slotShift(recordLength);
+		return shift > MAX_SLOT_SHIFT ? Long.MAX_VALUE : 1L << shift;
+	}
+
+	// Returns NO_SLOT if the record is too large, or if no slot of its size is free and
+	// the slabs are at their cap
+	long allocate(byte[] record) {
+		int shift = slotShift(record.length);
+		if (shift > MAX_SLOT_SHIFT) {
+			return NO_SLOT;
+		}
+		long position = freeCounts[shift] > 0 ? freeSlots[shift][--freeCounts[shift]] : bump(1 << shift);
+		if (position == NO_SLOT) {
+			return NO_SLOT;
+		}
+		int index = slabIndex(position);
+		Slab slab = slabs[index];
+		int offset = offset(position);
+		int stamp = (int) STAMP.get(slab.buffer(), offset) & STAMP_MASK;
+		slab.buffer().putInt(offset + Integer.BYTES, record.length);
+		slab.buffer().put(offset + HEADER_SIZE, record);
+		liveSlots[index]++;
+		return ((long) slab.generation() << POSITION_BITS | position >>> MIN_SLOT_SHIFT) << STAMP_BITS | stamp;
+	}
+
+	// Returns a copy of the record, or null if its slot has been freed in the meantime
+	byte[] read(long handle) {
+		if (handle == NO_SLOT) {
+			return null;
+		}
+		long position = position(handle);
+		int expected = (int) handle & STAMP_MASK;
+		Slab slab = slabs[slabIndex(position)];
+		if (slab == null || slab.generation() != generation(handle)) {
+			return null;
+		}
+		ByteBuffer buffer = slab.buffer();
+		int offset = offset(position);
+		if (((int) STAMP.getAcquire(buffer, offset) & STAMP_MASK) != expected) {
+			return null;
+		}
+		int length = buffer.getInt(offset + Integer.BYTES);
+		if (length < 0 || length > SLAB_SIZE - offset - HEADER_SIZE) {
+			return null;
+		}
+		byte[] record = new byte[length];
+		buffer.get(offset + HEADER_SIZE, record);
+		VarHandle.acquireFence();
+		return ((int) STAMP.getOpaque(buffer, offset) & STAMP_MASK) == expected
+				&& slabs[slabIndex(position)] == slab ? record : null;
+	}
+
+	void free(long handle) {
+		if (handle == NO_SLOT) {
+			return;
+		}
+		long position = position(handle);
+		int index = slabIndex(position);
+		Slab slab = slabs[index];
+		if (slab == null || slab.generation() != generation(handle)) {
+			return;
+		}
+		ByteBuffer buffer = slab.buffer();
+		int offset = offset(position);
+		int stamp = (int) STAMP.get(buffer, offset);
+		if ((stamp & STAMP_MASK) != ((int) handle & STAMP_MASK)) {
+			return;
+		}
+		STAMP.set(buffer, offset, (stamp + 1) & STAMP_MASK);
+		// The new stamp must be visible before the slot is overwritten by its next owner
+		VarHandle.releaseFence();
+		if (--liveSlots[index] == 0) {
+			recycle(index);
+			return;
+		}
+		int shift = slotShift(buffer.getInt(offset + Integer.BYTES));
+		if (freeCounts[shift] == freeSlots[shift].length) {
+			freeSlots[shift] = Arrays.copyOf(freeSlots[shift], Math.max(16, freeCounts[shift] * 2));
+		}
+		freeSlots[shift][freeCounts[shift]++] = position;
+	}
+
+	// Releases every slab; handles issued before read as freed
+	void clear() {
+		Slab[] cleared = new Slab[slabs.length];
+		for (int i = 0; i < generations.length; i++) {
+			generations[i] = (generations[i] + 1) & GENERATION_MASK;
+		}
+		slabs = cleared;
+		Arrays.fill(liveSlots, 0);
+		Arrays.fill(freeCounts, 0);
+		slabCount = 0;
+		bumpSlab = -1;
+		slabOffset = SLAB_SIZE;
+	}
+
+	long reservedBytes() {
+		return (long) slabCount * SLAB_SIZE;
+	}
+
+	private long bump(int slotSize) {
+		if (slabOffset + slotSize > SLAB_SIZE) {
+			if (reservedBytes() + SLAB_SIZE > maximumReservedBytes) {
+				return NO_SLOT;
+			}
+			addSlab();
+		}
+		long position = (long) bumpSlab << SLAB_SHIFT | slabOffset;
+		slabOffset += slotSize;
+		return position;
+	}
+
+	private void addSlab() {
+		Slab[] current = slabs;
+		int index = 0;
+		while (index < current.length && current[index] != null) {
+			index++;
+		}
+		Slab[] grown = index < current.length ? current.clone() : Arrays.copyOf(current, index + 1);
+		if (index == generations.length) {
+			generations = Arrays.copyOf(generations, index + 1);
+			liveSlots = Arrays.copyOf(liveSlots, index + 1);
+		}
+		// Aligned so that the stamp can be accessed atomically
+		ByteBuffer buffer = ByteBuffer.allocateDirect(SLAB_SIZE + Long.BYTES)
+				.alignedSlice(Long.BYTES)
+				.limit(SLAB_SIZE)
+				.slice()
+				.order(ByteOrder.nativeOrder());
+		grown[index] = new Slab(buffer, generations[index]);
+		slabs = grown;
+		slabCount++;
+		bumpSlab = index;
+		slabOffset = 0;
+	}
+
+	// Called once the last slot of a slab is freed
+	private void recycle(int index) {
+		for (int shift = MIN_SLOT_SHIFT; shift <= MAX_SLOT_SHIFT; shift++) {
+			long[] free = freeSlots[shift];
+			int kept = 0;
+			for (int i = 0; i < freeCounts[shift]; i++) {
+				if (slabIndex(free[i]) != index) {
+					free[kept++] = free[i];
+				}
+			}
+			freeCounts[shift] = kept;
+		}
+		generations[index] = (generations[index] + 1) & GENERATION_MASK;
+		Slab[] updated = slabs.clone();
+		if (index == bumpSlab) {
+			updated[index] = new Slab(updated[index].buffer(), generations[index]);
+			slabOffset = 0;
+		} else {
+			// The direct memory is freed once no reader holds the buffer any more
+			updated[index] = null;
+			slabCount--;
+		}
+		slabs = updated;
+		// The new generation must be visible before slots are carved over the old ones
+		VarHandle.releaseFence();
+	}
+
+	private static int slotShift(int recordLength) {
+		int size = HEADER_SIZE + recordLength;
+		return Math.max(MIN_SLOT_SHIFT, 32 - Integer.numberOfLeadingZeros(size - 1));
+	}
+
+	private static long position(long handle) {
+		return (handle >>> STAMP_BITS & POSITION_MASK) << MIN_SLOT_SHIFT;
+	}
+
+	private static int generation(long handle) {
+		return (int) (handle >>> STAMP_BITS + POSITION_BITS);
+	}
+
+	private static int slabIndex(long position) {
+		return (int) (position >>> SLAB_SHIFT);
+	}
+
+	private static int offset(long position) {
+		return (int) position & (SLAB_SIZE - 1);
+	}
+}
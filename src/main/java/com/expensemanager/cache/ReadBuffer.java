@@ -0,0 +1,82 @@
+package com.expensemanager.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// Striped, lossy buffer of recorded reads. Writers never block: when a stripe is
+// full or contended the read is simply dropped, which only makes LFU frequencies
+// slightly less exact. Draining must be done by a single thread at a time.
+final class ReadBuffer<E> {
+
+	static final int SUCCESS = 0;
+	static final int FULL = 1;
+	static final int FAILED = 2;
+
+	private static final int STRIPE_SIZE = 16;
+	private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+	private final Stripe<E>[] stripes;
+	private final int stripeMask;
+
+	@SuppressWarnings("unchecked")
+	ReadBuffer() {
+		int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+		stripes = new Stripe[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new Stripe<>();
+		}
+		stripeMask = count - 1;
+	}
+
+	int offer(E element) {
+		return stripes[probe() & stripeMask].offer(element);
+	}
+
+	void drainTo(Consumer<E> consumer) {
+		for (Stripe<E> stripe : stripes) {
+			stripe.drainTo(consumer);
+		}
+	}
+
+	private static int probe() {
+		int h = System.identityHashCode(Thread.currentThread());
+		return h ^ (h >>> 16);
+	}
+
+	private static final class Stripe<E> {
+		private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(STRIPE_SIZE);
+		private final AtomicLong writeCounter = new AtomicLong();
+		private volatile long readCounter;
+
+		int offer(E element) {
+			long head = readCounter;
+			long tail = writeCounter.get();
+			if (tail - head >= STRIPE_SIZE) {
+				return FULL;
+			}
+			if (!writeCounter.compareAndSet(tail, tail + 1)) {
+				return FAILED;
+			}
+			buffer.lazySet((int) (tail & STRIPE_MASK), element);
+			return SUCCESS;
+		}
+
+		void drainTo(Consumer<E> consumer) {
+			long head = readCounter;
+			long tail = writeCounter.get();
+			while (head < tail) {
+				int index = (int) (head & STRIPE_MASK);
+				E element = buffer.get(index);
+				if (element == null) {
+					// The writer claimed the slot but has not published it yet
+					break;
+				}
+				buffer.lazySet(index, null);
+				consumer.accept(element);
+				head++;
+			}
+			readCounter = head;
+		}
+	}
+}
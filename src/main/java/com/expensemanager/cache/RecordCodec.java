@@ -0,0 +1,11 @@
+package com.expensemanager.cache;
+
+import java.nio.ByteBuffer;
+
+// Binary form of cached values for caches that keep them off-heap
+public interface RecordCodec<T> {
+
+	byte[] encode(T value);
+
+	T decode(ByteBuffer record);
+}
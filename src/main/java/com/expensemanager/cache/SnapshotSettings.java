@@ -0,0 +1,21 @@
+package com.expensemanager.cache;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class SnapshotSettings {
+
+	private boolean enabled = true;
+	// Every cache is saved to <name>.snapshot in this directory on shutdown
+	private Path directory = Path.of("cache-snapshots");
+	// Startup waits at most this long for the caches to be reloaded
+	private Duration warmUpBudget = Duration.ofSeconds(30);
+	// Ids per IN (...) query
+	private int batchSize = 500;
+	// Batches fetched at the same time
+	private int parallelism = 4;
+}
@@ -0,0 +1,58 @@
+package com.expensemanager.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+final class StatsCounter {
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder loadSuccessCount = new LongAdder();
+	private final LongAdder loadFailureCount = new LongAdder();
+	private final LongAdder totalLoadTime = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	void recordHit() {
+		hitCount.increment();
+	}
+
+	void recordMiss() {
+		missCount.increment();
+	}
+
+	void recordLoadSuccess(long loadTimeNanos) {
+		loadSuccessCount.increment();
+		totalLoadTime.add(loadTimeNanos);
+	}
+
+	void recordLoadFailure(long loadTimeNanos) {
+		loadFailureCount.increment();
+		totalLoadTime.add(loadTimeNanos);
+	}
+
+	void recordEviction() {
+		evictionCount.increment();
+	}
+
+	CacheStats snapshot(String name, long size, long weightedSize, int maxCapacity) {
+		return CacheStats.of(
+				name,
+				size,
+				weightedSize,
+				maxCapacity,
+				hitCount.sum(),
+				missCount.sum(),
+				loadSuccessCount.sum(),
+				loadFailureCount.sum(),
+				totalLoadTime.sum(),
+				evictionCount.sum());
+	}
+
+	void reset() {
+		hitCount.reset();
+		missCount.reset();
+		loadSuccessCount.reset();
+		loadFailureCount.reset();
+		totalLoadTime.reset();
+		evictionCount.reset();
+	}
+}
@@ -1,12 +1,20 @@
 package com.expensemanager.cache;
 
+import com.expensemanager.config.CacheProperties;
 import com.expensemanager.model.Tag;
 import org.springframework.stereotype.Component;
 
 @Component
 public class TagCache extends LFUCache<Tag> {
 
-	public TagCache() {
-		super(100);
+	private static final int TAG_OVERHEAD = 48;
+
+	public TagCache(CacheProperties cacheProperties) {
+		super("tags", cacheProperties.getTags());
+	}
+
+	@Override
+	protected long weigh(Tag tag) {
+		return TAG_OVERHEAD + stringSize(tag.getName());
 	}
 }
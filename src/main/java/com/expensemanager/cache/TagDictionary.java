@@ -0,0 +1,29 @@
+package com.expensemanager.cache;
+
+import com.expensemanager.model.Tag;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TagDictionary extends NameDictionary<Tag> {
+
+	public TagDictionary() {
+		super("tags");
+	}
+
+	@Override
+	protected Long idOf(Tag tag) {
+		return tag.getId();
+	}
+
+	@Override
+	protected String nameOf(Tag tag) {
+		return tag.getName();
+	}
+
+	@Override
+	protected Tag create(Long id, String name) {
+		Tag tag = new Tag(name);
+		tag.setId(id);
+		return tag;
+	}
+}
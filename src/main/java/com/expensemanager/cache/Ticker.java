@@ -0,0 +1,10 @@
+package com.expensemanager.cache;
+
+// Source of the nanosecond times LFUCache measures expiry, refresh and load times with
+@FunctionalInterface
+public interface Ticker {
+
+	Ticker SYSTEM = System::nanoTime;
+
+	long read();
+}
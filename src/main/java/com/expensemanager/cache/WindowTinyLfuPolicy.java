@@ -0,0 +1,106 @@
+package com.expensemanager.cache;
+
+// W-TinyLFU: new entries land in a small LRU window; an entry leaving the window
+// only displaces the main space's LRU victim if the frequency sketch says it is
+// more popular. The main space is a segmented LRU (probation + protected).
+final class WindowTinyLfuPolicy<T> implements EvictionPolicy<T> {
+
+	static final byte WINDOW = 0;
+	static final byte PROBATION = 1;
+	static final byte PROTECTED = 2;
+
+	private final FrequencySketch sketch;
+	private final EntryQueue<T> window = new EntryQueue<>();
+	private final EntryQueue<T> probation = new EntryQueue<>();
+	private final EntryQueue<T> protectedQueue = new EntryQueue<>();
+	private final int maxWindow;
+	private final int maxProtected;
+
+	WindowTinyLfuPolicy(int maxCapacity) {
+		this.maxWindow = Math.max(1, maxCapacity / 100);
+		this.maxProtected = (int) ((maxCapacity - maxWindow) * 0.8);
+		this.sketch = new FrequencySketch(maxCapacity);
+	}
+
+	@Override
+	public void onAccess(LFUCache.CacheEntry<T> entry) {
+		sketch.increment(entry.key);
+		switch (entry.region) {
+			case WINDOW -> window.moveToTail(entry);
+			case PROBATION -> {
+				probation.unlink(entry);
+				entry.region = PROTECTED;
+				protectedQueue.addLast(entry);
+				while (protectedQueue.size > maxProtected) {
+					LFUCache.CacheEntry<T> demoted = protectedQueue.head;
+					protectedQueue.unlink(demoted);
+					demoted.region = PROBATION;
+					probation.addLast(demoted);
+				}
+			}
+			default -> protectedQueue.moveToTail(entry);
+		}
+	}
+
+	@Override
+	public void onInsert(LFUCache.CacheEntry<T> entry) {
+		sketch.increment(entry.key);
+		entry.region = WINDOW;
+		window.addLast(entry);
+		while (window.size > maxWindow) {
+			LFUCache.CacheEntry<T> candidate = window.head;
+			window.unlink(candidate);
+			candidate.region = PROBATION;
+			probation.addLast(candidate);
+		}
+	}
+
+	@Override
+	public void onRemove(LFUCache.CacheEntry<T> entry) {
+		queueOf(entry).unlink(entry);
+	}
+
+	@Override
+	public LFUCache.CacheEntry<T> selectVictim() {
+		// The window head is about to be pushed into the main space by the pending
+		// insert, so it competes with the main space's victim for admission
+		LFUCache.CacheEntry<T> candidate = window.size >= maxWindow ? window.head : null;
+		LFUCache.CacheEntry<T> victim = probation.isEmpty() ? protectedQueue.head : probation.head;
+		if (candidate == null) {
+			return victim != null ? victim : window.head;
+		}
+		if (victim == null) {
+			return candidate;
+		}
+		return sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+	}
+
+	@Override
+	public int frequency(LFUCache.CacheEntry<T> entry) {
+		return sketch.frequency(entry.key);
+	}
+
+	// The sketch saturates at a small count, so this is cheap for any frequency
+	@Override
+	public void restore(LFUCache.CacheEntry<T> entry, int frequency) {
+		for (int i = sketch.frequency(entry.key); i < frequency && i < FrequencySketch.MAX_FREQUENCY; i++) {
+			sketch.increment(entry.key);
+		}
+	}
+
+	@Override
+	public void clear() {
+		window.clear();
+		probation.clear();
+		protectedQueue.clear();
+		sketch.clear();
+	}
+
+	private EntryQueue<T> queueOf(LFUCache.CacheEntry<T> entry) {
+		return switch (entry.region) {
+			case WINDOW -> window;
+			case PROBATION -> probation;
+			default -> protectedQueue;
+		};
+	}
+}
@@ -0,0 +1,223 @@
+package com.expensemanager.cache.invalidation;
+
+import com.expensemanager.cache.CategoryCache;
+import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.ExpenseQueryCache;
+import com.expensemanager.cache.ExpenseQueryCache.QueryType;
+import com.expensemanager.cache.LFUCache;
+import com.expensemanager.cache.NameDictionary;
+import com.expensemanager.cache.TagCache;
+import com.expensemanager.config.CacheProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+// Tells the other nodes which cached ids were written here, so they evict them too.
+// Ids are collected per cache and published in batches of at most MAX_PAYLOAD_LENGTH
+// characters, formatted as "<node>|<cache>:<id>,<id>|<cache>:<id>". Rows added to a
+// dictionary are published as "+<dictionary>:<id>", and only reload that dictionary.
+@Slf4j
+@Component
+public class CacheInvalidationBus {
+
+	// PostgreSQL rejects NOTIFY payloads of 8000 bytes or more
+	private static final int MAX_PAYLOAD_LENGTH = 7_900;
+	private static final String ADDED_PREFIX = "+";
+
+	private final String nodeId = UUID.randomUUID().toString();
+	private final InvalidationTransport transport;
+	private final Map<String, LFUCache<?>> caches;
+	private final Map<String, NameDictionary<?>> dictionaries;
+	private final List<InvalidationListener> listeners;
+	private final ExpenseQueryCache expenseQueryCache;
+	private final InvalidationSettings settings;
+	private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "cache-invalidation");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// Guarded by itself
+	private final Map<String, Set<Long>> pending = new LinkedHashMap<>();
+	private int pendingCount;
+	private InvalidationTransport.Subscription subscription;
+
+	public CacheInvalidationBus(InvalidationTransport transport,
+	                            List<LFUCache<?>> caches,
+	                            List<NameDictionary<?>> dictionaries,
+	                            List<InvalidationListener> listeners,
+	                            ExpenseQueryCache expenseQueryCache,
+	                            CacheProperties cacheProperties) {
+		this.transport = transport;
+		this.caches = caches.stream().collect(Collectors.toMap(LFUCache::getName, Function.identity()));
+		this.dictionaries = dictionaries.stream().collect(Collectors.toMap(NameDictionary::getName, Function.identity()));
+		this.listeners = listeners;
+		this.expenseQueryCache = expenseQueryCache;
+		this.settings = cacheProperties.getInvalidation();
+	}
+
+	@PostConstruct
+	public void start() {
+		subscription = transport.subscribe(this::receive, this::clearAll);
+		long interval = settings.getFlushInterval().toMillis();
+		flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		flusher.shutdown();
+		flush();
+		if (subscription != null) {
+			subscription.close();
+		}
+	}
+
+	public void publish(String cacheName, Long id) {
+		publish(cacheName, List.of(id));
+	}
+
+	public void publish(String cacheName, Collection<Long> ids) {
+		enqueue(cacheName, ids);
+	}
+
+	// New rows, which no cached expense or query can refer to yet
+	public void publishAdded(String dictionaryName, Collection<Long> ids) {
+		enqueue(ADDED_PREFIX + dictionaryName, ids);
+	}
+
+	private void enqueue(String name, Collection<Long> ids) {
+		boolean full;
+		synchronized (pending) {
+			Set<Long> cacheIds = pending.computeIfAbsent(name, key -> new LinkedHashSet<>());
+			for (Long id : ids) {
+				if (cacheIds.add(id)) {
+					pendingCount++;
+				}
+			}
+			full = pendingCount >= settings.getMaxBatchSize();
+		}
+		if (full && !flusher.isShutdown()) {
+			flusher.execute(this::flush);
+		}
+	}
+
+	// Synchronized so that a flush returns only once earlier batches have been sent
+	synchronized void flush() {
+		Map<String, Set<Long>> batch;
+		synchronized (pending) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			batch = new LinkedHashMap<>(pending);
+			pending.clear();
+			pendingCount = 0;
+		}
+		for (String payload : encode(batch)) {
+			try {
+				transport.send(payload);
+			} catch (RuntimeException e) {
+				log.warn("Failed to publish cache invalidation: {}", e.getMessage());
+			}
+		}
+	}
+
+	private List<String> encode(Map<String, Set<Long>> batch) {
+		List<String> payloads = new ArrayList<>();
+		StringBuilder payload = new StringBuilder(nodeId);
+		for (Map.Entry<String, Set<Long>> cacheIds : batch.entrySet()) {
+			String section = "|" + cacheIds.getKey() + ":";
+			payload.append(section);
+			boolean first = true;
+			for (Long id : cacheIds.getValue()) {
+				String value = String.valueOf(id);
+				if (payload.length() + value.length() + 1 > MAX_PAYLOAD_LENGTH) {
+					payloads.add(payload.toString());
+					payload = new StringBuilder(nodeId).append(section);
+					first = true;
+				}
+				if (!first) {
+					payload.append(',');
+				}
+				payload.append(value);
+				first = false;
+			}
+		}
+		payloads.add(payload.toString());
+		return payloads;
+	}
+
+	private void receive(String payload) {
+		String[] sections = payload.split("\\|");
+		if (sections[0].equals(nodeId)) {
+			return;
+		}
+		for (int i = 1; i < sections.length; i++) {
+			int separator = sections[i].indexOf(':');
+			String name = sections[i].substring(0, separator);
+			String section = sections[i].substring(separator + 1);
+			List<Long> ids = section.isEmpty()
+					? List.of()
+					: Arrays.stream(section.split(",")).map(Long::valueOf).toList();
+			if (name.startsWith(ADDED_PREFIX)) {
+				NameDictionary<?> dictionary = dictionaries.get(name.substring(ADDED_PREFIX.length()));
+				if (dictionary != null) {
+					dictionary.invalidate();
+				}
+				continue;
+			}
+			// The new names are not in the message, so the whole dictionary is reloaded
+			NameDictionary<?> dictionary = dictionaries.get(name);
+			if (dictionary != null) {
+				dictionary.invalidate();
+			}
+			listeners.forEach(listener -> listener.invalidated(name, ids));
+			LFUCache<?> cache = caches.get(name);
+			if (cache == null || ids.isEmpty()) {
+				continue;
+			}
+			ids.forEach(cache::remove);
+			// Without the changed expense we cannot tell which queries it affects
+			if (cache instanceof ExpenseCache) {
+				expenseQueryCache.clear();
+			}
+			// Cached expenses and queries hold the names of their category and tags
+			if (cache instanceof CategoryCache) {
+				expenseCaches().forEach(expenseCache -> expenseCache.removeWithCategories(ids));
+				expenseQueryCache.invalidate(QueryType.CATEGORY);
+			}
+			if (cache instanceof TagCache) {
+				expenseCaches().forEach(expenseCache -> expenseCache.removeWithTags(ids));
+				expenseQueryCache.invalidate(QueryType.TAG);
+			}
+		}
+	}
+
+	private List<ExpenseCache> expenseCaches() {
+		return caches.values().stream()
+				.filter(ExpenseCache.class::isInstance)
+				.map(ExpenseCache.class::cast)
+				.toList();
+	}
+
+	private void clearAll() {
+		log.warn("Cache invalidations may have been missed, clearing all caches");
+		caches.values().forEach(LFUCache::clear);
+		dictionaries.values().forEach(NameDictionary::invalidate);
+		listeners.forEach(InvalidationListener::invalidatedAll);
+		expenseQueryCache.clear();
+	}
+}
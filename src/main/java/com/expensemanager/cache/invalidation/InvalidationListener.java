@@ -0,0 +1,13 @@
+package com.expensemanager.cache.invalidation;
+
+import java.util.List;
+
+// Told about the invalidations received from other nodes, for read models kept outside
+// the caches and dictionaries
+public interface InvalidationListener {
+
+	void invalidated(String cacheName, List<Long> ids);
+
+	// Invalidations may have been missed
+	void invalidatedAll();
+}
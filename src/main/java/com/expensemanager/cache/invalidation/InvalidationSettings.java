@@ -0,0 +1,22 @@
+package com.expensemanager.cache.invalidation;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class InvalidationSettings {
+
+	public enum Transport {
+		LOOPBACK,
+		POSTGRES
+	}
+
+	private Transport transport = Transport.LOOPBACK;
+	private String channel = "cache_invalidation";
+	// Evictions are collected for this long and then published together
+	private Duration flushInterval = Duration.ofMillis(50);
+	// A batch reaching this many ids is published without waiting for the interval
+	private int maxBatchSize = 1_000;
+}
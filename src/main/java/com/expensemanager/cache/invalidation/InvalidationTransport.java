@@ -0,0 +1,20 @@
+package com.expensemanager.cache.invalidation;
+
+import java.util.function.Consumer;
+
+// Carries invalidation payloads between application nodes. A node also receives
+// what it sent itself.
+public interface InvalidationTransport {
+
+	void send(String payload);
+
+	// missedMessages is called whenever payloads may have been lost, e.g. after the
+	// transport had to reconnect
+	Subscription subscribe(Consumer<String> listener, Runnable missedMessages);
+
+	interface Subscription extends AutoCloseable {
+
+		@Override
+		void close();
+	}
+}
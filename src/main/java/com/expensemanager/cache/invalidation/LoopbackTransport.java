@@ -0,0 +1,29 @@
+package com.expensemanager.cache.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Delivers payloads synchronously to every subscriber in this JVM. Application
+// contexts sharing the same instance behave like nodes of one cluster.
+public final class LoopbackTransport implements InvalidationTransport {
+
+	private static final LoopbackTransport SHARED = new LoopbackTransport();
+
+	private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+	public static LoopbackTransport shared() {
+		return SHARED;
+	}
+
+	@Override
+	public void send(String payload) {
+		listeners.forEach(listener -> listener.accept(payload));
+	}
+
+	@Override
+	public Subscription subscribe(Consumer<String> listener, Runnable missedMessages) {
+		listeners.add(listener);
+		return () -> listeners.remove(listener);
+	}
+}
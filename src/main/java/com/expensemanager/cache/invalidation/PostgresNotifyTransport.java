@@ -0,0 +1,105 @@
+package com.expensemanager.cache.invalidation;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+// NOTIFY on send; every subscriber holds one connection that LISTENs on the channel
+@Slf4j
+public final class PostgresNotifyTransport implements InvalidationTransport {
+
+	private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+	private static final int POLL_TIMEOUT_MILLIS = 500;
+	private static final long RECONNECT_DELAY_MILLIS = 1_000;
+
+	private final DataSource dataSource;
+	private final String channel;
+
+	public PostgresNotifyTransport(DataSource dataSource, String channel) {
+		if (!CHANNEL_NAME.matcher(channel).matches()) {
+			throw new IllegalArgumentException("Invalid notification channel name '" + channel + "'");
+		}
+		this.dataSource = dataSource;
+		this.channel = channel;
+	}
+
+	@Override
+	public void send(String payload) {
+		try (Connection connection = dataSource.getConnection();
+		     PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+			statement.setString(1, channel);
+			statement.setString(2, payload);
+			statement.execute();
+		} catch (SQLException e) {
+			throw new IllegalStateException("Could not publish cache invalidation", e);
+		}
+	}
+
+	@Override
+	public Subscription subscribe(Consumer<String> listener, Runnable missedMessages) {
+		Listener worker = new Listener(listener, missedMessages);
+		Thread thread = new Thread(worker, "cache-invalidation-listener");
+		thread.setDaemon(true);
+		thread.start();
+		return () -> {
+			worker.running = false;
+			thread.interrupt();
+		};
+	}
+
+	private final class Listener implements Runnable {
+
+		private final Consumer<String> listener;
+		private final Runnable missedMessages;
+		private volatile boolean running = true;
+
+		private Listener(Consumer<String> listener, Runnable missedMessages) {
+			this.listener = listener;
+			this.missedMessages = missedMessages;
+		}
+
+		@Override
+		public void run() {
+			boolean reconnecting = false;
+			while (running) {
+				try (Connection connection = dataSource.getConnection()) {
+					try (Statement statement = connection.createStatement()) {
+						statement.execute("LISTEN " + channel);
+					}
+					if (reconnecting) {
+						// Anything sent while we were disconnected is lost
+						missedMessages.run();
+					}
+					PGConnection pgConnection = connection.unwrap(PGConnection.class);
+					while (running) {
+						PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+						if (notifications != null) {
+							for (PGNotification notification : notifications) {
+								listener.accept(notification.getParameter());
+							}
+						}
+					}
+				} catch (SQLException | RuntimeException e) {
+					if (!running) {
+						return;
+					}
+					log.warn("Cache invalidation listener on channel '{}' failed, reconnecting: {}", channel, e.getMessage());
+					reconnecting = true;
+					try {
+						Thread.sleep(RECONNECT_DELAY_MILLIS);
+					} catch (InterruptedException interrupted) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		}
+	}
+}
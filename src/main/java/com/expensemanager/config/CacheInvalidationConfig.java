@@ -0,0 +1,22 @@
+package com.expensemanager.config;
+
+import com.expensemanager.cache.invalidation.InvalidationSettings;
+import com.expensemanager.cache.invalidation.InvalidationTransport;
+import com.expensemanager.cache.invalidation.LoopbackTransport;
+import com.expensemanager.cache.invalidation.PostgresNotifyTransport;
+import javax.sql.DataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheInvalidationConfig {
+
+	@Bean
+	public InvalidationTransport invalidationTransport(CacheProperties cacheProperties, DataSource dataSource) {
+		InvalidationSettings settings = cacheProperties.getInvalidation();
+		return switch (settings.getTransport()) {
+			case LOOPBACK -> LoopbackTransport.shared();
+			case POSTGRES -> new PostgresNotifyTransport(dataSource, settings.getChannel());
+		};
+	}
+}
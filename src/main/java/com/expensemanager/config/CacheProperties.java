@@ -0,0 +1,25 @@
+package com.expensemanager.config;
+
+import com.expensemanager.cache.CachePolicy;
+import com.expensemanager.cache.CacheSettings;
+import com.expensemanager.cache.SnapshotSettings;
+import com.expensemanager.cache.invalidation.InvalidationSettings;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+
+	private CacheSettings expenses = new CacheSettings(CachePolicy.W_TINY_LFU, 100);
+	private CacheSettings tags = new CacheSettings(CachePolicy.LFU, 100);
+	private CacheSettings categories = new CacheSettings(CachePolicy.LFU, 100);
+	// Only maximum-size and expire-after-write apply, see ExpenseQueryCache
+	private CacheSettings queries = new CacheSettings(null, 1000);
+	private InvalidationSettings invalidation = new InvalidationSettings();
+	private SnapshotSettings snapshot = new SnapshotSettings();
+}
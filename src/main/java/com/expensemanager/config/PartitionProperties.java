@@ -0,0 +1,20 @@
+package com.expensemanager.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "partitions")
+public class PartitionProperties {
+
+	// Whether the monthly partitions of the expenses table are created by the application.
+	// Off where the schema is not created by the migrations.
+	private boolean manage = true;
+
+	// Partitions created beyond the one of the current month
+	private int monthsAhead = 3;
+}
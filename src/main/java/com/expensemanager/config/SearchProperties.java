@@ -0,0 +1,16 @@
+package com.expensemanager.config;
+
+import com.expensemanager.search.NameIndexSettings;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "search")
+public class SearchProperties {
+
+	private NameIndexSettings nameIndex = new NameIndexSettings();
+}
@@ -0,0 +1,17 @@
+package com.expensemanager.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "totals")
+public class TotalsProperties {
+
+	// Whether expense writes update the running totals tables. When turned back on, the
+	// totals must be rebuilt.
+	private boolean maintainRunning = true;
+}
@@ -0,0 +1,46 @@
+package com.expensemanager.controller;
+
+import com.expensemanager.cache.CacheStats;
+import com.expensemanager.service.CacheStatisticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/cache")
+@Tag(name = "Cache API", description = "Hit/miss, load and eviction statistics of the in-memory caches")
+@RequiredArgsConstructor
+public class CacheController {
+
+	private final CacheStatisticsService cacheStatisticsService;
+
+	@GetMapping
+	@Operation(summary = "Get statistics of all caches")
+	public List<CacheStats> getAllStats() {
+		return cacheStatisticsService.getAllStats();
+	}
+
+	@GetMapping("/{name}")
+	@Operation(summary = "Get statistics of a cache by name")
+	public CacheStats getStats(@PathVariable("name") String name) {
+		return cacheStatisticsService.getStats(name);
+	}
+
+	@DeleteMapping("/stats")
+	@Operation(summary = "Reset statistics of all caches")
+	public void resetAllStats() {
+		cacheStatisticsService.resetAllStats();
+	}
+
+	@DeleteMapping("/{name}/stats")
+	@Operation(summary = "Reset statistics of a cache by name")
+	public void resetStats(@PathVariable("name") String name) {
+		cacheStatisticsService.resetStats(name);
+	}
+}
@@ -1,14 +1,29 @@
 package com.expensemanager.controller;
 
 import com.expensemanager.dto.ExpenseDTO;
+import com.expensemanager.dto.ExpenseMatch;
+import com.expensemanager.dto.ExpensePage;
+import com.expensemanager.dto.ExpensePageRequest;
+import com.expensemanager.dto.ExpensePartition;
+import com.expensemanager.dto.ExpensePartitionArchive;
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.dto.ExpenseTotal;
+import com.expensemanager.dto.ExpenseTotalsRebuild;
+import com.expensemanager.dto.ExpenseTotalsRequest;
 import com.expensemanager.dto.ExpenseUpdateDTO;
-import com.expensemanager.model.Expense;
+import com.expensemanager.service.ExpenseExportService;
+import com.expensemanager.service.ExpensePartitionService;
 import com.expensemanager.service.ExpenseService;
+import com.expensemanager.service.ExpenseTotalsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.time.YearMonth;
 import java.util.List;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -19,6 +34,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/expenses")
@@ -26,33 +42,85 @@ import org.springframework.web.bind.annotation.RestController;
 public class ExpenseController {
 
 	private final ExpenseService expenseService;
+	private final ExpenseExportService expenseExportService;
+	private final ExpenseTotalsService expenseTotalsService;
+	private final ExpensePartitionService expensePartitionService;
 
 	@Autowired
-	public ExpenseController(ExpenseService expenseService) {
+	public ExpenseController(ExpenseService expenseService,
+	                         ExpenseExportService expenseExportService,
+	                         ExpenseTotalsService expenseTotalsService,
+	                         ExpensePartitionService expensePartitionService) {
 		this.expenseService = expenseService;
+		this.expenseExportService = expenseExportService;
+		this.expenseTotalsService = expenseTotalsService;
+		this.expensePartitionService = expensePartitionService;
 	}
 
 	@PostMapping
 	@Operation(summary = "Create a new expense")
-	public Expense createExpense(@Valid @RequestBody ExpenseDTO expenseDTO) {
+	public ExpenseSnapshot createExpense(@Valid @RequestBody ExpenseDTO expenseDTO) {
 		return expenseService.createExpense(expenseDTO);
 	}
 
 	@GetMapping
-	@Operation(summary = "Get all expenses")
-	public List<Expense> getAllExpenses() {
-		return expenseService.getAllExpenses();
+	@Operation(summary = "Get all expenses, one page at a time")
+	public ExpensePage getAllExpenses(@ParameterObject ExpensePageRequest page) {
+		return expenseService.getAllExpenses(page);
+	}
+
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	@Operation(summary = "Export all expenses as newline-delimited JSON")
+	public ResponseEntity<StreamingResponseBody> exportExpenses() {
+		StreamingResponseBody body = expenseExportService::exportExpenses;
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
+	@GetMapping("/totals")
+	@Operation(summary = "Count, sum, min, max and average of amounts, grouped by category, tag and/or currency")
+	public List<ExpenseTotal> getTotals(@ParameterObject ExpenseTotalsRequest request) {
+		return expenseTotalsService.getTotals(request);
+	}
+
+	@GetMapping("/totals/categories")
+	@Operation(summary = "Running totals of amounts per category and currency")
+	public List<ExpenseTotal> getCategoryTotals() {
+		return expenseTotalsService.getCategoryTotals();
+	}
+
+	@GetMapping("/totals/tags")
+	@Operation(summary = "Running totals of amounts per tag and currency")
+	public List<ExpenseTotal> getTagTotals() {
+		return expenseTotalsService.getTagTotals();
+	}
+
+	@PostMapping("/totals/rebuild")
+	@Operation(summary = "Recompute the running totals from the expenses and report the groups that had drifted")
+	public ExpenseTotalsRebuild rebuildTotals() {
+		return expenseTotalsService.rebuildTotals();
+	}
+
+	@GetMapping("/partitions")
+	@Operation(summary = "Monthly partitions of the expenses, with their estimated number of rows")
+	public List<ExpensePartition> getPartitions() {
+		return expensePartitionService.getPartitions();
+	}
+
+	@PostMapping("/partitions/archive")
+	@Operation(summary = "Detach the partitions of the months before the given one (yyyy-MM) into archive tables")
+	public ExpensePartitionArchive archivePartitions(@RequestParam YearMonth before) {
+		return expensePartitionService.archivePartitions(before);
 	}
 
 	@GetMapping("/{id}")
 	@Operation(summary = "Get expense by ID")
-	public Expense getExpenseById(@PathVariable("id") Long id) {
+	public ExpenseSnapshot getExpenseById(@PathVariable("id") Long id) {
 		return expenseService.getExpenseById(id);
 	}
 
 	@PutMapping("/{id}")
 	@Operation(summary = "Update expense by ID")
-	public Expense updateExpense(@PathVariable("id") Long id, @Valid @RequestBody ExpenseDTO expenseDTO) {
+	public ExpenseSnapshot updateExpense(@PathVariable("id") Long id, @Valid @RequestBody ExpenseDTO expenseDTO) {
 		return expenseService.updateExpense(id, expenseDTO);
 	}
 
@@ -64,32 +132,43 @@ public class ExpenseController {
 
 	@GetMapping("/search/category")
 	@Operation(summary = "Find expenses by category name")
-	public List<Expense> getExpensesByCategory(@RequestParam String category) {
-		return expenseService.getExpensesByCategory(category);
+	public ExpensePage getExpensesByCategory(@RequestParam String category,
+	                                         @ParameterObject ExpensePageRequest page) {
+		return expenseService.getExpensesByCategory(category, page);
 	}
 
 	@PatchMapping("/{id}")
 	@Operation(summary = "Partially update expense by ID")
-	public Expense patchExpense(@PathVariable("id") Long id, @RequestBody ExpenseUpdateDTO expenseUpdateDTO) {
+	public ExpenseSnapshot patchExpense(@PathVariable("id") Long id, @RequestBody ExpenseUpdateDTO expenseUpdateDTO) {
 		return expenseService.updateExpensePartial(id, expenseUpdateDTO);
 	}
 
 	@GetMapping("/search/amount")
 	@Operation(summary = "Find expenses by amount range")
-	public List<Expense> getExpensesByAmountRange(@RequestParam double min, @RequestParam double max) {
-		return expenseService.getExpensesByAmountRange(min, max);
+	public ExpensePage getExpensesByAmountRange(@RequestParam double min,
+	                                            @RequestParam double max,
+	                                            @ParameterObject ExpensePageRequest page) {
+		return expenseService.getExpensesByAmountRange(min, max, page);
 	}
 
 	@GetMapping("/search/name")
 	@Operation(summary = "Find expenses by partial name")
-	public List<Expense> searchByNamePart(@RequestParam String name) {
-		return expenseService.searchByNamePart(name);
+	public ExpensePage searchByNamePart(@RequestParam String name, @ParameterObject ExpensePageRequest page) {
+		return expenseService.searchByNamePart(name, page);
+	}
+
+	@GetMapping("/search/fuzzy")
+	@Operation(summary = "Find expenses whose name or tags are within a few typos of the query, closest first")
+	public List<ExpenseMatch> searchFuzzy(@RequestParam String query,
+	                                      @RequestParam(defaultValue = "2") int maxDistance,
+	                                      @RequestParam(defaultValue = "10") int limit) {
+		return expenseService.searchFuzzy(query, maxDistance, limit);
 	}
 
 	@GetMapping("/search/tag")
 	@Operation(summary = "Find expenses by tag name")
-	public List<Expense> getExpensesByTag(@RequestParam String tag) {
-		return expenseService.getExpensesByTag(tag);
+	public ExpensePage getExpensesByTag(@RequestParam String tag, @ParameterObject ExpensePageRequest page) {
+		return expenseService.getExpensesByTag(tag, page);
 	}
 
 	@GetMapping("/{id}/converted")
@@ -100,7 +179,7 @@ public class ExpenseController {
 
 	@PostMapping("/bulk")
 	@Operation(summary = "Create multiple expenses in bulk")
-	public List<Expense> createExpensesBulk(@Valid @RequestBody List<ExpenseDTO> expenseDTOs) {
+	public List<ExpenseSnapshot> createExpensesBulk(@Valid @RequestBody List<ExpenseDTO> expenseDTOs) {
 		return expenseService.createExpensesBulk(expenseDTOs);
 	}
 }
@@ -2,7 +2,9 @@ package com.expensemanager.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.PositiveOrZero;
+import java.time.LocalDate;
 import java.util.Set;
 import lombok.Data;
 
@@ -22,5 +24,8 @@ public class ExpenseDTO {
 	@NotBlank(message = "Category cannot be blank")
 	private String category;
 
-	private Set<String> tags;
+	// Today when omitted
+	private LocalDate expenseDate;
+
+	private Set<@Pattern(regexp = TagDTO.NAME_PATTERN, message = TagDTO.NAME_PATTERN_MESSAGE) String> tags;
 }
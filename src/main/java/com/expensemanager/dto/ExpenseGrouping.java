@@ -0,0 +1,9 @@
+package com.expensemanager.dto;
+
+// Dimensions the expense totals can be grouped by
+public enum ExpenseGrouping {
+	CATEGORY,
+	// An expense counts towards each of its tags; untagged expenses form a group of their own
+	TAG,
+	CURRENCY
+}
@@ -0,0 +1,6 @@
+package com.expensemanager.dto;
+
+// An expense found by fuzzy search: distance is the edit distance between the query and
+// matchedTerm, the closest of the expense's name, the words of its name and its tag names
+public record ExpenseMatch(ExpenseSnapshot expense, int distance, String matchedTerm) {
+}
@@ -0,0 +1,7 @@
+package com.expensemanager.dto;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record ExpensePage(List<ExpenseSnapshot> items, String nextCursor) {
+}
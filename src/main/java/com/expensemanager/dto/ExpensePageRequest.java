@@ -0,0 +1,34 @@
+package com.expensemanager.dto;
+
+import java.time.LocalDate;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+
+// Query parameters of the paged expense endpoints. The cursor is the nextCursor of the
+// previous page and is only valid with the sort and direction that produced it. from and
+// to bound the expense dates, both inclusive; PostgreSQL then reads only the partitions of
+// the months in between.
+public record ExpensePageRequest(
+		ExpenseSort sort,
+		Sort.Direction direction,
+		String cursor,
+		Integer limit,
+		FetchPlan fetch,
+		@DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+		@DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+) {
+
+	public static final int DEFAULT_LIMIT = 50;
+	public static final int MAX_LIMIT = 500;
+
+	public ExpensePageRequest {
+		sort = sort != null ? sort : ExpenseSort.ID;
+		direction = direction != null ? direction : Sort.Direction.ASC;
+		limit = limit != null ? limit : DEFAULT_LIMIT;
+		fetch = fetch != null ? fetch : FetchPlan.PROJECTION;
+	}
+
+	public static ExpensePageRequest first(int limit) {
+		return new ExpensePageRequest(null, null, null, limit, null, null, null);
+	}
+}
@@ -0,0 +1,8 @@
+package com.expensemanager.dto;
+
+import java.time.YearMonth;
+
+// A partition of the expenses table; month is null for the default partition, which holds
+// the expenses of months without a partition
+public record ExpensePartition(String name, YearMonth month, long estimatedRows) {
+}
@@ -0,0 +1,8 @@
+package com.expensemanager.dto;
+
+import java.util.List;
+
+// Result of archiving old partitions: the tables they were renamed to, and the number of
+// expenses they hold
+public record ExpensePartitionArchive(List<String> tables, int expenses) {
+}
@@ -0,0 +1,48 @@
+package com.expensemanager.dto;
+
+import com.expensemanager.model.Category;
+import com.expensemanager.model.Expense;
+import com.expensemanager.model.Tag;
+import java.time.LocalDate;
+import java.util.List;
+
+// Immutable copy of an expense and its associations, safe to share between requests
+public record ExpenseSnapshot(
+		Long id,
+		String name,
+		Double amount,
+		String currency,
+		LocalDate expenseDate,
+		CategoryRef category,
+		List<TagRef> tags
+) {
+
+	public record CategoryRef(Long id, String name) {
+
+		static CategoryRef of(Category category) {
+			return category != null ? new CategoryRef(category.getId(), category.getName()) : null;
+		}
+	}
+
+	public record TagRef(Long id, String name) {
+
+		static TagRef of(Tag tag) {
+			return new TagRef(tag.getId(), tag.getName());
+		}
+	}
+
+	public ExpenseSnapshot {
+		tags = tags != null ? List.copyOf(tags) : List.of();
+	}
+
+	public static ExpenseSnapshot of(Expense expense) {
+		return new ExpenseSnapshot(
+				expense.getId(),
+				expense.getName(),
+				expense.getAmount(),
+				expense.getCurrency(),
+				expense.getExpenseDate(),
+				CategoryRef.of(expense.getCategory()),
+				expense.getTags().stream().map(TagRef::of).toList());
+	}
+}
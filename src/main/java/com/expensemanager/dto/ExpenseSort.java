@@ -0,0 +1,35 @@
+package com.expensemanager.dto;
+
+// Orders in which expenses can be paged; ties are broken by id, so every order is total
+public enum ExpenseSort {
+	ID("id"),
+	AMOUNT("amount"),
+	NAME("name");
+
+	private final String attribute;
+
+	ExpenseSort(String attribute) {
+		this.attribute = attribute;
+	}
+
+	public String getAttribute() {
+		return attribute;
+	}
+
+	public Object keyOf(ExpenseSnapshot expense) {
+		return switch (this) {
+			case ID -> expense.id();
+			case AMOUNT -> expense.amount();
+			case NAME -> expense.name();
+		};
+	}
+
+	// Inverse of String.valueOf(keyOf(expense)) for keys that are not null
+	public Object parseKey(String key) {
+		return switch (this) {
+			case ID -> Long.valueOf(key);
+			case AMOUNT -> Double.valueOf(key);
+			case NAME -> key;
+		};
+	}
+}
@@ -0,0 +1,17 @@
+package com.expensemanager.dto;
+
+// Aggregates of the amounts of one group of expenses. The fields of the dimensions that
+// were not grouped by are null, as are those of a missing category or tag.
+public record ExpenseTotal(
+		Long categoryId,
+		String categoryName,
+		Long tagId,
+		String tagName,
+		String currency,
+		long count,
+		Double sum,
+		Double min,
+		Double max,
+		Double average
+) {
+}
@@ -0,0 +1,6 @@
+package com.expensemanager.dto;
+
+// Result of recomputing the running totals: the number of groups afterwards, and how many
+// groups had drifted (were missing, extra or had different values) before
+public record ExpenseTotalsRebuild(int categoryGroups, int tagGroups, int correctedGroups) {
+}
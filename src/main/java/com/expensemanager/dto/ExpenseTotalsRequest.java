@@ -0,0 +1,24 @@
+package com.expensemanager.dto;
+
+import java.time.LocalDate;
+import java.util.Set;
+import org.springframework.format.annotation.DateTimeFormat;
+
+// Query parameters of the expense totals endpoint: the dimensions to group by (none for a
+// single overall row) and optional filters, combined with AND. The expense dates are
+// bounded by from and to, both inclusive.
+public record ExpenseTotalsRequest(
+		Set<ExpenseGrouping> groupBy,
+		String category,
+		String tag,
+		String currency,
+		Double minAmount,
+		Double maxAmount,
+		@DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+		@DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+) {
+
+	public ExpenseTotalsRequest {
+		groupBy = groupBy != null ? Set.copyOf(groupBy) : Set.of();
+	}
+}
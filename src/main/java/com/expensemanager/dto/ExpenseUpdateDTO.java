@@ -1,5 +1,6 @@
 package com.expensemanager.dto;
 
+import java.time.LocalDate;
 import java.util.Set;
 import lombok.Data;
 
@@ -9,5 +10,6 @@ public class ExpenseUpdateDTO {
 	private Double amount;
 	private String currency;
 	private String category;
+	private LocalDate expenseDate;
 	private Set<String> tags;
 }
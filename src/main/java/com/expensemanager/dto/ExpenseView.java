@@ -0,0 +1,44 @@
+package com.expensemanager.dto;
+
+import com.expensemanager.dto.ExpenseSnapshot.CategoryRef;
+import com.expensemanager.dto.ExpenseSnapshot.TagRef;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// One row per expense, selected by ExpenseRepository.findViewsByIdIn without hydrating
+// entities. The tags are aggregated into two lists ordered by tag id: tagIds separated
+// by commas and tagNames separated by TAG_NAME_SEPARATOR; both are null without tags.
+public record ExpenseView(
+		Long id,
+		String name,
+		Double amount,
+		String currency,
+		LocalDate expenseDate,
+		Long categoryId,
+		String categoryName,
+		String tagIds,
+		String tagNames
+) {
+
+	// Unit separator, a control character, which tag names may not contain (see TagDTO)
+	public static final String TAG_NAME_SEPARATOR = "\u001f";
+
+	public ExpenseSnapshot toSnapshot() {
+		CategoryRef category = categoryId != null ? new CategoryRef(categoryId, categoryName) : null;
+		return new ExpenseSnapshot(id, name, amount, currency, expenseDate, category, tags());
+	}
+
+	private List<TagRef> tags() {
+		if (tagIds == null || tagIds.isEmpty()) {
+			return List.of();
+		}
+		String[] ids = tagIds.split(",");
+		String[] names = tagNames.split(TAG_NAME_SEPARATOR, -1);
+		List<TagRef> tags = new ArrayList<>(ids.length);
+		for (int i = 0; i < ids.length; i++) {
+			tags.add(new TagRef(Long.valueOf(ids[i]), names[i]));
+		}
+		return tags;
+	}
+}
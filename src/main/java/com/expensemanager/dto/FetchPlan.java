@@ -0,0 +1,13 @@
+package com.expensemanager.dto;
+
+// How the expenses of a page are loaded once their ids are known
+public enum FetchPlan {
+	// One query joining expenses, expense_tag, tags and categories: a row per expense and
+	// tag, carrying the expense columns each time, de-duplicated by Hibernate
+	JOIN_FETCH,
+	// Flat rows: one query for the expenses and one IN over expense_tag for their tags,
+	// with categories taken from the category dictionary
+	BATCH,
+	// One ExpenseView row per expense, with its tags aggregated in SQL
+	PROJECTION
+}
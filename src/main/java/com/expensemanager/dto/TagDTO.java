@@ -1,10 +1,16 @@
 package com.expensemanager.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 
 @Data
 public class TagDTO {
+	// No control characters: ExpenseView separates aggregated tag names with one
+	public static final String NAME_PATTERN = "\\P{Cntrl}*";
+	public static final String NAME_PATTERN_MESSAGE = "Tag name cannot contain control characters";
+
 	@NotBlank(message = "Tag name cannot be blank")
+	@Pattern(regexp = NAME_PATTERN, message = NAME_PATTERN_MESSAGE)
 	private String name;
 }
@@ -12,9 +12,12 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
+import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Set;
 import lombok.Getter;
@@ -29,8 +32,11 @@ import lombok.Setter;
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 public class Expense {
+	// Unlike IDENTITY, a sequence lets Hibernate batch inserts; every nextval reserves
+	// a block of allocationSize ids (pooled optimizer)
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expenses_seq")
+	@SequenceGenerator(name = "expenses_seq", sequenceName = "expenses_seq", allocationSize = 50)
 	private Long id;
 
 	@NotBlank(message = "Expense name cannot be blank")
@@ -47,6 +53,10 @@ public class Expense {
 	@NotBlank(message = "Currency cannot be blank")
 	private String currency;
 
+	// The partition key of the expenses table, see V5__partition_expenses_by_month.sql
+	@NotNull(message = "Expense date is required")
+	private LocalDate expenseDate;
+
 	@ManyToMany
 	@JoinTable(
 			name = "expense_tag",
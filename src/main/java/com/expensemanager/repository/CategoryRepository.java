@@ -3,9 +3,13 @@ package com.expensemanager.repository;
 import com.expensemanager.model.Category;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
-	Optional<Category> findByNameIgnoreCase(String name);
+	// LOWER rather than the UPPER of derived IgnoreCase queries, to use categories_lower_name_idx
+	@Query("SELECT c FROM Category c WHERE LOWER(c.name) = LOWER(:name)")
+	Optional<Category> findByNameIgnoreCase(@Param("name") String name);
 
 	boolean existsByName(String name);
 }
@@ -0,0 +1,32 @@
+package com.expensemanager.repository;
+
+import com.expensemanager.model.Expense;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+// The partitions of the expenses table, managed through the functions of the V5 and V6
+// migrations. A month is identified by any of its days.
+public interface ExpensePartitionRepository extends Repository<Expense, Long> {
+
+	@Query(value = "SELECT p.relname AS \"name\", CAST(GREATEST(p.reltuples, 0) AS BIGINT) AS \"estimatedRows\" "
+			+ "FROM pg_inherits i JOIN pg_class p ON p.oid = i.inhrelid "
+			+ "WHERE i.inhparent = CAST('expenses' AS regclass) "
+			+ "ORDER BY p.relname",
+			nativeQuery = true)
+	List<PartitionRow> findPartitions();
+
+	// Returns the name of the partition, whether it was created or already existed
+	@Query(value = "SELECT create_expense_partition(CAST(:day AS date))", nativeQuery = true)
+	String createPartition(@Param("day") LocalDate day);
+
+	// Returns the name of the archive table, or null if the month has no partition
+	@Query(value = "SELECT archive_expense_partition(CAST(:day AS date))", nativeQuery = true)
+	String archivePartition(@Param("day") LocalDate day);
+
+	// until is exclusive
+	@Query("SELECT e.id FROM Expense e WHERE e.expenseDate >= :from AND e.expenseDate < :until")
+	List<Long> findIdsInDateRange(@Param("from") LocalDate from, @Param("until") LocalDate until);
+}
@@ -1,18 +1,19 @@
 package com.expensemanager.repository;
 
+import com.expensemanager.dto.ExpenseView;
 import com.expensemanager.model.Expense;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
-public interface ExpenseRepository extends JpaRepository<Expense, Long> {
-
-	@Query("SELECT DISTINCT e FROM Expense e "
-			+ "LEFT JOIN FETCH e.tags "
-			+ "LEFT JOIN FETCH e.category")
-	List<Expense> findAllWithAssociations();
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, ExpenseRepositoryCustom {
 
 	@Query("SELECT e FROM Expense e "
 			+ "LEFT JOIN FETCH e.tags "
@@ -23,25 +24,58 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
 	@Query("SELECT DISTINCT e FROM Expense e "
 			+ "LEFT JOIN FETCH e.tags "
 			+ "LEFT JOIN FETCH e.category "
-			+ "WHERE LOWER(e.name) LIKE LOWER(CONCAT('%', :namePart, '%'))")
-	List<Expense> searchByNamePart(@Param("namePart") String namePart);
+			+ "WHERE e.id IN :ids")
+	List<Expense> findAllByIdWithAssociations(@Param("ids") Collection<Long> ids);
 
-	@Query("SELECT DISTINCT e FROM Expense e "
-			+ "LEFT JOIN FETCH e.tags "
-			+ "LEFT JOIN FETCH e.category "
-			+ "WHERE e.category.name = :categoryName")
-	List<Expense> findByCategoryName(@Param("categoryName") String categoryName);
+	@Query("SELECT new com.expensemanager.repository.ExpenseRow(e.id, e.name, e.amount, e.currency, e.expenseDate, e.category.id) "
+			+ "FROM Expense e "
+			+ "WHERE e.id IN :ids")
+	List<ExpenseRow> findRowsByIdIn(@Param("ids") Collection<Long> ids);
 
-	@Query("SELECT DISTINCT e FROM Expense e "
-			+ "LEFT JOIN FETCH e.tags "
-			+ "LEFT JOIN FETCH e.category "
-			+ "WHERE e.amount BETWEEN :min AND :max")
-	List<Expense> findByAmountRange(@Param("min") double min, @Param("max") double max);
+	@Query("SELECT MIN(e.id) FROM Expense e")
+	Long findMinId();
 
-	@Query("SELECT DISTINCT e FROM Expense e "
-			+ "LEFT JOIN FETCH e.tags "
-			+ "LEFT JOIN FETCH e.category "
+	@Query("SELECT MAX(e.id) FROM Expense e")
+	Long findMaxId();
+
+	@Query("SELECT e.id FROM Expense e JOIN e.tags t WHERE t.id IN :tagIds")
+	List<Long> findIdsByTagIdIn(@Param("tagIds") Collection<Long> tagIds);
+
+	@Query("SELECT new com.expensemanager.repository.ExpenseTagRow(e.id, t.id, t.name) "
+			+ "FROM Expense e "
 			+ "JOIN e.tags t "
-			+ "WHERE t.name = :tagName")
-	List<Expense> findByTagName(@Param("tagName") String tagName);
+			+ "WHERE e.id IN :ids "
+			+ "ORDER BY t.id")
+	List<ExpenseTagRow> findTagRowsByExpenseIdIn(@Param("ids") Collection<Long> ids);
+
+	@Query("SELECT new com.expensemanager.dto.ExpenseView(e.id, e.name, e.amount, e.currency, e.expenseDate, c.id, c.name, "
+			+ "LISTAGG(CAST(t.id AS String), ',') WITHIN GROUP (ORDER BY t.id), "
+			+ "LISTAGG(t.name, '" + ExpenseView.TAG_NAME_SEPARATOR + "') WITHIN GROUP (ORDER BY t.id)) "
+			+ "FROM Expense e "
+			+ "LEFT JOIN e.category c "
+			+ "LEFT JOIN e.tags t "
+			+ "WHERE e.id IN :ids "
+			+ "GROUP BY e.id, e.name, e.amount, e.currency, e.expenseDate, c.id, c.name")
+	List<ExpenseView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+	@Query("SELECT new com.expensemanager.dto.ExpenseView(e.id, e.name, e.amount, e.currency, e.expenseDate, c.id, c.name, "
+			+ "LISTAGG(CAST(t.id AS String), ',') WITHIN GROUP (ORDER BY t.id), "
+			+ "LISTAGG(t.name, '" + ExpenseView.TAG_NAME_SEPARATOR + "') WITHIN GROUP (ORDER BY t.id)) "
+			+ "FROM Expense e "
+			+ "LEFT JOIN e.category c "
+			+ "LEFT JOIN e.tags t "
+			+ "WHERE e.id BETWEEN :from AND :to "
+			+ "GROUP BY e.id, e.name, e.amount, e.currency, e.expenseDate, c.id, c.name")
+	List<ExpenseView> findViewsByIdBetween(@Param("from") long from, @Param("to") long to);
+
+	// Forward-only cursor: the driver holds fetch-size rows at a time. PostgreSQL only
+	// honours the fetch size inside a transaction, and the stream must be closed.
+	@QueryHints({
+			@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("SELECT e FROM Expense e "
+			+ "LEFT JOIN FETCH e.category "
+			+ "ORDER BY e.id")
+	Stream<Expense> streamAllWithCategory();
 }
@@ -0,0 +1,27 @@
+package com.expensemanager.repository;
+
+import com.expensemanager.dto.ExpenseGrouping;
+import com.expensemanager.dto.ExpenseSort;
+import com.expensemanager.dto.ExpenseTotal;
+import com.expensemanager.model.Expense;
+import java.util.List;
+import java.util.Set;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface ExpenseRepositoryCustom {
+
+	// Ids of at most limit expenses matching the filter (null for all), ordered by the
+	// sort key and then id, that come after the expense with the given key and id (both
+	// null for the first page)
+	List<Long> findPageIds(Specification<Expense> filter,
+	                       ExpenseSort sort,
+	                       Sort.Direction direction,
+	                       Object afterKey,
+	                       Long afterId,
+	                       int limit);
+
+	// Count, sum, min, max and average of the amounts of the expenses matching the filter
+	// (null for all), in one GROUP BY query, ordered by the grouped columns
+	List<ExpenseTotal> findTotals(Specification<Expense> filter, Set<ExpenseGrouping> groupBy);
+}
@@ -0,0 +1,159 @@
+package com.expensemanager.repository;
+
+import com.expensemanager.dto.ExpenseGrouping;
+import com.expensemanager.dto.ExpenseSort;
+import com.expensemanager.dto.ExpenseTotal;
+import com.expensemanager.model.Category;
+import com.expensemanager.model.Expense;
+import com.expensemanager.model.Tag;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+// Keyset pagination: the next page starts after the last row of the previous one,
+// "WHERE (key, id) > (:afterKey, :afterId) ORDER BY key, id LIMIT :limit", so every page
+// costs the same and rows inserted meanwhile neither shift nor repeat the pages. Null
+// keys sort after all others, as in PostgreSQL's b-tree indexes: last when ascending and
+// first when descending.
+public class ExpenseRepositoryImpl implements ExpenseRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<Long> findPageIds(Specification<Expense> filter,
+	                              ExpenseSort sort,
+	                              Sort.Direction direction,
+	                              Object afterKey,
+	                              Long afterId,
+	                              int limit) {
+		HibernateCriteriaBuilder cb = (HibernateCriteriaBuilder) entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<Expense> expense = query.from(Expense.class);
+		Path<Long> id = expense.get("id");
+		Path<Comparable<Object>> key = expense.get(sort.getAttribute());
+		boolean ascending = direction.isAscending();
+
+		List<Predicate> where = new ArrayList<>();
+		if (filter != null) {
+			Predicate predicate = filter.toPredicate(expense, query, cb);
+			if (predicate != null) {
+				where.add(predicate);
+			}
+		}
+		List<Order> orderBy = new ArrayList<>();
+		if (sort != ExpenseSort.ID) {
+			orderBy.add(ascending ? cb.asc(key, false) : cb.desc(key, true));
+		}
+		orderBy.add(ascending ? cb.asc(id) : cb.desc(id));
+		if (afterId != null) {
+			Predicate afterRow = after(cb, id, afterId, ascending);
+			if (sort != ExpenseSort.ID) {
+				afterRow = afterKey(cb, key, (Comparable<Object>) afterKey, ascending, afterRow);
+			}
+			where.add(afterRow);
+		}
+
+		query.select(id).where(where.toArray(Predicate[]::new)).orderBy(orderBy);
+		return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+	}
+
+	@Override
+	public List<ExpenseTotal> findTotals(Specification<Expense> filter, Set<ExpenseGrouping> groupBy) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Expense> expense = query.from(Expense.class);
+		Path<Double> amount = expense.get("amount");
+
+		List<Selection<?>> select = new ArrayList<>();
+		List<Expression<?>> groups = new ArrayList<>();
+		if (groupBy.contains(ExpenseGrouping.CATEGORY)) {
+			Join<Expense, Category> category = expense.join("category", JoinType.LEFT);
+			group(select, groups, category.get("id"), "categoryId");
+			group(select, groups, category.get("name"), "categoryName");
+		}
+		if (groupBy.contains(ExpenseGrouping.TAG)) {
+			Join<Expense, Tag> tag = expense.join("tags", JoinType.LEFT);
+			group(select, groups, tag.get("id"), "tagId");
+			group(select, groups, tag.get("name"), "tagName");
+		}
+		if (groupBy.contains(ExpenseGrouping.CURRENCY)) {
+			group(select, groups, expense.get("currency"), "currency");
+		}
+		select.add(cb.count(expense).alias("count"));
+		select.add(cb.sum(amount).alias("sum"));
+		select.add(cb.min(amount).alias("min"));
+		select.add(cb.max(amount).alias("max"));
+		select.add(cb.avg(amount).alias("average"));
+
+		query.multiselect(select).groupBy(groups).orderBy(groups.stream().map(cb::asc).toList());
+		if (filter != null) {
+			Predicate predicate = filter.toPredicate(expense, query, cb);
+			if (predicate != null) {
+				query.where(predicate);
+			}
+		}
+		return entityManager.createQuery(query).getResultStream()
+				.map(row -> new ExpenseTotal(
+						value(row, groupBy, ExpenseGrouping.CATEGORY, "categoryId", Long.class),
+						value(row, groupBy, ExpenseGrouping.CATEGORY, "categoryName", String.class),
+						value(row, groupBy, ExpenseGrouping.TAG, "tagId", Long.class),
+						value(row, groupBy, ExpenseGrouping.TAG, "tagName", String.class),
+						value(row, groupBy, ExpenseGrouping.CURRENCY, "currency", String.class),
+						row.get("count", Long.class),
+						row.get("sum", Double.class),
+						row.get("min", Double.class),
+						row.get("max", Double.class),
+						row.get("average", Double.class)))
+				.toList();
+	}
+
+	private static void group(List<Selection<?>> select, List<Expression<?>> groups, Path<?> column, String alias) {
+		select.add(column.alias(alias));
+		groups.add(column);
+	}
+
+	private static <T> T value(Tuple row, Set<ExpenseGrouping> groupBy, ExpenseGrouping grouping, String alias, Class<T> type) {
+		return groupBy.contains(grouping) ? row.get(alias, type) : null;
+	}
+
+	// Rows after the key, and rows with the same key after the id
+	private static Predicate afterKey(CriteriaBuilder cb,
+	                                  Path<Comparable<Object>> key,
+	                                  Comparable<Object> value,
+	                                  boolean ascending,
+	                                  Predicate afterId) {
+		if (value == null) {
+			Predicate sameKey = cb.and(cb.isNull(key), afterId);
+			return ascending ? sameKey : cb.or(cb.isNotNull(key), sameKey);
+		}
+		Predicate sameKey = cb.and(cb.equal(key, value), afterId);
+		return ascending
+				? cb.or(cb.greaterThan(key, value), cb.isNull(key), sameKey)
+				: cb.or(cb.lessThan(key, value), sameKey);
+	}
+
+	private static <T extends Comparable<? super T>> Predicate after(CriteriaBuilder cb,
+	                                                                Expression<T> expression,
+	                                                                T value,
+	                                                                boolean ascending) {
+		return ascending ? cb.greaterThan(expression, value) : cb.lessThan(expression, value);
+	}
+}
@@ -0,0 +1,8 @@
+package com.expensemanager.repository;
+
+import java.time.LocalDate;
+
+// Columns of an expense without its associations, read without hydrating an entity
+public record ExpenseRow(Long id, String name, Double amount, String currency, LocalDate expenseDate,
+                         Long categoryId) {
+}
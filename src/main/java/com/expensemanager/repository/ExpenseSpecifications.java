@@ -0,0 +1,63 @@
+package com.expensemanager.repository;
+
+import com.expensemanager.model.Expense;
+import com.expensemanager.model.Tag;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Locale;
+import org.springframework.data.jpa.domain.Specification;
+
+// Filters of the expense searches, for ExpenseRepository.findPageIds
+public final class ExpenseSpecifications {
+
+	private ExpenseSpecifications() {
+	}
+
+	public static Specification<Expense> hasCategoryName(String categoryName) {
+		return (expense, query, cb) -> cb.equal(expense.get("category").get("name"), categoryName);
+	}
+
+	// EXISTS rather than a join, so that an expense is returned once however many tags match.
+	// Tag names are unique whatever their case, and only tags_lower_name_idx serves the lookup.
+	public static Specification<Expense> hasTagName(String tagName) {
+		return (expense, query, cb) -> {
+			Subquery<Integer> tagged = query.subquery(Integer.class);
+			Root<Expense> correlated = tagged.correlate(expense);
+			Join<Expense, Tag> tag = correlated.join("tags");
+			return cb.exists(tagged.select(cb.literal(1))
+					.where(cb.equal(cb.lower(tag.get("name")), cb.lower(cb.literal(tagName)))));
+		};
+	}
+
+	public static Specification<Expense> amountBetween(double min, double max) {
+		return (expense, query, cb) -> cb.between(expense.get("amount"), min, max);
+	}
+
+	// Either bound may be null. Compared on the partition key, so that PostgreSQL skips the
+	// partitions of the months outside the range
+	public static Specification<Expense> expenseDateBetween(LocalDate from, LocalDate to) {
+		return (expense, query, cb) -> {
+			Path<LocalDate> expenseDate = expense.get("expenseDate");
+			if (from == null) {
+				return cb.lessThanOrEqualTo(expenseDate, to);
+			}
+			return to == null ? cb.greaterThanOrEqualTo(expenseDate, from) : cb.between(expenseDate, from, to);
+		};
+	}
+
+	public static Specification<Expense> hasCurrency(String currency) {
+		return (expense, query, cb) -> cb.equal(expense.get("currency"), currency);
+	}
+
+	public static Specification<Expense> idIn(Collection<Long> ids) {
+		return (expense, query, cb) -> expense.get("id").in(ids);
+	}
+
+	public static Specification<Expense> nameContains(String namePart) {
+		return (expense, query, cb) -> cb.like(cb.lower(expense.get("name")), "%" + namePart.toLowerCase(Locale.ROOT) + "%");
+	}
+}
@@ -0,0 +1,5 @@
+package com.expensemanager.repository;
+
+// One expense_tag link together with the tag's name
+public record ExpenseTagRow(Long expenseId, Long tagId, String tagName) {
+}
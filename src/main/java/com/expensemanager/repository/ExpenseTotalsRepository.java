@@ -0,0 +1,135 @@
+package com.expensemanager.repository;
+
+import com.expensemanager.model.Expense;
+import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+// The running totals tables of the V4 migration. They are not mapped as entities; every
+// statement is native. A delta is added with an upsert, so that concurrent writers of a
+// group serialize on its row. Its min and max are infinite when it adds no amount, since
+// a null parameter would have no type. After a removal, the minimum and maximum are
+// recomputed from the expenses only if the removed amount was one of them.
+public interface ExpenseTotalsRepository extends Repository<Expense, Long> {
+
+	@Query(value = "SELECT t.category_id AS \"groupId\", c.name AS \"groupName\", t.currency AS \"currency\", "
+			+ "t.expense_count AS \"count\", t.amount_sum AS \"sum\", t.amount_min AS \"min\", t.amount_max AS \"max\" "
+			+ "FROM expense_category_totals t JOIN categories c ON c.id = t.category_id "
+			+ "ORDER BY t.category_id, t.currency",
+			nativeQuery = true)
+	List<TotalRow> findCategoryTotals();
+
+	@Query(value = "SELECT t.tag_id AS \"groupId\", g.name AS \"groupName\", t.currency AS \"currency\", "
+			+ "t.expense_count AS \"count\", t.amount_sum AS \"sum\", t.amount_min AS \"min\", t.amount_max AS \"max\" "
+			+ "FROM expense_tag_totals t JOIN tags g ON g.id = t.tag_id "
+			+ "ORDER BY t.tag_id, t.currency",
+			nativeQuery = true)
+	List<TotalRow> findTagTotals();
+
+	@Modifying
+	@Query(value = "INSERT INTO expense_category_totals AS t "
+			+ "(category_id, currency, expense_count, amount_sum, amount_min, amount_max) "
+			+ "VALUES (:groupId, :currency, :count, :sum, NULLIF(:min, 'Infinity'), NULLIF(:max, '-Infinity')) "
+			+ "ON CONFLICT (category_id, currency) DO UPDATE SET "
+			+ "expense_count = t.expense_count + EXCLUDED.expense_count, "
+			+ "amount_sum = t.amount_sum + EXCLUDED.amount_sum, "
+			+ "amount_min = LEAST(t.amount_min, EXCLUDED.amount_min), "
+			+ "amount_max = GREATEST(t.amount_max, EXCLUDED.amount_max)",
+			nativeQuery = true)
+	void addCategoryTotal(@Param("groupId") Long categoryId,
+	                      @Param("currency") String currency,
+	                      @Param("count") long count,
+	                      @Param("sum") double sum,
+	                      @Param("min") double min,
+	                      @Param("max") double max);
+
+	@Modifying
+	@Query(value = "INSERT INTO expense_tag_totals AS t "
+			+ "(tag_id, currency, expense_count, amount_sum, amount_min, amount_max) "
+			+ "VALUES (:groupId, :currency, :count, :sum, NULLIF(:min, 'Infinity'), NULLIF(:max, '-Infinity')) "
+			+ "ON CONFLICT (tag_id, currency) DO UPDATE SET "
+			+ "expense_count = t.expense_count + EXCLUDED.expense_count, "
+			+ "amount_sum = t.amount_sum + EXCLUDED.amount_sum, "
+			+ "amount_min = LEAST(t.amount_min, EXCLUDED.amount_min), "
+			+ "amount_max = GREATEST(t.amount_max, EXCLUDED.amount_max)",
+			nativeQuery = true)
+	void addTagTotal(@Param("groupId") Long tagId,
+	                 @Param("currency") String currency,
+	                 @Param("count") long count,
+	                 @Param("sum") double sum,
+	                 @Param("min") double min,
+	                 @Param("max") double max);
+
+	// The subqueries only run when the WHERE clause matches
+	@Modifying
+	@Query(value = "UPDATE expense_category_totals SET "
+			+ "amount_min = (SELECT MIN(e.amount) FROM expenses e "
+			+ "WHERE e.category_id = :groupId AND e.currency = :currency), "
+			+ "amount_max = (SELECT MAX(e.amount) FROM expenses e "
+			+ "WHERE e.category_id = :groupId AND e.currency = :currency) "
+			+ "WHERE category_id = :groupId AND currency = :currency "
+			+ "AND (amount_min >= :removedMin OR amount_max <= :removedMax)",
+			nativeQuery = true)
+	void refreshCategoryRange(@Param("groupId") Long categoryId,
+	                          @Param("currency") String currency,
+	                          @Param("removedMin") double removedMin,
+	                          @Param("removedMax") double removedMax);
+
+	@Modifying
+	@Query(value = "UPDATE expense_tag_totals SET "
+			+ "amount_min = (SELECT MIN(e.amount) FROM expenses e JOIN expense_tag et ON et.expense_id = e.id "
+			+ "WHERE et.tag_id = :groupId AND e.currency = :currency), "
+			+ "amount_max = (SELECT MAX(e.amount) FROM expenses e JOIN expense_tag et ON et.expense_id = e.id "
+			+ "WHERE et.tag_id = :groupId AND e.currency = :currency) "
+			+ "WHERE tag_id = :groupId AND currency = :currency "
+			+ "AND (amount_min >= :removedMin OR amount_max <= :removedMax)",
+			nativeQuery = true)
+	void refreshTagRange(@Param("groupId") Long tagId,
+	                     @Param("currency") String currency,
+	                     @Param("removedMin") double removedMin,
+	                     @Param("removedMax") double removedMax);
+
+	@Modifying
+	@Query(value = "DELETE FROM expense_category_totals WHERE expense_count <= 0", nativeQuery = true)
+	void deleteEmptyCategoryTotals();
+
+	@Modifying
+	@Query(value = "DELETE FROM expense_tag_totals WHERE expense_count <= 0", nativeQuery = true)
+	void deleteEmptyTagTotals();
+
+	// Writers block until a rebuild commits, and a rebuild waits for the writers that
+	// already changed a total, so that no delta is lost or counted twice
+	@Modifying
+	@Query(value = "LOCK TABLE expense_category_totals, expense_tag_totals IN EXCLUSIVE MODE", nativeQuery = true)
+	void lockTotals();
+
+	@Modifying
+	@Query(value = "DELETE FROM expense_category_totals", nativeQuery = true)
+	void deleteCategoryTotals();
+
+	@Modifying
+	@Query(value = "DELETE FROM expense_tag_totals", nativeQuery = true)
+	void deleteTagTotals();
+
+	@Modifying
+	@Query(value = "INSERT INTO expense_category_totals "
+			+ "(category_id, currency, expense_count, amount_sum, amount_min, amount_max) "
+			+ "SELECT category_id, currency, COUNT(*), COALESCE(SUM(amount), 0), MIN(amount), MAX(amount) "
+			+ "FROM expenses "
+			+ "WHERE category_id IS NOT NULL AND currency IS NOT NULL "
+			+ "GROUP BY category_id, currency",
+			nativeQuery = true)
+	void insertCategoryTotals();
+
+	@Modifying
+	@Query(value = "INSERT INTO expense_tag_totals "
+			+ "(tag_id, currency, expense_count, amount_sum, amount_min, amount_max) "
+			+ "SELECT et.tag_id, e.currency, COUNT(*), COALESCE(SUM(e.amount), 0), MIN(e.amount), MAX(e.amount) "
+			+ "FROM expenses e JOIN expense_tag et ON et.expense_id = e.id "
+			+ "WHERE e.currency IS NOT NULL "
+			+ "GROUP BY et.tag_id, e.currency",
+			nativeQuery = true)
+	void insertTagTotals();
+}
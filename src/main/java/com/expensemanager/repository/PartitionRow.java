@@ -0,0 +1,10 @@
+package com.expensemanager.repository;
+
+// A partition of the expenses table, read by ExpensePartitionRepository. The number of
+// rows is the planner's estimate, 0 until the partition has been analyzed.
+public interface PartitionRow {
+
+	String getName();
+
+	long getEstimatedRows();
+}
@@ -1,9 +1,26 @@
 package com.expensemanager.repository;
 
 import com.expensemanager.model.Tag;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface TagRepository extends JpaRepository<Tag, Long> {
-	Optional<Tag> findByNameIgnoreCase(String name);
+	// LOWER rather than the UPPER of derived IgnoreCase queries, to use tags_lower_name_idx
+	@Query("SELECT t FROM Tag t WHERE LOWER(t.name) = LOWER(:name)")
+	Optional<Tag> findByNameIgnoreCase(@Param("name") String name);
+
+	@Query("SELECT t FROM Tag t WHERE LOWER(t.name) IN :names")
+	List<Tag> findAllByLowerNameIn(@Param("names") Collection<String> names);
+
+	// Names already taken in any case, e.g. by a concurrent transaction, are skipped instead
+	// of violating tags_lower_name_idx
+	@Modifying
+	@Query(value = "INSERT INTO tags (name) SELECT UNNEST(ARRAY[:names]) ON CONFLICT ((LOWER(name))) DO NOTHING",
+			nativeQuery = true)
+	int insertIgnoringDuplicates(@Param("names") Collection<String> names);
 }
@@ -0,0 +1,20 @@
+package com.expensemanager.repository;
+
+// A row of expense_category_totals or expense_tag_totals, with the name of its category
+// or tag, read by ExpenseTotalsRepository
+public interface TotalRow {
+
+	Long getGroupId();
+
+	String getGroupName();
+
+	String getCurrency();
+
+	long getCount();
+
+	double getSum();
+
+	Double getMin();
+
+	Double getMax();
+}
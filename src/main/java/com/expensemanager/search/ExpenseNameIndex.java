@@ -0,0 +1,126 @@
+package com.expensemanager.search;
+
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.dto.ExpenseSnapshot.TagRef;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+// Name indexes of the expenses, updated by ExpenseService after every commit: trigrams
+// of the names for substring search, and a FuzzyIndex of the names and tag names for
+// typo-tolerant search. Until the first rebuild has finished, the searches return empty.
+// Changes made while a rebuild is loading are recorded and replayed on the new indexes
+// before they replace the current ones, since the rows loaded may predate them.
+@Component
+public class ExpenseNameIndex {
+
+	// Receives the expenses loaded by a rebuild; may be called from several threads
+	public interface Loader {
+
+		void putAll(Collection<ExpenseSnapshot> expenses);
+	}
+
+	private record Indexes(TrigramIndex names, FuzzyIndex terms) implements Loader {
+
+		Indexes() {
+			this(new TrigramIndex(), new FuzzyIndex());
+		}
+
+		@Override
+		public void putAll(Collection<ExpenseSnapshot> expenses) {
+			names.putAll(expenses.stream()
+					.filter(expense -> expense.name() != null)
+					.collect(Collectors.toMap(ExpenseSnapshot::id, ExpenseSnapshot::name)));
+			expenses.forEach(expense -> terms.put(expense.id(), expense.name(), tagNamesOf(expense)));
+		}
+	}
+
+	private record Change(Long id, ExpenseSnapshot expense) {
+
+		void applyTo(Indexes indexes) {
+			if (expense == null) {
+				indexes.names().remove(id);
+				indexes.terms().remove(id);
+				return;
+			}
+			if (expense.name() != null) {
+				indexes.names().put(id, expense.name());
+			} else {
+				indexes.names().remove(id);
+			}
+			indexes.terms().put(id, expense.name(), tagNamesOf(expense));
+		}
+	}
+
+	private final Object writeLock = new Object();
+	private volatile Indexes indexes;
+	// Not null while a rebuild is loading; guarded by writeLock
+	private List<Change> journal;
+
+	public Optional<List<Long>> search(String namePart) {
+		Indexes current = indexes;
+		return current != null ? Optional.of(current.names().search(namePart)) : Optional.empty();
+	}
+
+	public Optional<List<FuzzyIndex.Match>> searchFuzzy(String query, int maxDistance, int limit) {
+		Indexes current = indexes;
+		return current != null ? Optional.of(current.terms().search(query, maxDistance, limit)) : Optional.empty();
+	}
+
+	public void put(ExpenseSnapshot expense) {
+		apply(new Change(expense.id(), expense));
+	}
+
+	public void remove(Long id) {
+		apply(new Change(id, null));
+	}
+
+	// The loader fills the new indexes, possibly from several threads
+	public void rebuild(Consumer<Loader> loader) {
+		synchronized (writeLock) {
+			if (journal != null) {
+				throw new IllegalStateException("The expense name index is already being rebuilt");
+			}
+			journal = new ArrayList<>();
+		}
+		Indexes next = new Indexes();
+		try {
+			loader.accept(next);
+		} catch (RuntimeException | Error e) {
+			synchronized (writeLock) {
+				journal = null;
+			}
+			throw e;
+		}
+		synchronized (writeLock) {
+			journal.forEach(change -> change.applyTo(next));
+			journal = null;
+			indexes = next;
+		}
+	}
+
+	public int size() {
+		Indexes current = indexes;
+		return current != null ? current.terms().size() : 0;
+	}
+
+	private void apply(Change change) {
+		synchronized (writeLock) {
+			if (journal != null) {
+				journal.add(change);
+			}
+			Indexes current = indexes;
+			if (current != null) {
+				change.applyTo(current);
+			}
+		}
+	}
+
+	private static List<String> tagNamesOf(ExpenseSnapshot expense) {
+		return expense.tags().stream().map(TagRef::name).toList();
+	}
+}
@@ -0,0 +1,235 @@
+package com.expensemanager.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// BK-tree over the lower-cased terms of the expenses: whole names, the words of names and
+// tag names. The children of a node are keyed by their edit distance to it, so by the
+// triangle inequality a query within maxDistance of a term under a node at distance d
+// from the query can only be below children keyed d - maxDistance to d + maxDistance.
+// A term no expense has any more stays in the tree, as its children are keyed by their
+// distance to it, and is skipped by searches. Once such dead terms outnumber the live
+// ones, the tree is rebuilt from the live terms, so renames and deletes cost amortized
+// constant time and never leave more dead terms than live ones behind.
+public class FuzzyIndex {
+
+	public record Match(Long id, int distance, String term) {
+	}
+
+	private static final class Node {
+
+		final String term;
+		final Set<Long> ids = new HashSet<>();
+		final Map<Integer, Node> children = new HashMap<>();
+
+		Node(String term) {
+			this.term = term;
+		}
+	}
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	// Guarded by lock
+	private Node root;
+	private int termCount;
+	private int deadTermCount;
+	private final Map<Long, Set<String>> termsById = new HashMap<>();
+
+	public void put(Long id, String name, List<String> tagNames) {
+		Set<String> terms = termsOf(name, tagNames);
+		lock.writeLock().lock();
+		try {
+			removeLocked(id);
+			terms.forEach(term -> insertLocked(term).ids.add(id));
+			termsById.put(id, terms);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long id) {
+		lock.writeLock().lock();
+		try {
+			removeLocked(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// The limit closest expenses within maxDistance of the query, closest first and then
+	// by id, each with its closest term
+	public List<Match> search(String query, int maxDistance, int limit) {
+		String normalized = query.toLowerCase(Locale.ROOT).strip();
+		Map<Long, Match> best = new HashMap<>();
+		lock.readLock().lock();
+		try {
+			if (root == null) {
+				return List.of();
+			}
+			Deque<Node> pending = new ArrayDeque<>();
+			pending.push(root);
+			while (!pending.isEmpty()) {
+				Node node = pending.pop();
+				int distance = distance(normalized, node.term);
+				if (distance <= maxDistance) {
+					for (Long id : node.ids) {
+						Match match = best.get(id);
+						if (match == null || distance < match.distance()) {
+							best.put(id, new Match(id, distance, node.term));
+						}
+					}
+				}
+				for (int d = Math.max(1, distance - maxDistance); d <= distance + maxDistance; d++) {
+					Node child = node.children.get(d);
+					if (child != null) {
+						pending.push(child);
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return best.values().stream()
+				.sorted(Comparator.comparingInt(Match::distance).thenComparing(Match::id))
+				.limit(limit)
+				.toList();
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return termsById.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Terms in the tree, including the dead ones
+	public int termCount() {
+		lock.readLock().lock();
+		try {
+			return termCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private Node insertLocked(String term) {
+		if (root == null) {
+			root = new Node(term);
+			termCount++;
+			return root;
+		}
+		Node node = root;
+		while (true) {
+			int distance = distance(term, node.term);
+			if (distance == 0) {
+				if (node.ids.isEmpty()) {
+					deadTermCount--;
+				}
+				return node;
+			}
+			Node child = node.children.get(distance);
+			if (child == null) {
+				child = new Node(term);
+				node.children.put(distance, child);
+				termCount++;
+				return child;
+			}
+			node = child;
+		}
+	}
+
+	private void removeLocked(Long id) {
+		Set<String> terms = termsById.remove(id);
+		if (terms == null) {
+			return;
+		}
+		for (String term : terms) {
+			Node node = root;
+			while (node != null) {
+				int distance = distance(term, node.term);
+				if (distance == 0) {
+					if (node.ids.remove(id) && node.ids.isEmpty()) {
+						deadTermCount++;
+					}
+					break;
+				}
+				node = node.children.get(distance);
+			}
+		}
+		if (deadTermCount > termCount - deadTermCount) {
+			rebuildLocked();
+		}
+	}
+
+	private void rebuildLocked() {
+		List<Node> live = new ArrayList<>(termCount - deadTermCount);
+		Deque<Node> pending = new ArrayDeque<>();
+		if (root != null) {
+			pending.add(root);
+		}
+		while (!pending.isEmpty()) {
+			Node node = pending.poll();
+			if (!node.ids.isEmpty()) {
+				live.add(node);
+			}
+			pending.addAll(node.children.values());
+		}
+		root = null;
+		termCount = 0;
+		deadTermCount = 0;
+		for (Node node : live) {
+			insertLocked(node.term).ids.addAll(node.ids);
+		}
+	}
+
+	static Set<String> termsOf(String name, List<String> tagNames) {
+		Set<String> terms = new LinkedHashSet<>();
+		if (name != null && !name.isBlank()) {
+			String normalized = name.toLowerCase(Locale.ROOT).strip();
+			terms.add(normalized);
+			for (String word : normalized.split("[^\\p{L}\\p{N}]+")) {
+				if (!word.isEmpty()) {
+					terms.add(word);
+				}
+			}
+		}
+		for (String tagName : tagNames) {
+			if (tagName != null && !tagName.isBlank()) {
+				terms.add(tagName.toLowerCase(Locale.ROOT).strip());
+			}
+		}
+		return terms;
+	}
+
+	// Levenshtein distance, keeping two rows of the matrix
+	static int distance(String a, String b) {
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			for (int j = 1; j <= b.length(); j++) {
+				int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+				current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[b.length()];
+	}
+}
@@ -0,0 +1,22 @@
+package com.expensemanager.search;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class NameIndexSettings {
+
+	public enum Backend {
+		// In-process TrigramIndex
+		MEMORY,
+		// LIKE queries, which PostgreSQL can serve from a pg_trgm GIN index on lower(name)
+		DATABASE
+	}
+
+	private Backend backend = Backend.MEMORY;
+	// Ids per range query when the index is rebuilt
+	private int rebuildBatchSize = 5_000;
+	// Ranges loaded at the same time
+	private int rebuildParallelism = 4;
+}
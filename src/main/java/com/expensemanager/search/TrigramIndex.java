@@ -0,0 +1,139 @@
+package com.expensemanager.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Inverted index from the trigrams of a name to the ids having that name, for substring
+// queries. A name containing the query has every trigram of the query, so the candidates
+// are the ids of the query's rarest trigram, which are then checked with String.contains.
+// Queries shorter than a trigram check every name. Names are compared lower-cased.
+public class TrigramIndex {
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	// Guarded by lock
+	private final Map<Long, String> names = new HashMap<>();
+	private final Map<Long, Set<Long>> postings = new HashMap<>();
+
+	public void put(Long id, String name) {
+		String normalized = normalize(name);
+		long[] trigrams = trigrams(normalized);
+		lock.writeLock().lock();
+		try {
+			removeLocked(id);
+			addLocked(id, normalized, trigrams);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// For bulk loads from several threads: the trigrams are extracted before locking
+	public void putAll(Map<Long, String> namesById) {
+		Map<Long, String> normalized = new HashMap<>();
+		Map<Long, long[]> trigrams = new HashMap<>();
+		namesById.forEach((id, name) -> {
+			normalized.put(id, normalize(name));
+			trigrams.put(id, trigrams(normalized.get(id)));
+		});
+		lock.writeLock().lock();
+		try {
+			normalized.forEach((id, name) -> {
+				removeLocked(id);
+				addLocked(id, name, trigrams.get(id));
+			});
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long id) {
+		lock.writeLock().lock();
+		try {
+			removeLocked(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// Ids of the names containing the given part, in ascending order
+	public List<Long> search(String part) {
+		String query = normalize(part);
+		long[] trigrams = trigrams(query);
+		List<Long> ids = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			Collection<Long> candidates = names.keySet();
+			for (long trigram : trigrams) {
+				Set<Long> posting = postings.get(trigram);
+				if (posting == null) {
+					return List.of();
+				}
+				if (posting.size() < candidates.size()) {
+					candidates = posting;
+				}
+			}
+			for (Long id : candidates) {
+				if (names.get(id).contains(query)) {
+					ids.add(id);
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		ids.sort(null);
+		return ids;
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return names.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void addLocked(Long id, String name, long[] trigrams) {
+		names.put(id, name);
+		for (long trigram : trigrams) {
+			postings.computeIfAbsent(trigram, key -> new HashSet<>()).add(id);
+		}
+	}
+
+	private void removeLocked(Long id) {
+		String previous = names.remove(id);
+		if (previous == null) {
+			return;
+		}
+		for (long trigram : trigrams(previous)) {
+			Set<Long> posting = postings.get(trigram);
+			if (posting != null && posting.remove(id) && posting.isEmpty()) {
+				postings.remove(trigram);
+			}
+		}
+	}
+
+	static String normalize(String name) {
+		return name != null ? name.toLowerCase(Locale.ROOT) : "";
+	}
+
+	// Distinct trigrams, each packing three UTF-16 chars into a long
+	static long[] trigrams(String name) {
+		if (name.length() < 3) {
+			return new long[0];
+		}
+		long[] trigrams = new long[name.length() - 2];
+		for (int i = 0; i < trigrams.length; i++) {
+			trigrams[i] = (long) name.charAt(i) << 32 | (long) name.charAt(i + 1) << 16 | name.charAt(i + 2);
+		}
+		return Arrays.stream(trigrams).distinct().toArray();
+	}
+}
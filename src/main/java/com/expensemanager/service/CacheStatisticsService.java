@@ -0,0 +1,49 @@
+package com.expensemanager.service;
+
+import com.expensemanager.cache.CacheStats;
+import com.expensemanager.cache.LFUCache;
+import com.expensemanager.exception.ResourceNotFoundException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+public class CacheStatisticsService {
+
+	private final Map<String, LFUCache<?>> caches = new TreeMap<>();
+
+	public CacheStatisticsService(List<LFUCache<?>> caches) {
+		caches.forEach(cache -> this.caches.put(cache.getName(), cache));
+	}
+
+	public List<CacheStats> getAllStats() {
+		return caches.values().stream()
+				.map(LFUCache::stats)
+				.toList();
+	}
+
+	public CacheStats getStats(String name) {
+		return getCache(name).stats();
+	}
+
+	public void resetStats(String name) {
+		getCache(name).resetStats();
+		log.info("Statistics of cache '{}' reset", name);
+	}
+
+	public void resetAllStats() {
+		caches.values().forEach(LFUCache::resetStats);
+		log.info("Statistics of all caches reset");
+	}
+
+	private LFUCache<?> getCache(String name) {
+		LFUCache<?> cache = caches.get(name);
+		if (cache == null) {
+			throw new ResourceNotFoundException("Cache '" + name + "' not found");
+		}
+		return cache;
+	}
+}
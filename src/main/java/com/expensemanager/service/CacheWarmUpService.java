@@ -0,0 +1,165 @@
+package com.expensemanager.service;
+
+import com.expensemanager.cache.CacheSnapshotFile;
+import com.expensemanager.cache.CategoryCache;
+import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.HotKey;
+import com.expensemanager.cache.LFUCache;
+import com.expensemanager.cache.SnapshotSettings;
+import com.expensemanager.cache.TagCache;
+import com.expensemanager.config.CacheProperties;
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.dto.ExpenseView;
+import com.expensemanager.model.Category;
+import com.expensemanager.model.Tag;
+import com.expensemanager.repository.CategoryRepository;
+import com.expensemanager.repository.ExpenseRepository;
+import com.expensemanager.repository.TagRepository;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+// Saves the hot keys of every cache on shutdown and reloads them on startup. Runs as an
+// ApplicationRunner, so the application is not reported ready before the warm-up has
+// finished or used up its time budget.
+@Slf4j
+@Service
+public class CacheWarmUpService implements ApplicationRunner {
+
+	private final ExpenseCache expenseCache;
+	private final TagCache tagCache;
+	private final CategoryCache categoryCache;
+	private final ExpenseRepository expenseRepository;
+	private final TagRepository tagRepository;
+	private final CategoryRepository categoryRepository;
+	private final SnapshotSettings settings;
+
+	public CacheWarmUpService(ExpenseCache expenseCache,
+	                          TagCache tagCache,
+	                          CategoryCache categoryCache,
+	                          ExpenseRepository expenseRepository,
+	                          TagRepository tagRepository,
+	                          CategoryRepository categoryRepository,
+	                          CacheProperties cacheProperties) {
+		this.expenseCache = expenseCache;
+		this.tagCache = tagCache;
+		this.categoryCache = categoryCache;
+		this.expenseRepository = expenseRepository;
+		this.tagRepository = tagRepository;
+		this.categoryRepository = categoryRepository;
+		this.settings = cacheProperties.getSnapshot();
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		warmUp();
+	}
+
+	public void warmUp() {
+		if (!settings.isEnabled()) {
+			return;
+		}
+		long start = System.nanoTime();
+		long deadline = start + settings.getWarmUpBudget().toNanos();
+		AtomicBoolean cancelled = new AtomicBoolean();
+		ExecutorService executor = Executors.newFixedThreadPool(settings.getParallelism(), runnable -> {
+			Thread thread = new Thread(runnable, "cache-warm-up");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Future<Integer>> batches = new ArrayList<>();
+			batches.addAll(submit(executor, cancelled, expenseCache, ids -> expenseRepository
+					.findViewsByIdIn(ids).stream()
+					.map(ExpenseView::toSnapshot)
+					.collect(Collectors.toMap(ExpenseSnapshot::id, Function.identity()))));
+			batches.addAll(submit(executor, cancelled, tagCache, ids -> tagRepository.findAllById(ids).stream()
+					.collect(Collectors.toMap(Tag::getId, Function.identity()))));
+			batches.addAll(submit(executor, cancelled, categoryCache, ids -> categoryRepository.findAllById(ids).stream()
+					.collect(Collectors.toMap(Category::getId, Function.identity()))));
+			int added = 0;
+			int done = 0;
+			for (Future<Integer> batch : batches) {
+				try {
+					added += batch.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+					done++;
+				} catch (TimeoutException e) {
+					cancelled.set(true);
+					log.warn("Cache warm-up exceeded its budget of {}, {} of {} batches not loaded",
+							settings.getWarmUpBudget(), batches.size() - done, batches.size());
+					break;
+				} catch (ExecutionException e) {
+					log.warn("Cache warm-up batch failed: {}", e.getCause().getMessage());
+				}
+			}
+			log.info("Cache warm-up added {} entries in {} ms", added,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		} catch (InterruptedException e) {
+			cancelled.set(true);
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@PreDestroy
+	public void saveSnapshots() {
+		if (!settings.isEnabled()) {
+			return;
+		}
+		for (LFUCache<?> cache : List.of(expenseCache, tagCache, categoryCache)) {
+			List<HotKey> hotKeys = cache.hotKeys();
+			try {
+				CacheSnapshotFile.write(CacheSnapshotFile.of(settings.getDirectory(), cache.getName()), hotKeys);
+				log.info("Saved {} hot keys of cache '{}'", hotKeys.size(), cache.getName());
+			} catch (IOException e) {
+				log.warn("Could not save snapshot of cache '{}': {}", cache.getName(), e.getMessage());
+			}
+		}
+	}
+
+	// Snapshots are hottest first, so with a FIFO executor the hottest batches are fetched first
+	private <T> List<Future<Integer>> submit(ExecutorService executor,
+	                                         AtomicBoolean cancelled,
+	                                         LFUCache<T> cache,
+	                                         Function<List<Long>, Map<Long, T>> loader) {
+		List<HotKey> hotKeys = readSnapshot(cache);
+		List<Future<Integer>> batches = new ArrayList<>();
+		for (int from = 0; from < hotKeys.size(); from += settings.getBatchSize()) {
+			List<HotKey> batch = hotKeys.subList(from, Math.min(from + settings.getBatchSize(), hotKeys.size()));
+			batches.add(executor.submit(() -> {
+				// Taken before the load, so that a batch overlapping a write or a cross-node
+				// invalidation is dropped rather than bring back the old values
+				long generation = cache.generation();
+				Map<Long, T> values = loader.apply(batch.stream().map(HotKey::id).toList());
+				// A late batch must not bring back values written or removed since startup
+				return cancelled.get() ? 0 : cache.warm(batch, values, generation);
+			}));
+		}
+		return batches;
+	}
+
+	private List<HotKey> readSnapshot(LFUCache<?> cache) {
+		try {
+			return CacheSnapshotFile.read(CacheSnapshotFile.of(settings.getDirectory(), cache.getName()));
+		} catch (IOException e) {
+			log.warn("Could not read snapshot of cache '{}': {}", cache.getName(), e.getMessage());
+			return List.of();
+		}
+	}
+}
@@ -1,6 +1,11 @@
 package com.expensemanager.service;
 
+import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.ExpenseQueryCache;
+import com.expensemanager.cache.ExpenseQueryCache.QueryType;
 import com.expensemanager.cache.CategoryCache;
+import com.expensemanager.cache.CategoryDictionary;
+import com.expensemanager.cache.invalidation.CacheInvalidationBus;
 import com.expensemanager.dto.CategoryDTO;
 import com.expensemanager.exception.CategoryAlreadyExistsException;
 import com.expensemanager.exception.ResourceNotFoundException;
@@ -17,37 +22,39 @@ public class CategoryService {
 
 	private final CategoryRepository categoryRepository;
 	private final CategoryCache categoryCache;
+	private final CategoryDictionary categoryDictionary;
+	private final ExpenseCache expenseCache;
+	private final ExpenseQueryCache expenseQueryCache;
+	private final CacheInvalidationBus invalidationBus;
 
 	@Autowired
-	public CategoryService(CategoryRepository categoryRepository, CategoryCache categoryCache) {
+	public CategoryService(CategoryRepository categoryRepository,
+	                       CategoryCache categoryCache,
+	                       CategoryDictionary categoryDictionary,
+	                       ExpenseCache expenseCache,
+	                       ExpenseQueryCache expenseQueryCache,
+	                       CacheInvalidationBus invalidationBus) {
 		this.categoryRepository = categoryRepository;
 		this.categoryCache = categoryCache;
+		this.categoryDictionary = categoryDictionary;
+		this.expenseCache = expenseCache;
+		this.expenseQueryCache = expenseQueryCache;
+		this.invalidationBus = invalidationBus;
 	}
 
 	public List<Category> getAllCategories() {
-		List<Category> categories = categoryRepository.findAll();
-		for (Category category : categories) {
-			if (categoryCache.get(category.getId()) == null) {
-				categoryCache.put(category.getId(), category);
-				log.info("Category with id {} added to cache from getAllCategories", category.getId());
-			} else {
-				log.info("Category with id {} already present in cache (getAllCategories)", category.getId());
-			}
-		}
+		List<Category> categories = categoryDictionary.ensureLoaded(categoryRepository::findAll).all();
+		log.info("Retrieved {} categories from dictionary", categories.size());
 		return categories;
 	}
 
 	public Category getCategoryById(Long id) {
-		Category cachedCategory = categoryCache.get(id);
-		if (cachedCategory != null) {
-			log.info("Category with id {} retrieved from cache", id);
-			return cachedCategory;
-		}
-		Category category = categoryRepository.findById(id)
-				.orElseThrow(() -> new ResourceNotFoundException("Category with ID " + id + " not found"));
-		categoryCache.put(id, category);
-		log.info("Category with id {} retrieved from repository and cached", id);
-		return category;
+		return categoryCache.get(id, key -> {
+			Category category = categoryRepository.findById(key)
+					.orElseThrow(() -> new ResourceNotFoundException("Category with ID " + key + " not found"));
+			log.info("Category with id {} retrieved from repository and cached", key);
+			return category;
+		});
 	}
 
 	public Category createCategory(CategoryDTO categoryDTO) {
@@ -59,6 +66,8 @@ public class CategoryService {
 		category.setName(categoryDTO.getName());
 		Category savedCategory = categoryRepository.save(category);
 		categoryCache.put(savedCategory.getId(), savedCategory);
+		categoryDictionary.put(savedCategory);
+		invalidationBus.publishAdded(categoryDictionary.getName(), List.of(savedCategory.getId()));
 		log.info("Category with id {} created and cached", savedCategory.getId());
 		return savedCategory;
 	}
@@ -69,6 +78,9 @@ public class CategoryService {
 		log.info("Updating category id={} with new name={}", id, categoryDTO.getName());
 		Category updatedCategory = categoryRepository.save(existing);
 		categoryCache.put(id, updatedCategory);
+		categoryDictionary.put(updatedCategory);
+		evictExpensesWithCategory(id);
+		invalidationBus.publish(categoryCache.getName(), id);
 		log.info("Category with id {} updated and cache refreshed", id);
 		return updatedCategory;
 	}
@@ -78,6 +90,16 @@ public class CategoryService {
 		log.warn("Deleting category id={}", id);
 		categoryRepository.delete(existing);
 		categoryCache.remove(id);
+		categoryDictionary.remove(id);
+		evictExpensesWithCategory(id);
+		invalidationBus.publish(categoryCache.getName(), id);
 		log.info("Category with id {} removed from cache", id);
 	}
+
+	// Cached expenses and category queries hold the old name; the other nodes do the same on
+	// the invalidation of the category
+	private void evictExpensesWithCategory(Long id) {
+		expenseCache.removeWithCategories(List.of(id));
+		expenseQueryCache.invalidate(QueryType.CATEGORY);
+	}
 }
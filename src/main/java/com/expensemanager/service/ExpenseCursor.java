@@ -0,0 +1,41 @@
+package com.expensemanager.service;
+
+import com.expensemanager.dto.ExpensePageRequest;
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.dto.ExpenseSort;
+import com.expensemanager.exception.InvalidInputException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.springframework.data.domain.Sort;
+
+// Position after the last expense of a page: its sort key and id. Encoded as URL-safe
+// Base64 of "<sort>:<direction>:<id>:<key>", or "<sort>:<direction>:<id>" when the key is
+// null; the sort and direction are included so that a cursor cannot be replayed with a
+// different order.
+record ExpenseCursor(ExpenseSort sort, Sort.Direction direction, Long id, Object key) {
+
+	static ExpenseCursor after(ExpenseSnapshot expense, ExpensePageRequest page) {
+		return new ExpenseCursor(page.sort(), page.direction(), expense.id(), page.sort().keyOf(expense));
+	}
+
+	static ExpenseCursor decode(ExpensePageRequest page) {
+		try {
+			String[] fields = new String(Base64.getUrlDecoder().decode(page.cursor()), StandardCharsets.UTF_8)
+					.split(":", 4);
+			ExpenseSort sort = ExpenseSort.valueOf(fields[0]);
+			Sort.Direction direction = Sort.Direction.valueOf(fields[1]);
+			if (sort != page.sort() || direction != page.direction()) {
+				throw new InvalidInputException("Cursor was issued for a different sort order");
+			}
+			Object key = fields.length > 3 ? sort.parseKey(fields[3]) : null;
+			return new ExpenseCursor(sort, direction, Long.valueOf(fields[2]), key);
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			throw new InvalidInputException("Invalid cursor '" + page.cursor() + "'");
+		}
+	}
+
+	String encode() {
+		String position = sort + ":" + direction + ":" + id + (key != null ? ":" + key : "");
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+	}
+}
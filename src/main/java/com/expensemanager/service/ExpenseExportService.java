@@ -0,0 +1,86 @@
+package com.expensemanager.service;
+
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.model.Expense;
+import com.expensemanager.repository.ExpenseRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Writes every expense as newline-delimited JSON, read through a forward-only database
+// cursor. Rows are handled in chunks: the tags of a chunk are fetched with one query, the
+// chunk is written and flushed, and the persistence context is cleared, so memory stays
+// flat whatever the size of the table. The caches are bypassed, so that an export does
+// not evict the hot entries.
+@Slf4j
+@Service
+public class ExpenseExportService {
+
+	// Same as the fetch size of ExpenseRepository.streamAllWithCategory
+	static final int CHUNK_SIZE = 500;
+
+	private final ExpenseRepository expenseRepository;
+	private final EntityManager entityManager;
+	private final ObjectMapper objectMapper;
+	// Output is flushed once per chunk rather than after every expense
+	private final ObjectWriter writer;
+
+	public ExpenseExportService(ExpenseRepository expenseRepository,
+	                            EntityManager entityManager,
+	                            ObjectMapper objectMapper) {
+		this.expenseRepository = expenseRepository;
+		this.entityManager = entityManager;
+		this.objectMapper = objectMapper;
+		this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+	}
+
+	@Transactional(readOnly = true)
+	public long exportExpenses(OutputStream out) throws IOException {
+		long exported = 0;
+		try (Stream<Expense> expenses = expenseRepository.streamAllWithCategory();
+		     JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+				     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+			// Lines are terminated by writeChunk instead of separated by spaces
+			generator.setRootValueSeparator(null);
+			List<Expense> chunk = new ArrayList<>(CHUNK_SIZE);
+			Iterator<Expense> rows = expenses.iterator();
+			while (rows.hasNext()) {
+				chunk.add(rows.next());
+				if (chunk.size() == CHUNK_SIZE) {
+					exported += writeChunk(chunk, generator);
+				}
+			}
+			exported += writeChunk(chunk, generator);
+		}
+		log.info("{} expenses exported", exported);
+		return exported;
+	}
+
+	private int writeChunk(List<Expense> chunk, JsonGenerator generator) throws IOException {
+		if (chunk.isEmpty()) {
+			return 0;
+		}
+		// Initializes the tags of the managed instances in the chunk
+		expenseRepository.findAllByIdWithAssociations(chunk.stream().map(Expense::getId).toList());
+		for (Expense expense : chunk) {
+			writer.writeValue(generator, ExpenseSnapshot.of(expense));
+			generator.writeRaw('\n');
+		}
+		generator.flush();
+		int written = chunk.size();
+		chunk.clear();
+		entityManager.clear();
+		return written;
+	}
+}
@@ -0,0 +1,185 @@
+package com.expensemanager.service;
+
+import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.TagCache;
+import com.expensemanager.cache.invalidation.InvalidationListener;
+import com.expensemanager.config.SearchProperties;
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.dto.ExpenseView;
+import com.expensemanager.repository.ExpenseRepository;
+import com.expensemanager.search.ExpenseNameIndex;
+import com.expensemanager.search.NameIndexSettings;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+// Loads ExpenseNameIndex at startup in the background, reading id ranges in parallel,
+// and applies the expense changes made on other nodes. Tag names are terms of the
+// fuzzy index, so the expenses carrying a tag renamed or deleted on another node are
+// re-read too. Rebuilds and the changes of other nodes are applied one at a time, in the
+// order they were received.
+@Slf4j
+@Service
+public class ExpenseNameIndexService implements ApplicationRunner, InvalidationListener {
+
+	// PostgreSQL accepts at most 32767 bind parameters per statement
+	private static final int MAX_IDS_PER_QUERY = 1_000;
+
+	private final ExpenseNameIndex expenseNameIndex;
+	private final ExpenseRepository expenseRepository;
+	private final String expenseCacheName;
+	private final String tagCacheName;
+	private final NameIndexSettings settings;
+	private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "expense-name-index");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public ExpenseNameIndexService(ExpenseNameIndex expenseNameIndex,
+	                               ExpenseRepository expenseRepository,
+	                               ExpenseCache expenseCache,
+	                               TagCache tagCache,
+	                               SearchProperties searchProperties) {
+		this.expenseNameIndex = expenseNameIndex;
+		this.expenseRepository = expenseRepository;
+		this.expenseCacheName = expenseCache.getName();
+		this.tagCacheName = tagCache.getName();
+		this.settings = searchProperties.getNameIndex();
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (enabled()) {
+			worker.execute(this::rebuild);
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		worker.shutdownNow();
+	}
+
+	@Override
+	public void invalidated(String cacheName, List<Long> ids) {
+		if (!enabled() || ids.isEmpty()) {
+			return;
+		}
+		if (cacheName.equals(expenseCacheName)) {
+			worker.execute(() -> refresh(ids));
+		} else if (cacheName.equals(tagCacheName)) {
+			worker.execute(() -> refreshWithTags(ids));
+		}
+	}
+
+	// Re-reads the expenses from the database, e.g. those that carried a tag renamed or
+	// deleted here, in batches of MAX_IDS_PER_QUERY
+	public void refresh(Collection<Long> ids) {
+		if (!enabled()) {
+			return;
+		}
+		List<Long> all = List.copyOf(ids);
+		for (int from = 0; from < all.size(); from += MAX_IDS_PER_QUERY) {
+			refreshBatch(all.subList(from, Math.min(all.size(), from + MAX_IDS_PER_QUERY)));
+		}
+	}
+
+	@Override
+	public void invalidatedAll() {
+		if (enabled()) {
+			worker.execute(this::rebuild);
+		}
+	}
+
+	void rebuild() {
+		long start = System.nanoTime();
+		ExecutorService loaders = Executors.newFixedThreadPool(settings.getRebuildParallelism(), runnable -> {
+			Thread thread = new Thread(runnable, "expense-name-index-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			// The id range is read once the rebuild has started recording changes, so that
+			// expenses created meanwhile are either loaded or replayed
+			expenseNameIndex.rebuild(index -> {
+				Long minId = expenseRepository.findMinId();
+				Long maxId = expenseRepository.findMaxId();
+				if (minId == null) {
+					return;
+				}
+				List<Future<?>> ranges = new ArrayList<>();
+				for (long from = minId; from <= maxId; from += settings.getRebuildBatchSize()) {
+					long rangeFrom = from;
+					long rangeTo = Math.min(maxId, from + settings.getRebuildBatchSize() - 1);
+					ranges.add(loaders.submit(() -> index.putAll(snapshotsOf(expenseRepository.findViewsByIdBetween(rangeFrom, rangeTo)))));
+				}
+				for (Future<?> range : ranges) {
+					await(range);
+				}
+			});
+			log.info("Expense name index rebuilt with {} expenses in {} ms", expenseNameIndex.size(),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		} catch (RuntimeException e) {
+			log.warn("Could not rebuild the expense name index: {}", e.getMessage());
+		} finally {
+			loaders.shutdownNow();
+		}
+	}
+
+	private void refreshWithTags(List<Long> tagIds) {
+		try {
+			refresh(expenseRepository.findIdsByTagIdIn(tagIds));
+		} catch (RuntimeException e) {
+			log.warn("Could not refresh the expense name index: {}", e.getMessage());
+		}
+	}
+
+	private void refreshBatch(List<Long> ids) {
+		try {
+			Map<Long, ExpenseSnapshot> expenses = snapshotsOf(expenseRepository.findViewsByIdIn(ids)).stream()
+					.collect(Collectors.toMap(ExpenseSnapshot::id, Function.identity()));
+			for (Long id : ids) {
+				ExpenseSnapshot expense = expenses.get(id);
+				if (expense != null) {
+					expenseNameIndex.put(expense);
+				} else {
+					expenseNameIndex.remove(id);
+				}
+			}
+		} catch (RuntimeException e) {
+			log.warn("Could not refresh the expense name index: {}", e.getMessage());
+		}
+	}
+
+	private boolean enabled() {
+		return settings.getBackend() == NameIndexSettings.Backend.MEMORY;
+	}
+
+	private static List<ExpenseSnapshot> snapshotsOf(List<ExpenseView> views) {
+		return views.stream().map(ExpenseView::toSnapshot).toList();
+	}
+
+	private static void await(Future<?> range) {
+		try {
+			range.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading expenses", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+		}
+	}
+}
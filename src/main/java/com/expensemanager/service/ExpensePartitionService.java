@@ -0,0 +1,150 @@
+package com.expensemanager.service;
+
+import com.expensemanager.cache.CacheTransactions;
+import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.ExpenseQueryCache;
+import com.expensemanager.cache.invalidation.CacheInvalidationBus;
+import com.expensemanager.config.PartitionProperties;
+import com.expensemanager.dto.ExpensePartition;
+import com.expensemanager.dto.ExpensePartitionArchive;
+import com.expensemanager.exception.InvalidInputException;
+import com.expensemanager.repository.ExpensePartitionRepository;
+import com.expensemanager.search.ExpenseNameIndex;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Keeps a partition of the expenses table for the current month and the months ahead,
+// checked at startup and then daily, and archives the partitions of old months. Expenses
+// of a month without a partition are stored in the default partition until the partition
+// of their month is created.
+@Slf4j
+@Service
+public class ExpensePartitionService implements ApplicationRunner {
+
+	private static final Pattern MONTHLY_PARTITION = Pattern.compile("expenses_(\\d{4})_(\\d{2})");
+
+	private final ExpensePartitionRepository expensePartitionRepository;
+	private final ExpenseTotalsService expenseTotalsService;
+	private final ExpenseCache expenseCache;
+	private final ExpenseQueryCache expenseQueryCache;
+	private final ExpenseNameIndex expenseNameIndex;
+	private final CacheInvalidationBus invalidationBus;
+	private final PartitionProperties partitionProperties;
+	private final ExpensePartitionService self;
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "expense-partitions");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public ExpensePartitionService(ExpensePartitionRepository expensePartitionRepository,
+	                               ExpenseTotalsService expenseTotalsService,
+	                               ExpenseCache expenseCache,
+	                               ExpenseQueryCache expenseQueryCache,
+	                               ExpenseNameIndex expenseNameIndex,
+	                               CacheInvalidationBus invalidationBus,
+	                               PartitionProperties partitionProperties,
+	                               @Lazy ExpensePartitionService self) {
+		this.expensePartitionRepository = expensePartitionRepository;
+		this.expenseTotalsService = expenseTotalsService;
+		this.expenseCache = expenseCache;
+		this.expenseQueryCache = expenseQueryCache;
+		this.expenseNameIndex = expenseNameIndex;
+		this.invalidationBus = invalidationBus;
+		this.partitionProperties = partitionProperties;
+		this.self = self;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (partitionProperties.isManage()) {
+			scheduler.scheduleWithFixedDelay(this::createUpcomingPartitions, 0, 1, TimeUnit.DAYS);
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		scheduler.shutdownNow();
+	}
+
+	// Creates the partitions that are missing from the current month to monthsAhead
+	@Transactional
+	public void createPartitions() {
+		YearMonth current = YearMonth.now();
+		for (int i = 0; i <= partitionProperties.getMonthsAhead(); i++) {
+			expensePartitionRepository.createPartition(current.plusMonths(i).atDay(1));
+		}
+	}
+
+	@Transactional(readOnly = true)
+	public List<ExpensePartition> getPartitions() {
+		return expensePartitionRepository.findPartitions().stream()
+				.map(row -> new ExpensePartition(row.getName(), monthOf(row.getName()), row.getEstimatedRows()))
+				.toList();
+	}
+
+	// Detaches the partitions of the months before the given one into archive tables, see
+	// V5__partition_expenses_by_month.sql. The archived expenses are no longer counted in
+	// the running totals, and are evicted from the caches of every node.
+	@Transactional
+	public ExpensePartitionArchive archivePartitions(YearMonth before) {
+		if (before.isAfter(YearMonth.now())) {
+			throw new InvalidInputException("Only the months before the current one can be archived");
+		}
+		List<String> tables = new ArrayList<>();
+		List<Long> ids = new ArrayList<>();
+		for (ExpensePartition partition : getPartitions()) {
+			if (partition.month() == null || !partition.month().isBefore(before)) {
+				continue;
+			}
+			LocalDate start = partition.month().atDay(1);
+			List<Long> archived = expensePartitionRepository.findIdsInDateRange(start, start.plusMonths(1));
+			String table = expensePartitionRepository.archivePartition(start);
+			if (table != null) {
+				tables.add(table);
+				ids.addAll(archived);
+			}
+		}
+		if (tables.isEmpty()) {
+			return new ExpensePartitionArchive(List.of(), 0);
+		}
+		expenseTotalsService.rebuildTotals();
+		CacheTransactions.afterCommit(() -> {
+			ids.forEach(expenseCache::remove);
+			ids.forEach(expenseNameIndex::remove);
+			expenseQueryCache.clear();
+			invalidationBus.publish(expenseCache.getName(), ids);
+		});
+		log.info("{} expenses archived into {}", ids.size(), tables);
+		return new ExpensePartitionArchive(tables, ids.size());
+	}
+
+	private void createUpcomingPartitions() {
+		try {
+			self.createPartitions();
+		} catch (RuntimeException e) {
+			log.warn("Could not create the expense partitions: {}", e.getMessage());
+		}
+	}
+
+	private static YearMonth monthOf(String partitionName) {
+		Matcher matcher = MONTHLY_PARTITION.matcher(partitionName);
+		return matcher.matches()
+				? YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)))
+				: null;
+	}
+}
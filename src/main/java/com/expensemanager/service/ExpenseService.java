@@ -1,8 +1,25 @@
 package com.expensemanager.service;
 
+import com.expensemanager.cache.CacheTransactions;
+import com.expensemanager.cache.CategoryDictionary;
 import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.ExpenseQueryCache;
+import com.expensemanager.cache.ExpenseQueryCache.QueryKey;
+import com.expensemanager.cache.TagDictionary;
+import com.expensemanager.cache.invalidation.CacheInvalidationBus;
 import com.expensemanager.dto.ExpenseDTO;
+import com.expensemanager.dto.ExpenseMatch;
+import com.expensemanager.dto.ExpensePage;
+import com.expensemanager.dto.ExpensePageRequest;
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.dto.ExpenseSnapshot.CategoryRef;
+import com.expensemanager.dto.ExpenseSnapshot.TagRef;
+import com.expensemanager.dto.ExpenseSort;
 import com.expensemanager.dto.ExpenseUpdateDTO;
+import com.expensemanager.dto.ExpenseView;
+import com.expensemanager.dto.FetchPlan;
+import com.expensemanager.dto.TagDTO;
+import com.expensemanager.exception.InvalidInputException;
 import com.expensemanager.exception.ResourceNotFoundException;
 import com.expensemanager.integration.ExchangeRateService;
 import com.expensemanager.model.Category;
@@ -10,11 +27,33 @@ import com.expensemanager.model.Expense;
 import com.expensemanager.model.Tag;
 import com.expensemanager.repository.CategoryRepository;
 import com.expensemanager.repository.ExpenseRepository;
+import com.expensemanager.repository.ExpenseRow;
+import com.expensemanager.repository.ExpenseSpecifications;
+import com.expensemanager.repository.ExpenseTagRow;
 import com.expensemanager.repository.TagRepository;
+import com.expensemanager.search.ExpenseNameIndex;
+import com.expensemanager.search.FuzzyIndex;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,22 +66,46 @@ public class ExpenseService {
 	private final TagRepository tagRepository;
 	private final ExchangeRateService exchangeRateService;
 	private final ExpenseCache expenseCache;
+	private final ExpenseQueryCache expenseQueryCache;
+	private final TagDictionary tagDictionary;
+	private final CategoryDictionary categoryDictionary;
+	private final ExpenseNameIndex expenseNameIndex;
+	private final ExpenseTotalsService expenseTotalsService;
+	private final CacheInvalidationBus invalidationBus;
 	private final ExpenseService self;
 
 	private static final String CAT_PR = "Category '";
 	private static final String CAT_PSF = "' not found";
+	// Larger id lists from the name index are not sent as IN parameters; PostgreSQL
+	// accepts at most 32767 bind parameters per statement
+	private static final int MAX_INDEXED_IDS = 1_000;
+	private static final int MAX_FUZZY_DISTANCE = 3;
+	private static final int MAX_FUZZY_RESULTS = 100;
+	private static final Pattern TAG_NAME = Pattern.compile(TagDTO.NAME_PATTERN);
 
 	public ExpenseService(ExpenseRepository expenseRepository,
 	                      CategoryRepository categoryRepository,
 	                      TagRepository tagRepository,
 	                      ExchangeRateService exchangeRateService,
 	                      ExpenseCache expenseCache,
+	                      ExpenseQueryCache expenseQueryCache,
+	                      TagDictionary tagDictionary,
+	                      CategoryDictionary categoryDictionary,
+	                      ExpenseNameIndex expenseNameIndex,
+	                      ExpenseTotalsService expenseTotalsService,
+	                      CacheInvalidationBus invalidationBus,
 	                      @Lazy ExpenseService self) {
 		this.expenseRepository = expenseRepository;
 		this.categoryRepository = categoryRepository;
 		this.tagRepository = tagRepository;
 		this.exchangeRateService = exchangeRateService;
 		this.expenseCache = expenseCache;
+		this.expenseQueryCache = expenseQueryCache;
+		this.tagDictionary = tagDictionary;
+		this.categoryDictionary = categoryDictionary;
+		this.expenseNameIndex = expenseNameIndex;
+		this.expenseTotalsService = expenseTotalsService;
+		this.invalidationBus = invalidationBus;
 		this.self = self;
 	}
 
@@ -51,66 +114,70 @@ public class ExpenseService {
 	}
 
 	@Transactional
-	public Expense createExpense(ExpenseDTO expenseDTO) {
-		Expense expense = buildExpenseFromDTO(expenseDTO);
-		Expense saved = expenseRepository.save(expense);
-		expenseCache.put(saved.getId(), saved);
-		log.info("Expense with id {} created and cached", saved.getId());
+	public ExpenseSnapshot createExpense(ExpenseDTO expenseDTO) {
+		Expense expense = buildExpenseFromDTO(expenseDTO, resolveTags(tagNamesOf(List.of(expenseDTO))));
+		ExpenseSnapshot saved = ExpenseSnapshot.of(expenseRepository.save(expense));
+		expenseTotalsService.applyChange(List.of(), List.of(saved));
+		CacheTransactions.afterCommit(() -> {
+			expenseCache.put(saved.id(), saved);
+			expenseNameIndex.put(saved);
+			expenseQueryCache.invalidate(List.of(saved));
+			invalidationBus.publish(expenseCache.getName(), saved.id());
+		});
+		log.info("Expense with id {} created and cached", saved.id());
 		return saved;
 	}
 
 	@Transactional(readOnly = true)
-	public List<Expense> getAllExpenses() {
-		List<Expense> expenses = expenseRepository.findAllWithAssociations();
-		for (Expense expense : expenses) {
-			if (expenseCache.get(expense.getId()) == null) {
-				expenseCache.put(expense.getId(), expense);
-				log.info("Expense with id {} added to cache from getAllExpenses", expense.getId());
-			} else {
-				log.info("Expense with id {} already present in cache (getAllExpenses)", expense.getId());
-			}
-		}
-		return expenses;
+	public ExpensePage getAllExpenses(ExpensePageRequest page) {
+		return findPage("getAllExpenses", QueryKey.all(), null, page);
 	}
 
 	@Transactional(readOnly = true)
-	public Expense getExpenseById(Long id) {
-		Expense cachedExpense = expenseCache.get(id);
-		if (cachedExpense != null) {
-			log.info("Expense with id {} retrieved from cache", id);
-			return cachedExpense;
-		}
-		Expense expense = expenseRepository.findByIdWithAssociations(id)
-				.orElseThrow(() -> new ResourceNotFoundException("Expense with ID " + id + " not found"));
-		expenseCache.put(id, expense);
-		log.info("Expense with id {} retrieved from repository and cached", id);
-		return expense;
+	public ExpenseSnapshot getExpenseById(Long id) {
+		return expenseCache.get(id, key -> {
+			ExpenseSnapshot expense = expenseRepository.findViewsByIdIn(List.of(key)).stream()
+					.findFirst()
+					.map(ExpenseView::toSnapshot)
+					.orElseThrow(() -> expenseNotFound(key));
+			log.info("Expense with id {} retrieved from repository and cached", key);
+			return expense;
+		});
 	}
 
 	@Transactional
-	public Expense updateExpense(Long id, ExpenseDTO expenseDTO) {
-		Expense existingExpense = self.getExpenseById(id);
+	public ExpenseSnapshot updateExpense(Long id, ExpenseDTO expenseDTO) {
+		Expense existingExpense = findExpense(id);
+		ExpenseSnapshot previous = ExpenseSnapshot.of(existingExpense);
 		existingExpense.setName(expenseDTO.getName());
 		existingExpense.setAmount(expenseDTO.getAmount());
 		existingExpense.setCurrency(expenseDTO.getCurrency());
 		if (expenseDTO.getCategory() != null && !expenseDTO.getCategory().isBlank()) {
-			Category category = categoryRepository.findByNameIgnoreCase(expenseDTO.getCategory())
-					.orElseThrow(() -> new ResourceNotFoundException(CAT_PR + expenseDTO.getCategory() + CAT_PSF));
-			existingExpense.setCategory(category);
+			existingExpense.setCategory(findCategory(expenseDTO.getCategory()));
+		}
+		if (expenseDTO.getExpenseDate() != null) {
+			existingExpense.setExpenseDate(expenseDTO.getExpenseDate());
 		}
 		if (isDTONull(expenseDTO)) {
 			existingExpense.getTags().clear();
-			existingExpense.getTags().addAll(resolveTags(new ArrayList<>(expenseDTO.getTags())));
+			existingExpense.getTags().addAll(resolveTags(expenseDTO.getTags()).values());
 		}
-		Expense updatedExpense = expenseRepository.save(existingExpense);
-		expenseCache.put(id, updatedExpense);
+		ExpenseSnapshot updatedExpense = ExpenseSnapshot.of(expenseRepository.save(existingExpense));
+		expenseTotalsService.applyChange(List.of(previous), List.of(updatedExpense));
+		CacheTransactions.afterCommit(() -> {
+			expenseCache.put(id, updatedExpense);
+			expenseNameIndex.put(updatedExpense);
+			expenseQueryCache.invalidate(List.of(previous, updatedExpense));
+			invalidationBus.publish(expenseCache.getName(), id);
+		});
 		log.info("Expense with id {} updated and cache refreshed in updateExpense", id);
 		return updatedExpense;
 	}
 
 	@Transactional
-	public Expense updateExpensePartial(Long id, ExpenseUpdateDTO expenseUpdateDTO) {
-		Expense existingExpense = self.getExpenseById(id);
+	public ExpenseSnapshot updateExpensePartial(Long id, ExpenseUpdateDTO expenseUpdateDTO) {
+		Expense existingExpense = findExpense(id);
+		ExpenseSnapshot previous = ExpenseSnapshot.of(existingExpense);
 		if (isNotBlank(expenseUpdateDTO.getName())) {
 			existingExpense.setName(expenseUpdateDTO.getName());
 		}
@@ -121,155 +188,353 @@ public class ExpenseService {
 			existingExpense.setCurrency(expenseUpdateDTO.getCurrency());
 		}
 		if (isNotBlank(expenseUpdateDTO.getCategory())) {
-			Category category = categoryRepository.findByNameIgnoreCase(expenseUpdateDTO.getCategory())
-					.orElseThrow(() -> new ResourceNotFoundException(CAT_PR
-							+ expenseUpdateDTO.getCategory()
-							+ CAT_PSF));
-			existingExpense.setCategory(category);
+			existingExpense.setCategory(findCategory(expenseUpdateDTO.getCategory()));
+		}
+		if (expenseUpdateDTO.getExpenseDate() != null) {
+			existingExpense.setExpenseDate(expenseUpdateDTO.getExpenseDate());
 		}
 		if (expenseUpdateDTO.getTags() != null) {
 			existingExpense.getTags().clear();
-			existingExpense.getTags().addAll(resolveTags(new ArrayList<>(expenseUpdateDTO.getTags())));
+			existingExpense.getTags().addAll(resolveTags(expenseUpdateDTO.getTags()).values());
 		}
-		Expense updatedExpense = expenseRepository.save(existingExpense);
-		expenseCache.put(id, updatedExpense);
+		ExpenseSnapshot updatedExpense = ExpenseSnapshot.of(expenseRepository.save(existingExpense));
+		expenseTotalsService.applyChange(List.of(previous), List.of(updatedExpense));
+		CacheTransactions.afterCommit(() -> {
+			expenseCache.put(id, updatedExpense);
+			expenseNameIndex.put(updatedExpense);
+			expenseQueryCache.invalidate(List.of(previous, updatedExpense));
+			invalidationBus.publish(expenseCache.getName(), id);
+		});
 		log.info("Expense with id {} partially updated and cache refreshed", id);
 		return updatedExpense;
 	}
 
 	@Transactional
 	public void deleteExpense(Long id) {
-		Expense expense = self.getExpenseById(id);
+		Expense expense = findExpense(id);
+		ExpenseSnapshot deleted = ExpenseSnapshot.of(expense);
 		expenseRepository.delete(expense);
-		expenseCache.remove(id);
+		expenseTotalsService.applyChange(List.of(deleted), List.of());
+		CacheTransactions.afterCommit(() -> {
+			expenseCache.remove(id);
+			expenseNameIndex.remove(id);
+			expenseQueryCache.invalidate(List.of(deleted));
+			invalidationBus.publish(expenseCache.getName(), id);
+		});
 		log.info("Expense with id {} deleted and removed from cache", id);
 	}
 
 	@Transactional(readOnly = true)
-	public List<Expense> getExpensesByCategory(String categoryName) {
-		List<Expense> expenses = expenseRepository.findByCategoryName(categoryName);
-		if (expenses.isEmpty()) {
-			throw new ResourceNotFoundException("No expenses found for category '" + categoryName + "'");
+	public ExpensePage getExpensesByCategory(String categoryName, ExpensePageRequest page) {
+		return requireFound(findPage("getExpensesByCategory", QueryKey.byCategory(categoryName),
+				ExpenseSpecifications.hasCategoryName(categoryName), page), page,
+				"No expenses found for category '" + categoryName + "'");
+	}
+
+	@Transactional(readOnly = true)
+	public ExpensePage getExpensesByAmountRange(double min, double max, ExpensePageRequest page) {
+		return requireFound(findPage("getExpensesByAmountRange", QueryKey.byAmountRange(min, max),
+				ExpenseSpecifications.amountBetween(min, max), page), page,
+				"No expenses found in amount range [" + min + ", " + max + "]");
+	}
+
+	@Transactional(readOnly = true)
+	public ExpensePage searchByNamePart(String namePart, ExpensePageRequest page) {
+		return requireFound(findPage("searchByNamePart", QueryKey.byNamePart(namePart), page,
+				(after, limit) -> findNamePartPageIds(namePart, page, after, limit)), page,
+				"No expenses found matching name part '" + namePart + "'");
+	}
+
+	// Served by the name index only; until it is loaded, or with the index disabled,
+	// exact substring matches of the name are returned at distance 0
+	@Transactional(readOnly = true)
+	public List<ExpenseMatch> searchFuzzy(String query, int maxDistance, int limit) {
+		if (query == null || query.isBlank()) {
+			throw new InvalidInputException("query must not be blank");
 		}
-		for (Expense expense : expenses) {
-			if (expenseCache.get(expense.getId()) == null) {
-				expenseCache.put(expense.getId(), expense);
-				log.info("Expense with id {} added to cache from getExpensesByCategory", expense.getId());
-			} else {
-				log.info("Expense with id {} already in cache (getExpensesByCategory)", expense.getId());
-			}
+		if (maxDistance < 0 || maxDistance > MAX_FUZZY_DISTANCE) {
+			throw new InvalidInputException("maxDistance must be between 0 and " + MAX_FUZZY_DISTANCE);
+		}
+		if (limit < 1 || limit > MAX_FUZZY_RESULTS) {
+			throw new InvalidInputException("limit must be between 1 and " + MAX_FUZZY_RESULTS);
 		}
-		return expenses;
+		List<FuzzyIndex.Match> matches = expenseNameIndex.searchFuzzy(query, maxDistance, limit)
+				.orElseGet(() -> findPageIds(ExpenseSpecifications.nameContains(query.strip()),
+						ExpensePageRequest.first(limit), null, limit).stream()
+						.map(id -> new FuzzyIndex.Match(id, 0, null))
+						.toList());
+		Map<Long, ExpenseSnapshot> expenses = resolve(matches.stream().map(FuzzyIndex.Match::id).toList(),
+				FetchPlan.PROJECTION, "searchFuzzy").stream()
+				.collect(Collectors.toMap(ExpenseSnapshot::id, Function.identity()));
+		return matches.stream()
+				.filter(match -> expenses.containsKey(match.id()))
+				.map(match -> {
+					ExpenseSnapshot expense = expenses.get(match.id());
+					return new ExpenseMatch(expense, match.distance(),
+							match.term() != null ? match.term() : expense.name());
+				})
+				.toList();
 	}
 
 	@Transactional(readOnly = true)
-	public List<Expense> getExpensesByAmountRange(double min, double max) {
-		List<Expense> expenses = expenseRepository.findByAmountRange(min, max);
-		if (expenses.isEmpty()) {
-			throw new ResourceNotFoundException("No expenses found in amount range [" + min + ", " + max + "]");
+	public ExpensePage getExpensesByTag(String tagName, ExpensePageRequest page) {
+		return requireFound(findPage("getExpensesByTag", QueryKey.byTag(tagName),
+				ExpenseSpecifications.hasTagName(tagName), page), page,
+				"No expenses found for tag '" + tagName + "'");
+	}
+
+	@Transactional(readOnly = true)
+	public Double getExpenseAmountInCurrency(Long expenseId, String targetCurrency) {
+		ExpenseSnapshot expense = self.getExpenseById(expenseId);
+		double rate = exchangeRateService.getExchangeRate(expense.currency(), targetCurrency);
+		log.info("Converted expense id {} from {} to {} with rate {}", expenseId, expense.currency(), targetCurrency, rate);
+		return expense.amount() * rate;
+	}
+
+	private Expense findExpense(Long id) {
+		return expenseRepository.findByIdWithAssociations(id)
+				.orElseThrow(() -> expenseNotFound(id));
+	}
+
+	private static ResourceNotFoundException expenseNotFound(Long id) {
+		return new ResourceNotFoundException("Expense with ID " + id + " not found");
+	}
+
+	// Only the ids of the page are queried (one more, to tell whether there is a next
+	// page); the expenses are then resolved through ExpenseCache
+	private ExpensePage findPage(String source, QueryKey key, Specification<Expense> filter, ExpensePageRequest page) {
+		return findPage(source, key, page, (after, limit) -> findPageIds(filter, page, after, limit));
+	}
+
+	private ExpensePage findPage(String source,
+	                             QueryKey key,
+	                             ExpensePageRequest page,
+	                             BiFunction<ExpenseCursor, Integer, List<Long>> pageIds) {
+		if (page.limit() < 1 || page.limit() > ExpensePageRequest.MAX_LIMIT) {
+			throw new InvalidInputException("limit must be between 1 and " + ExpensePageRequest.MAX_LIMIT);
 		}
-		for (Expense expense : expenses) {
-			if (expenseCache.get(expense.getId()) == null) {
-				expenseCache.put(expense.getId(), expense);
-				log.info("Expense with id {} added to cache from getExpensesByAmountRange", expense.getId());
-			} else {
-				log.info("Expense with id {} already in cache (getExpensesByAmountRange)", expense.getId());
-			}
+		if (page.from() != null && page.to() != null && page.from().isAfter(page.to())) {
+			throw new InvalidInputException("from must not be after to");
 		}
-		return expenses;
+		ExpenseCursor after = page.cursor() != null ? ExpenseCursor.decode(page) : null;
+		List<Long> ids = expenseQueryCache.get(key.withPage(page), () -> pageIds.apply(after, page.limit() + 1));
+		boolean hasNext = ids.size() > page.limit();
+		List<ExpenseSnapshot> expenses = resolve(hasNext ? ids.subList(0, page.limit()) : ids, page.fetch(), source);
+		String nextCursor = hasNext && !expenses.isEmpty()
+				? ExpenseCursor.after(expenses.get(expenses.size() - 1), page).encode()
+				: null;
+		return new ExpensePage(expenses, nextCursor);
 	}
 
-	@Transactional(readOnly = true)
-	public List<Expense> searchByNamePart(String namePart) {
-		List<Expense> expenses = expenseRepository.searchByNamePart(namePart);
-		if (expenses.isEmpty()) {
-			throw new ResourceNotFoundException("No expenses found matching name part '" + namePart + "'");
+	private List<Long> findPageIds(Specification<Expense> filter, ExpensePageRequest page, ExpenseCursor after, int limit) {
+		if (page.from() != null || page.to() != null) {
+			filter = Specification.where(filter).and(ExpenseSpecifications.expenseDateBetween(page.from(), page.to()));
 		}
-		for (Expense expense : expenses) {
-			if (expenseCache.get(expense.getId()) == null) {
-				expenseCache.put(expense.getId(), expense);
-				log.info("Expense with id {} added to cache from searchByNamePart", expense.getId());
-			} else {
-				log.info("Expense with id {} already in cache (searchByNamePart)", expense.getId());
-			}
+		return expenseRepository.findPageIds(filter, page.sort(), page.direction(),
+				after != null ? after.key() : null, after != null ? after.id() : null, limit);
+	}
+
+	// Served by the name index once it is loaded. Its ids are paged in memory when sorted
+	// by id without dates, which the index does not hold; otherwise they are paged in the
+	// database, unless there are too many of them
+	private List<Long> findNamePartPageIds(String namePart, ExpensePageRequest page, ExpenseCursor after, int limit) {
+		Optional<List<Long>> indexed = expenseNameIndex.search(namePart);
+		boolean inMemory = page.sort() == ExpenseSort.ID && page.from() == null && page.to() == null;
+		if (indexed.isEmpty() || (!inMemory && indexed.get().size() > MAX_INDEXED_IDS)) {
+			return findPageIds(ExpenseSpecifications.nameContains(namePart), page, after, limit);
+		}
+		List<Long> ids = indexed.get();
+		if (inMemory) {
+			return pageOf(ids, page.direction().isAscending(), after != null ? after.id() : null, limit);
 		}
-		return expenses;
+		return ids.isEmpty() ? List.of() : findPageIds(ExpenseSpecifications.idIn(ids), page, after, limit);
 	}
 
-	@Transactional(readOnly = true)
-	public List<Expense> getExpensesByTag(String tagName) {
-		List<Expense> expenses = expenseRepository.findByTagName(tagName);
-		if (expenses.isEmpty()) {
-			throw new ResourceNotFoundException("No expenses found for tag '" + tagName + "'");
+	// The ids after afterId (all for null) in the given order, from ids in ascending order
+	private static List<Long> pageOf(List<Long> ids, boolean ascending, Long afterId, int limit) {
+		int position = afterId != null ? Collections.binarySearch(ids, afterId) : (ascending ? -1 : ids.size());
+		if (position < 0 && afterId != null) {
+			// Not found: the insertion point is where the next greater id is
+			position = ascending ? -position - 2 : -position - 1;
+		}
+		List<Long> result = new ArrayList<>(limit);
+		for (int i = ascending ? position + 1 : position - 1; i >= 0 && i < ids.size() && result.size() < limit;
+		     i += ascending ? 1 : -1) {
+			result.add(ids.get(i));
 		}
-		for (Expense expense : expenses) {
-			if (expenseCache.get(expense.getId()) == null) {
-				expenseCache.put(expense.getId(), expense);
-				log.info("Expense with id {} added to cache from getExpensesByTag", expense.getId());
-			} else {
-				log.info("Expense with id {} already in cache (getExpensesByTag)", expense.getId());
+		return result;
+	}
+
+	// Only the first page of a search reports that nothing matched
+	private static ExpensePage requireFound(ExpensePage result, ExpensePageRequest page, String message) {
+		if (result.items().isEmpty() && page.cursor() == null) {
+			throw new ResourceNotFoundException(message);
+		}
+		return result;
+	}
+
+	private List<ExpenseSnapshot> resolve(List<Long> ids, FetchPlan plan, String source) {
+		Map<Long, ExpenseSnapshot> found = new HashMap<>(expenseCache.getAll(ids));
+		List<Long> missing = ids.stream().filter(id -> !found.containsKey(id)).toList();
+		if (!missing.isEmpty()) {
+			List<ExpenseSnapshot> loaded = load(missing, plan);
+			cacheAll(loaded, source);
+			loaded.forEach(expense -> found.put(expense.id(), expense));
+		}
+		return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+	}
+
+	private List<ExpenseSnapshot> load(List<Long> ids, FetchPlan plan) {
+		return switch (plan) {
+			case JOIN_FETCH -> toSnapshots(expenseRepository.findAllByIdWithAssociations(ids));
+			case BATCH -> loadBatched(ids);
+			case PROJECTION -> expenseRepository.findViewsByIdIn(ids).stream().map(ExpenseView::toSnapshot).toList();
+		};
+	}
+
+	// Builds the snapshots from flat rows, without hydrating entities
+	private List<ExpenseSnapshot> loadBatched(List<Long> ids) {
+		List<ExpenseRow> rows = expenseRepository.findRowsByIdIn(ids);
+		Map<Long, List<TagRef>> tags = new HashMap<>();
+		for (ExpenseTagRow tag : expenseRepository.findTagRowsByExpenseIdIn(ids)) {
+			tags.computeIfAbsent(tag.expenseId(), id -> new ArrayList<>()).add(new TagRef(tag.tagId(), tag.tagName()));
+		}
+		Map<Long, CategoryRef> categories = categoriesOf(rows);
+		return rows.stream()
+				.map(row -> new ExpenseSnapshot(row.id(), row.name(), row.amount(), row.currency(), row.expenseDate(),
+						categories.get(row.categoryId()), tags.getOrDefault(row.id(), List.of())))
+				.toList();
+	}
+
+	// Categories missing from the dictionary may have been created on another node and
+	// not replicated yet, so they are read in one query
+	private Map<Long, CategoryRef> categoriesOf(List<ExpenseRow> rows) {
+		categoryDictionary.ensureLoaded(categoryRepository::findAll);
+		Map<Long, CategoryRef> categories = new HashMap<>();
+		Set<Long> missing = new HashSet<>();
+		for (ExpenseRow row : rows) {
+			Long id = row.categoryId();
+			if (id != null && !categories.containsKey(id)) {
+				categoryDictionary.get(id).ifPresentOrElse(
+						category -> categories.put(id, new CategoryRef(category.getId(), category.getName())),
+						() -> missing.add(id));
 			}
 		}
-		return expenses;
+		if (!missing.isEmpty()) {
+			categoryRepository.findAllById(missing)
+					.forEach(category -> categories.put(category.getId(), new CategoryRef(category.getId(), category.getName())));
+		}
+		return categories;
 	}
 
-	@Transactional(readOnly = true)
-	public Double getExpenseAmountInCurrency(Long expenseId, String targetCurrency) {
-		Expense expense = self.getExpenseById(expenseId);
-		double rate = exchangeRateService.getExchangeRate(expense.getCurrency(), targetCurrency);
-		log.info("Converted expense id {} from {} to {} with rate {}", expenseId, expense.getCurrency(), targetCurrency, rate);
-		return expense.getAmount() * rate;
+	private void cacheAll(List<ExpenseSnapshot> expenses, String source) {
+		Map<Long, ExpenseSnapshot> byId = expenses.stream()
+				.collect(Collectors.toMap(ExpenseSnapshot::id, Function.identity(), (first, second) -> first));
+		int added = expenseCache.putAllIfAbsent(byId);
+		log.info("{}: {} expenses loaded, {} added to cache", source, expenses.size(), added);
+	}
+
+	private List<ExpenseSnapshot> toSnapshots(List<Expense> expenses) {
+		return expenses.stream().map(ExpenseSnapshot::of).toList();
 	}
 
-	private List<Tag> resolveTags(List<String> tagNames) {
-		List<Tag> tags = new ArrayList<>();
+	// A name missing from the dictionary may belong to a row created on another node
+	// that has not been replicated yet, so it is looked up before giving up
+	private Category findCategory(String name) {
+		return categoryDictionary.ensureLoaded(categoryRepository::findAll).find(name)
+				.or(() -> categoryRepository.findByNameIgnoreCase(name))
+				.orElseThrow(() -> new ResourceNotFoundException(CAT_PR + name + CAT_PSF));
+	}
+
+	// Tags by lower-cased name. Names missing from the dictionary are looked up with one
+	// IN query; those still missing are inserted with a single statement that skips names
+	// a concurrent transaction inserted first, and then read back
+	private Map<String, Tag> resolveTags(Collection<String> tagNames) {
+		tagDictionary.ensureLoaded(tagRepository::findAll);
+		Map<String, String> missing = new LinkedHashMap<>();
+		Map<String, Tag> tags = new HashMap<>();
 		for (String tagName : tagNames) {
-			Tag tag = tagRepository.findByNameIgnoreCase(tagName)
-					.orElseGet(() -> {
-						Tag newTag = new Tag(tagName);
-						Tag savedTag = tagRepository.save(newTag);
-						log.info("New tag with name '{}' created and saved", tagName);
-						return savedTag;
-					});
-			tags.add(tag);
+			if (!TAG_NAME.matcher(tagName).matches()) {
+				throw new InvalidInputException(TagDTO.NAME_PATTERN_MESSAGE);
+			}
+			String key = tagKey(tagName);
+			if (!tags.containsKey(key)) {
+				tagDictionary.find(tagName).ifPresentOrElse(tag -> tags.put(key, tag),
+						() -> missing.putIfAbsent(key, tagName));
+			}
+		}
+		if (missing.isEmpty()) {
+			return tags;
+		}
+		tagRepository.findAllByLowerNameIn(missing.keySet()).forEach(tag -> tags.put(tagKey(tag.getName()), tag));
+		List<String> newNames = missing.entrySet().stream()
+				.filter(name -> !tags.containsKey(name.getKey()))
+				.map(Map.Entry::getValue)
+				.toList();
+		if (!newNames.isEmpty()) {
+			tagRepository.insertIgnoringDuplicates(newNames);
+			List<Tag> created = tagRepository.findAllByLowerNameIn(newNames.stream().map(ExpenseService::tagKey).toList());
+			created.forEach(tag -> tags.put(tagKey(tag.getName()), tag));
+			CacheTransactions.afterCommit(() -> {
+				created.forEach(tagDictionary::put);
+				invalidationBus.publishAdded(tagDictionary.getName(), created.stream().map(Tag::getId).toList());
+			});
+			log.info("{} new tags created", created.size());
 		}
 		return tags;
 	}
 
+	private static Set<String> tagNamesOf(List<ExpenseDTO> expenseDTOs) {
+		Set<String> tagNames = new LinkedHashSet<>();
+		for (ExpenseDTO dto : expenseDTOs) {
+			if (dto.getTags() != null) {
+				tagNames.addAll(dto.getTags());
+			}
+		}
+		return tagNames;
+	}
+
+	private static String tagKey(String tagName) {
+		return tagName.toLowerCase(Locale.ROOT);
+	}
+
 	private boolean isNotBlank(String value) {
 		return value != null && !value.isBlank();
 	}
 
 	@Transactional
-	public List<Expense> createExpensesBulk(List<ExpenseDTO> expenseDTOs) {
+	public List<ExpenseSnapshot> createExpensesBulk(List<ExpenseDTO> expenseDTOs) {
+		Map<String, Tag> tags = resolveTags(tagNamesOf(expenseDTOs));
 		List<Expense> expenses = expenseDTOs.stream()
-				.map(this::buildExpenseFromDTO)
+				.map(dto -> buildExpenseFromDTO(dto, tags))
 				.toList();
 
-		List<Expense> savedExpenses = expenseRepository.saveAll(expenses);
+		List<ExpenseSnapshot> savedExpenses = toSnapshots(expenseRepository.saveAll(expenses));
+		expenseTotalsService.applyChange(List.of(), savedExpenses);
 
-		savedExpenses.forEach(exp -> {
-			expenseCache.put(exp.getId(), exp);
-			log.info("Expense with id {} created in bulk and cached", exp.getId());
+		CacheTransactions.afterCommit(() -> {
+			savedExpenses.forEach(exp -> expenseCache.put(exp.id(), exp));
+			savedExpenses.forEach(expenseNameIndex::put);
+			expenseQueryCache.invalidate(savedExpenses);
+			invalidationBus.publish(expenseCache.getName(), savedExpenses.stream().map(ExpenseSnapshot::id).toList());
 		});
+		log.info("{} expenses created in bulk and cached", savedExpenses.size());
 
 		return savedExpenses;
 	}
 
-	private Expense buildExpenseFromDTO(ExpenseDTO dto) {
-		Category category = categoryRepository
-				.findByNameIgnoreCase(dto.getCategory())
-				.orElseThrow(() -> new ResourceNotFoundException(
-						CAT_PR + dto.getCategory() + CAT_PSF));
+	private Expense buildExpenseFromDTO(ExpenseDTO dto, Map<String, Tag> tags) {
+		Category category = findCategory(dto.getCategory());
 
 		Expense e = new Expense();
 		e.setName(dto.getName());
 		e.setAmount(dto.getAmount());
 		e.setCurrency(dto.getCurrency());
 		e.setCategory(category);
+		e.setExpenseDate(dto.getExpenseDate() != null ? dto.getExpenseDate() : LocalDate.now());
 
 		if (dto.getTags() != null && !dto.getTags().isEmpty()) {
-			e.getTags().addAll(resolveTags(new ArrayList<>(dto.getTags())));
+			dto.getTags().forEach(tagName -> e.getTags().add(tags.get(tagKey(tagName))));
 		}
 		return e;
 	}
@@ -0,0 +1,270 @@
+package com.expensemanager.service;
+
+import com.expensemanager.config.TotalsProperties;
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.dto.ExpenseSnapshot.TagRef;
+import com.expensemanager.dto.ExpenseTotal;
+import com.expensemanager.dto.ExpenseTotalsRebuild;
+import com.expensemanager.dto.ExpenseTotalsRequest;
+import com.expensemanager.exception.InvalidInputException;
+import com.expensemanager.model.Expense;
+import com.expensemanager.repository.ExpenseRepository;
+import com.expensemanager.repository.ExpenseSpecifications;
+import com.expensemanager.repository.ExpenseTotalsRepository;
+import com.expensemanager.repository.TotalRow;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Aggregates of expense amounts. getTotals groups the matching expenses in the database,
+// so that only one row per group is read instead of every expense. The running totals per
+// (category, currency) and (tag, currency) are kept up to date by applyChange, called by
+// ExpenseService in the transaction of every write, so reading them costs one row per
+// group whatever the number of expenses.
+@Slf4j
+@Service
+public class ExpenseTotalsService {
+
+	private record Group(Long id, String currency) {
+	}
+
+	// Amounts that left and joined a group
+	private record Delta(List<Double> removed, List<Double> added) {
+
+		Delta() {
+			this(new ArrayList<>(), new ArrayList<>());
+		}
+
+		// An expense updated without moving groups or changing its amount cancels out
+		Delta net() {
+			List<Double> netAdded = new ArrayList<>(added);
+			List<Double> netRemoved = new ArrayList<>();
+			for (Double amount : removed) {
+				if (!netAdded.remove(amount)) {
+					netRemoved.add(amount);
+				}
+			}
+			return new Delta(netRemoved, netAdded);
+		}
+
+		boolean isEmpty() {
+			return removed.isEmpty() && added.isEmpty();
+		}
+	}
+
+	@FunctionalInterface
+	private interface TotalAdder {
+
+		void add(Long groupId, String currency, long count, double sum, double min, double max);
+	}
+
+	@FunctionalInterface
+	private interface RangeRefresher {
+
+		void refresh(Long groupId, String currency, double removedMin, double removedMax);
+	}
+
+	private record Totals(long count, double sum, Double min, Double max) {
+
+		boolean matches(Totals other) {
+			return other != null
+					&& count == other.count
+					&& Math.abs(sum - other.sum) <= SUM_TOLERANCE * Math.max(1, Math.abs(sum))
+					&& Objects.equals(min, other.min)
+					&& Objects.equals(max, other.max);
+		}
+	}
+
+	// Relative difference below which sums are equal, as adding deltas rounds differently
+	private static final double SUM_TOLERANCE = 1e-9;
+	// The order in which applyChange upserts the total rows, and so locks them: writes
+	// touching the same groups lock them in the same order and cannot deadlock each other
+	private static final Comparator<Group> GROUP_ORDER = Comparator.comparing(Group::id).thenComparing(Group::currency);
+
+	private final ExpenseRepository expenseRepository;
+	private final ExpenseTotalsRepository expenseTotalsRepository;
+	private final boolean maintainRunning;
+
+	public ExpenseTotalsService(ExpenseRepository expenseRepository,
+	                            ExpenseTotalsRepository expenseTotalsRepository,
+	                            TotalsProperties totalsProperties) {
+		this.expenseRepository = expenseRepository;
+		this.expenseTotalsRepository = expenseTotalsRepository;
+		this.maintainRunning = totalsProperties.isMaintainRunning();
+	}
+
+	@Transactional(readOnly = true)
+	public List<ExpenseTotal> getTotals(ExpenseTotalsRequest request) {
+		List<ExpenseTotal> totals = expenseRepository.findTotals(filterOf(request), request.groupBy());
+		log.info("Expense totals grouped by {}: {} groups", request.groupBy(), totals.size());
+		return totals;
+	}
+
+	@Transactional(readOnly = true)
+	public List<ExpenseTotal> getCategoryTotals() {
+		return expenseTotalsRepository.findCategoryTotals().stream()
+				.map(row -> new ExpenseTotal(row.getGroupId(), row.getGroupName(), null, null, row.getCurrency(),
+						row.getCount(), row.getSum(), row.getMin(), row.getMax(), row.getSum() / row.getCount()))
+				.toList();
+	}
+
+	@Transactional(readOnly = true)
+	public List<ExpenseTotal> getTagTotals() {
+		return expenseTotalsRepository.findTagTotals().stream()
+				.map(row -> new ExpenseTotal(null, null, row.getGroupId(), row.getGroupName(), row.getCurrency(),
+						row.getCount(), row.getSum(), row.getMin(), row.getMax(), row.getSum() / row.getCount()))
+				.toList();
+	}
+
+	// Applies a write to the running totals: before holds the changed expenses as they
+	// were (empty for a create), after as they are now (empty for a delete). Must run in
+	// the transaction of the write.
+	@Transactional
+	public void applyChange(List<ExpenseSnapshot> before, List<ExpenseSnapshot> after) {
+		if (!maintainRunning) {
+			return;
+		}
+		Map<Group, Delta> categories = new TreeMap<>(GROUP_ORDER);
+		Map<Group, Delta> tags = new TreeMap<>(GROUP_ORDER);
+		before.forEach(expense -> collect(expense, categories, tags, Delta::removed));
+		after.forEach(expense -> collect(expense, categories, tags, Delta::added));
+		categories.replaceAll((group, delta) -> delta.net());
+		tags.replaceAll((group, delta) -> delta.net());
+		categories.values().removeIf(Delta::isEmpty);
+		tags.values().removeIf(Delta::isEmpty);
+		if (categories.isEmpty() && tags.isEmpty()) {
+			return;
+		}
+		// The ranges are recomputed from the expenses as changed by this transaction
+		expenseRepository.flush();
+		boolean removed = apply(categories, expenseTotalsRepository::addCategoryTotal,
+				expenseTotalsRepository::refreshCategoryRange);
+		removed |= apply(tags, expenseTotalsRepository::addTagTotal, expenseTotalsRepository::refreshTagRange);
+		if (removed) {
+			expenseTotalsRepository.deleteEmptyCategoryTotals();
+			expenseTotalsRepository.deleteEmptyTagTotals();
+		}
+	}
+
+	// Recomputes the running totals from the expenses, for verification or after a bulk
+	// change made outside ExpenseService
+	@Transactional
+	public ExpenseTotalsRebuild rebuildTotals() {
+		expenseTotalsRepository.lockTotals();
+		Map<Group, Totals> categoriesBefore = totalsOf(expenseTotalsRepository.findCategoryTotals());
+		Map<Group, Totals> tagsBefore = totalsOf(expenseTotalsRepository.findTagTotals());
+		expenseTotalsRepository.deleteCategoryTotals();
+		expenseTotalsRepository.deleteTagTotals();
+		expenseTotalsRepository.insertCategoryTotals();
+		expenseTotalsRepository.insertTagTotals();
+		Map<Group, Totals> categoriesAfter = totalsOf(expenseTotalsRepository.findCategoryTotals());
+		Map<Group, Totals> tagsAfter = totalsOf(expenseTotalsRepository.findTagTotals());
+		int corrected = differences(categoriesBefore, categoriesAfter) + differences(tagsBefore, tagsAfter);
+		if (corrected > 0) {
+			log.warn("Running expense totals had drifted in {} groups", corrected);
+		}
+		log.info("Running expense totals rebuilt: {} category groups, {} tag groups",
+				categoriesAfter.size(), tagsAfter.size());
+		return new ExpenseTotalsRebuild(categoriesAfter.size(), tagsAfter.size(), corrected);
+	}
+
+	private static void collect(ExpenseSnapshot expense,
+	                            Map<Group, Delta> categories,
+	                            Map<Group, Delta> tags,
+	                            Function<Delta, List<Double>> side) {
+		if (expense.currency() == null) {
+			return;
+		}
+		if (expense.category() != null) {
+			side.apply(categories.computeIfAbsent(new Group(expense.category().id(), expense.currency()), group -> new Delta()))
+					.add(expense.amount());
+		}
+		for (TagRef tag : expense.tags()) {
+			side.apply(tags.computeIfAbsent(new Group(tag.id(), expense.currency()), group -> new Delta()))
+					.add(expense.amount());
+		}
+	}
+
+	// Returns whether any amount was removed
+	private static boolean apply(Map<Group, Delta> deltas, TotalAdder adder, RangeRefresher refresher) {
+		boolean removed = false;
+		for (Map.Entry<Group, Delta> entry : deltas.entrySet()) {
+			Group group = entry.getKey();
+			Delta delta = entry.getValue();
+			DoubleSummaryStatistics added = amounts(delta.added());
+			DoubleSummaryStatistics gone = amounts(delta.removed());
+			adder.add(group.id(), group.currency(), delta.added().size() - delta.removed().size(),
+					added.getSum() - gone.getSum(), added.getMin(), added.getMax());
+			if (gone.getCount() > 0) {
+				refresher.refresh(group.id(), group.currency(), gone.getMin(), gone.getMax());
+			}
+			removed |= !delta.removed().isEmpty();
+		}
+		return removed;
+	}
+
+	// Infinite min and max without amounts
+	private static DoubleSummaryStatistics amounts(List<Double> amounts) {
+		return amounts.stream().filter(Objects::nonNull).mapToDouble(Double::doubleValue).summaryStatistics();
+	}
+
+	private static Map<Group, Totals> totalsOf(List<TotalRow> rows) {
+		Map<Group, Totals> totals = new HashMap<>();
+		rows.forEach(row -> totals.put(new Group(row.getGroupId(), row.getCurrency()),
+				new Totals(row.getCount(), row.getSum(), row.getMin(), row.getMax())));
+		return totals;
+	}
+
+	private static int differences(Map<Group, Totals> before, Map<Group, Totals> after) {
+		Set<Group> groups = new HashSet<>(before.keySet());
+		groups.addAll(after.keySet());
+		return (int) groups.stream()
+				.filter(group -> after.get(group) == null || !after.get(group).matches(before.get(group)))
+				.count();
+	}
+
+	private static Specification<Expense> filterOf(ExpenseTotalsRequest request) {
+		Double min = request.minAmount();
+		Double max = request.maxAmount();
+		if (min != null && max != null && min > max) {
+			throw new InvalidInputException("minAmount must not be greater than maxAmount");
+		}
+		if (request.from() != null && request.to() != null && request.from().isAfter(request.to())) {
+			throw new InvalidInputException("from must not be after to");
+		}
+		Specification<Expense> filter = Specification.where(null);
+		if (isNotBlank(request.category())) {
+			filter = filter.and(ExpenseSpecifications.hasCategoryName(request.category()));
+		}
+		if (isNotBlank(request.tag())) {
+			filter = filter.and(ExpenseSpecifications.hasTagName(request.tag()));
+		}
+		if (isNotBlank(request.currency())) {
+			filter = filter.and(ExpenseSpecifications.hasCurrency(request.currency()));
+		}
+		if (min != null || max != null) {
+			filter = filter.and(ExpenseSpecifications.amountBetween(
+					min != null ? min : -Double.MAX_VALUE, max != null ? max : Double.MAX_VALUE));
+		}
+		if (request.from() != null || request.to() != null) {
+			filter = filter.and(ExpenseSpecifications.expenseDateBetween(request.from(), request.to()));
+		}
+		return filter;
+	}
+
+	private static boolean isNotBlank(String value) {
+		return value != null && !value.isBlank();
+	}
+}
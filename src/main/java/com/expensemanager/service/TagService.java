@@ -1,53 +1,68 @@
 package com.expensemanager.service;
 
+import com.expensemanager.cache.CacheTransactions;
+import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.ExpenseQueryCache;
+import com.expensemanager.cache.ExpenseQueryCache.QueryType;
 import com.expensemanager.cache.TagCache;
+import com.expensemanager.cache.TagDictionary;
+import com.expensemanager.cache.invalidation.CacheInvalidationBus;
 import com.expensemanager.dto.TagDTO;
 import com.expensemanager.exception.ResourceNotFoundException;
 import com.expensemanager.model.Tag;
+import com.expensemanager.repository.ExpenseRepository;
 import com.expensemanager.repository.TagRepository;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
 @Service
 public class TagService {
 
 	private final TagRepository tagRepository;
+	private final ExpenseRepository expenseRepository;
 	private final TagCache tagCache;
+	private final TagDictionary tagDictionary;
+	private final ExpenseCache expenseCache;
+	private final ExpenseQueryCache expenseQueryCache;
+	private final ExpenseNameIndexService expenseNameIndexService;
+	private final CacheInvalidationBus invalidationBus;
 
 	@Autowired
-	public TagService(TagRepository tagRepository, TagCache tagCache) {
+	public TagService(TagRepository tagRepository,
+	                  ExpenseRepository expenseRepository,
+	                  TagCache tagCache,
+	                  TagDictionary tagDictionary,
+	                  ExpenseCache expenseCache,
+	                  ExpenseQueryCache expenseQueryCache,
+	                  ExpenseNameIndexService expenseNameIndexService,
+	                  CacheInvalidationBus invalidationBus) {
 		this.tagRepository = tagRepository;
+		this.expenseRepository = expenseRepository;
 		this.tagCache = tagCache;
+		this.tagDictionary = tagDictionary;
+		this.expenseCache = expenseCache;
+		this.expenseQueryCache = expenseQueryCache;
+		this.expenseNameIndexService = expenseNameIndexService;
+		this.invalidationBus = invalidationBus;
 	}
 
 	public List<Tag> getAllTags() {
-		List<Tag> tags = tagRepository.findAll();
-		log.info("Retrieved {} tags from repository", tags.size());
-		for (Tag tag : tags) {
-			if (tagCache.get(tag.getId()) == null) {
-				tagCache.put(tag.getId(), tag);
-				log.info("Tag with id {} added to cache", tag.getId());
-			} else {
-				log.info("Tag with id {} already exists in cache", tag.getId());
-			}
-		}
+		List<Tag> tags = tagDictionary.ensureLoaded(tagRepository::findAll).all();
+		log.info("Retrieved {} tags from dictionary", tags.size());
 		return tags;
 	}
 
 	public Tag getTagById(Long id) {
-		Tag cachedTag = tagCache.get(id);
-		if (cachedTag != null) {
-			log.info("Tag with id {} retrieved from cache", id);
-			return cachedTag;
-		}
-		Tag tag = tagRepository.findById(id)
-				.orElseThrow(() -> new ResourceNotFoundException("Tag with ID " + id + " not found"));
-		tagCache.put(id, tag);
-		log.info("Tag with id {} retrieved from repository and added to cache in getTagById", id);
-		return tag;
+		return tagCache.get(id, key -> {
+			Tag tag = tagRepository.findById(key)
+					.orElseThrow(() -> new ResourceNotFoundException("Tag with ID " + key + " not found"));
+			log.info("Tag with id {} retrieved from repository and added to cache in getTagById", key);
+			return tag;
+		});
 	}
 
 	public Tag createTag(TagDTO tagDTO) {
@@ -56,25 +71,49 @@ public class TagService {
 		tag.setName(tagDTO.getName());
 		Tag savedTag = tagRepository.save(tag);
 		tagCache.put(savedTag.getId(), savedTag);
+		tagDictionary.put(savedTag);
+		invalidationBus.publishAdded(tagDictionary.getName(), List.of(savedTag.getId()));
 		log.info("Tag with id {} created and added to cache in createTag", savedTag.getId());
 		return savedTag;
 	}
 
+	@Transactional
 	public Tag updateTag(Long id, TagDTO tagDTO) {
 		Tag existing = getTagById(id);
 		log.info("Updating tag id={} with new name={}", id, tagDTO.getName());
 		existing.setName(tagDTO.getName());
+		List<Long> expenseIds = expenseRepository.findIdsByTagIdIn(List.of(id));
 		Tag updatedTag = tagRepository.save(existing);
-		tagCache.put(id, updatedTag);
+		CacheTransactions.afterCommit(() -> {
+			tagCache.put(id, updatedTag);
+			tagDictionary.put(updatedTag);
+			evictExpensesWithTag(id, expenseIds);
+			invalidationBus.publish(tagCache.getName(), id);
+		});
 		log.info("Tag with id {} updated and cache refreshed", id);
 		return updatedTag;
 	}
 
+	@Transactional
 	public void deleteTag(Long id) {
 		Tag existing = getTagById(id);
 		log.warn("Deleting tag id={}", id);
+		List<Long> expenseIds = expenseRepository.findIdsByTagIdIn(List.of(id));
 		tagRepository.delete(existing);
-		tagCache.remove(id);
+		CacheTransactions.afterCommit(() -> {
+			tagCache.remove(id);
+			tagDictionary.remove(id);
+			evictExpensesWithTag(id, expenseIds);
+			invalidationBus.publish(tagCache.getName(), id);
+		});
 		log.info("Tag with id {} removed from cache", id);
 	}
+
+	// Cached expenses and tag queries hold the old name, and so do the terms of the name
+	// index; the other nodes do the same on the invalidation of the tag
+	private void evictExpensesWithTag(Long id, List<Long> expenseIds) {
+		expenseCache.removeWithTags(List.of(id));
+		expenseQueryCache.invalidate(QueryType.TAG);
+		expenseNameIndexService.refresh(expenseIds);
+	}
 }
@@ -0,0 +1,29 @@
+-- The schema Hibernate created with ddl-auto=update. Databases created that way are
+-- baselined at this version (spring.flyway.baseline-on-migrate) and start from V2.
+
+CREATE TABLE categories (
+	id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	name VARCHAR(255) NOT NULL CONSTRAINT categories_name_key UNIQUE
+);
+
+CREATE TABLE tags (
+	id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	name VARCHAR(255) NOT NULL CONSTRAINT tags_name_key UNIQUE
+);
+
+-- Hibernate's pooled optimizer takes 50 ids per nextval, see Expense
+CREATE SEQUENCE expenses_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE expenses (
+	id          BIGINT PRIMARY KEY,
+	name        VARCHAR(255),
+	amount      DOUBLE PRECISION,
+	currency    VARCHAR(255),
+	category_id BIGINT CONSTRAINT expenses_category_id_fkey REFERENCES categories (id)
+);
+
+CREATE TABLE expense_tag (
+	expense_id BIGINT NOT NULL CONSTRAINT expense_tag_expense_id_fkey REFERENCES expenses (id),
+	tag_id     BIGINT NOT NULL CONSTRAINT expense_tag_tag_id_fkey REFERENCES tags (id),
+	PRIMARY KEY (expense_id, tag_id)
+);
@@ -0,0 +1,45 @@
+-- Databases created by ddl-auto=update are baselined at V1 without running it, and differ
+-- from it: every id is an identity column, expenses_seq only exists if they were created
+-- after Expense switched to it, and Hibernate generated the names of the unique and
+-- foreign key constraints. This brings them in line with V1; on a database created by V1
+-- it changes nothing but the sequence value.
+
+CREATE SEQUENCE IF NOT EXISTS expenses_seq START WITH 1 INCREMENT BY 50;
+
+-- Expense ids come from expenses_seq, see Expense
+ALTER TABLE expenses ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+DO $$
+DECLARE
+	expected RECORD;
+	current_name TEXT;
+BEGIN
+	FOR expected IN
+		SELECT * FROM (VALUES
+			('categories', 'u', 'name', 'categories_name_key'),
+			('tags', 'u', 'name', 'tags_name_key'),
+			('expenses', 'f', 'category_id', 'expenses_category_id_fkey'),
+			('expense_tag', 'f', 'expense_id', 'expense_tag_expense_id_fkey'),
+			('expense_tag', 'f', 'tag_id', 'expense_tag_tag_id_fkey')
+		) AS v (table_name, constraint_type, column_name, constraint_name)
+	LOOP
+		SELECT c.conname INTO current_name
+		FROM pg_constraint c
+		JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+		WHERE c.conrelid = expected.table_name::regclass
+			AND c.contype = expected.constraint_type::"char"
+			AND cardinality(c.conkey) = 1
+			AND a.attname = expected.column_name;
+		IF current_name IS NOT NULL AND current_name <> expected.constraint_name THEN
+			EXECUTE format('ALTER TABLE %I RENAME CONSTRAINT %I TO %I',
+					expected.table_name, current_name, expected.constraint_name);
+		END IF;
+	END LOOP;
+END
+$$;
+
+-- Moves the expense id sequence past ids assigned before it replaced the identity column.
+-- Hibernate's pooled optimizer uses the ids (value - 50, value] of every nextval, hence + 50.
+SELECT setval('expenses_seq', GREATEST(
+		(SELECT last_value FROM expenses_seq),
+		(SELECT COALESCE(MAX(id), 0) + 50 FROM expenses)));
@@ -0,0 +1,41 @@
+-- One index per query shape of ExpenseRepository, TagRepository and CategoryRepository;
+-- QueryPlanTest checks that each query uses its index. The expense indexes end with id
+-- because keyset pages are ordered by (key, id), see ExpenseRepositoryImpl.
+
+-- Expenses of a category, ordered by id
+CREATE INDEX IF NOT EXISTS expenses_category_id_idx ON expenses (category_id, id);
+
+-- Amount ranges, and pages sorted by amount
+CREATE INDEX IF NOT EXISTS expenses_amount_id_idx ON expenses (amount, id);
+
+-- Pages sorted by name
+CREATE INDEX IF NOT EXISTS expenses_name_id_idx ON expenses (name, id);
+
+-- LOWER(name) LIKE '%part%', when the name index is not served from memory
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS expenses_lower_name_trgm_idx ON expenses USING gin (LOWER(name) gin_trgm_ops);
+
+-- Expenses with a tag; the primary key only serves lookups by expense_id
+CREATE INDEX IF NOT EXISTS expense_tag_tag_id_idx ON expense_tag (tag_id, expense_id);
+
+-- Tag names are unique whatever their case, as tags are resolved by their lower-cased name
+-- (see TagRepository.insertIgnoringDuplicates). Tags that differ only in case are merged
+-- into the oldest one first.
+CREATE TEMPORARY TABLE merged_tags AS
+SELECT id, MIN(id) OVER (PARTITION BY LOWER(name)) AS kept_id FROM tags;
+
+INSERT INTO expense_tag (expense_id, tag_id)
+SELECT et.expense_id, m.kept_id
+FROM expense_tag et JOIN merged_tags m ON m.id = et.tag_id
+WHERE m.id <> m.kept_id
+ON CONFLICT DO NOTHING;
+
+DELETE FROM expense_tag et USING merged_tags m WHERE m.id = et.tag_id AND m.id <> m.kept_id;
+DELETE FROM tags t USING merged_tags m WHERE m.id = t.id AND m.id <> m.kept_id;
+DROP TABLE merged_tags;
+
+-- Case-insensitive lookups by name, and the uniqueness of tag names; exact category
+-- lookups use categories_name_key
+ALTER TABLE tags DROP CONSTRAINT tags_name_key;
+CREATE UNIQUE INDEX IF NOT EXISTS tags_lower_name_idx ON tags (LOWER(name));
+CREATE INDEX IF NOT EXISTS categories_lower_name_idx ON categories (LOWER(name));
@@ -0,0 +1,38 @@
+-- Running totals of the expense amounts, maintained by ExpenseTotalsService in the
+-- transaction of every expense write. Expenses without a category or currency are not
+-- counted. amount_min and amount_max are null while no expense of the group has an amount.
+
+CREATE TABLE expense_category_totals (
+	category_id   BIGINT NOT NULL CONSTRAINT expense_category_totals_category_id_fkey
+		REFERENCES categories (id) ON DELETE CASCADE,
+	currency      VARCHAR(255) NOT NULL,
+	expense_count BIGINT NOT NULL,
+	amount_sum    DOUBLE PRECISION NOT NULL,
+	amount_min    DOUBLE PRECISION,
+	amount_max    DOUBLE PRECISION,
+	PRIMARY KEY (category_id, currency)
+);
+
+CREATE TABLE expense_tag_totals (
+	tag_id        BIGINT NOT NULL CONSTRAINT expense_tag_totals_tag_id_fkey
+		REFERENCES tags (id) ON DELETE CASCADE,
+	currency      VARCHAR(255) NOT NULL,
+	expense_count BIGINT NOT NULL,
+	amount_sum    DOUBLE PRECISION NOT NULL,
+	amount_min    DOUBLE PRECISION,
+	amount_max    DOUBLE PRECISION,
+	PRIMARY KEY (tag_id, currency)
+);
+
+INSERT INTO expense_category_totals (category_id, currency, expense_count, amount_sum, amount_min, amount_max)
+SELECT category_id, currency, COUNT(*), COALESCE(SUM(amount), 0), MIN(amount), MAX(amount)
+FROM expenses
+WHERE category_id IS NOT NULL AND currency IS NOT NULL
+GROUP BY category_id, currency;
+
+INSERT INTO expense_tag_totals (tag_id, currency, expense_count, amount_sum, amount_min, amount_max)
+SELECT et.tag_id, e.currency, COUNT(*), COALESCE(SUM(e.amount), 0), MIN(e.amount), MAX(e.amount)
+FROM expenses e
+JOIN expense_tag et ON et.expense_id = e.id
+WHERE e.currency IS NOT NULL
+GROUP BY et.tag_id, e.currency;
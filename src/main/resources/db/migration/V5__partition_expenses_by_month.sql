@@ -0,0 +1,100 @@
+-- Expenses are dated and stored in one partition per month of expense_date, so that a
+-- search bounded by dates reads only the partitions of its months, and old months can be
+-- archived by detaching their partitions (see ExpensePartitionService). A partitioned
+-- table only enforces unique keys that include the partition key: the primary key
+-- becomes (id, expense_date), ids stay unique through expenses_seq, and expense_tag no
+-- longer references expenses. Existing expenses are dated on the day of the migration.
+
+ALTER TABLE expense_tag DROP CONSTRAINT expense_tag_expense_id_fkey;
+
+ALTER TABLE expenses RENAME TO expenses_unpartitioned;
+ALTER TABLE expenses_unpartitioned RENAME CONSTRAINT expenses_pkey TO expenses_unpartitioned_pkey;
+DROP INDEX IF EXISTS expenses_category_id_idx, expenses_amount_id_idx, expenses_name_id_idx,
+	expenses_lower_name_trgm_idx;
+
+CREATE TABLE expenses (
+	id           BIGINT NOT NULL,
+	name         VARCHAR(255),
+	amount       DOUBLE PRECISION,
+	currency     VARCHAR(255),
+	category_id  BIGINT CONSTRAINT expenses_category_id_fkey REFERENCES categories (id),
+	expense_date DATE   NOT NULL,
+	CONSTRAINT expenses_pkey PRIMARY KEY (id, expense_date)
+) PARTITION BY RANGE (expense_date);
+
+-- Expenses of months without a partition
+CREATE TABLE expenses_default PARTITION OF expenses DEFAULT;
+
+-- Creates the partition expenses_<yyyy>_<mm> of the month of the given day, unless it
+-- exists, and moves the expenses of that month out of the default partition. The table
+-- is attached once filled, since a partition cannot be created while the default
+-- partition holds rows of its range. Returns the name of the partition.
+CREATE FUNCTION create_expense_partition(month_day DATE) RETURNS TEXT AS $$
+DECLARE
+	month_start DATE := date_trunc('month', month_day);
+	month_end DATE := date_trunc('month', month_day) + INTERVAL '1 month';
+	partition_name TEXT := 'expenses_' || to_char(month_day, 'YYYY_MM');
+BEGIN
+	-- Serializes the nodes creating and archiving partitions
+	PERFORM pg_advisory_xact_lock(hashtext('expense_partitions'));
+	IF to_regclass(partition_name) IS NOT NULL THEN
+		RETURN partition_name;
+	END IF;
+	EXECUTE format('CREATE TABLE %I (LIKE expenses INCLUDING DEFAULTS)', partition_name);
+	EXECUTE format('WITH moved AS (DELETE FROM expenses_default WHERE expense_date >= %L AND expense_date < %L '
+			|| 'RETURNING *) INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+	EXECUTE format('ALTER TABLE expenses ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+			partition_name, month_start, month_end);
+	RETURN partition_name;
+END
+$$ LANGUAGE plpgsql;
+
+-- Detaches the partition of the month of the given day and renames it to
+-- archived_expenses_<yyyy>_<mm>; the tag links of its expenses are moved to
+-- archived_expense_tag_<yyyy>_<mm>. The archive keeps no foreign keys, so that it does
+-- not prevent categories from being deleted. Returns the name of the archived table,
+-- or NULL if the month has no partition.
+CREATE FUNCTION archive_expense_partition(month_day DATE) RETURNS TEXT AS $$
+DECLARE
+	partition_name TEXT := 'expenses_' || to_char(month_day, 'YYYY_MM');
+	archive_name TEXT := 'archived_expenses_' || to_char(month_day, 'YYYY_MM');
+	tag_archive_name TEXT := 'archived_expense_tag_' || to_char(month_day, 'YYYY_MM');
+	foreign_key TEXT;
+BEGIN
+	PERFORM pg_advisory_xact_lock(hashtext('expense_partitions'));
+	IF NOT EXISTS (SELECT 1 FROM pg_inherits
+	               WHERE inhparent = 'expenses'::regclass AND inhrelid = to_regclass(partition_name)) THEN
+		RETURN NULL;
+	END IF;
+	EXECUTE format('ALTER TABLE expenses DETACH PARTITION %I', partition_name);
+	EXECUTE format('ALTER TABLE %I RENAME TO %I', partition_name, archive_name);
+	FOR foreign_key IN
+		SELECT conname FROM pg_constraint WHERE conrelid = to_regclass(archive_name) AND contype = 'f'
+	LOOP
+		EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', archive_name, foreign_key);
+	END LOOP;
+	EXECUTE format('CREATE TABLE %I AS SELECT et.* FROM expense_tag et JOIN %I e ON e.id = et.expense_id',
+			tag_archive_name, archive_name);
+	EXECUTE format('DELETE FROM expense_tag et USING %I e WHERE e.id = et.expense_id', archive_name);
+	RETURN archive_name;
+END
+$$ LANGUAGE plpgsql;
+
+-- Existing expenses go straight into the partition of the current month
+SELECT create_expense_partition(CURRENT_DATE);
+
+INSERT INTO expenses (id, name, amount, currency, category_id, expense_date)
+SELECT id, name, amount, currency, category_id, CURRENT_DATE
+FROM expenses_unpartitioned;
+
+DROP TABLE expenses_unpartitioned;
+
+-- The indexes of V3, created on every partition
+CREATE INDEX expenses_category_id_idx ON expenses (category_id, id);
+CREATE INDEX expenses_amount_id_idx ON expenses (amount, id);
+CREATE INDEX expenses_name_id_idx ON expenses (name, id);
+CREATE INDEX expenses_lower_name_trgm_idx ON expenses USING gin (LOWER(name) gin_trgm_ops);
+
+-- Date ranges within a month; expenses are mostly inserted in date order, so each block
+-- range of a partition covers a few days
+CREATE INDEX expenses_expense_date_idx ON expenses USING brin (expense_date);
@@ -0,0 +1,68 @@
+-- expense_tag lost its foreign key to expenses in V5, as a partitioned table only has
+-- unique keys that include expense_date. These triggers keep the same integrity: a link
+-- needs its expense, and deleting an expense deletes its links. Archived partitions are
+-- detached rather than deleted from, and archive_expense_partition moves their links.
+
+-- Links left behind since V5
+DELETE FROM expense_tag et WHERE NOT EXISTS (SELECT 1 FROM expenses e WHERE e.id = et.expense_id);
+
+-- Locks the expense as the foreign key did, so that it cannot be deleted until the
+-- transaction inserting the link ends
+CREATE FUNCTION expense_tag_check_expense() RETURNS TRIGGER AS $$
+BEGIN
+	PERFORM 1 FROM expenses WHERE id = NEW.expense_id FOR KEY SHARE;
+	IF NOT FOUND THEN
+		RAISE EXCEPTION 'expense % of expense_tag does not exist', NEW.expense_id
+			USING ERRCODE = 'foreign_key_violation';
+	END IF;
+	RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER expense_tag_check_expense
+	BEFORE INSERT OR UPDATE OF expense_id ON expense_tag
+	FOR EACH ROW EXECUTE FUNCTION expense_tag_check_expense();
+
+-- An update of expense_date to another month moves the row to another partition as a
+-- delete and an insert, and fires this trigger; the links are kept since the expense
+-- exists again by the time AFTER triggers run. Rows moved out of the default partition by
+-- create_expense_partition are not in expenses either until the new partition is
+-- attached, so that function turns the trigger off meanwhile.
+CREATE FUNCTION expenses_delete_tags() RETURNS TRIGGER AS $$
+BEGIN
+	IF current_setting('expenses.moving_to_partition', true) = 'on' THEN
+		RETURN NULL;
+	END IF;
+	DELETE FROM expense_tag et
+	WHERE et.expense_id = OLD.id AND NOT EXISTS (SELECT 1 FROM expenses e WHERE e.id = OLD.id);
+	RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER expenses_delete_tags
+	AFTER DELETE ON expenses
+	FOR EACH ROW EXECUTE FUNCTION expenses_delete_tags();
+
+-- As in V5, apart from the setting that keeps expenses_delete_tags off while the rows of
+-- the month are moved out of the default partition
+CREATE OR REPLACE FUNCTION create_expense_partition(month_day DATE) RETURNS TEXT AS $$
+DECLARE
+	month_start DATE := date_trunc('month', month_day);
+	month_end DATE := date_trunc('month', month_day) + INTERVAL '1 month';
+	partition_name TEXT := 'expenses_' || to_char(month_day, 'YYYY_MM');
+BEGIN
+	-- Serializes the nodes creating and archiving partitions
+	PERFORM pg_advisory_xact_lock(hashtext('expense_partitions'));
+	IF to_regclass(partition_name) IS NOT NULL THEN
+		RETURN partition_name;
+	END IF;
+	EXECUTE format('CREATE TABLE %I (LIKE expenses INCLUDING DEFAULTS)', partition_name);
+	PERFORM set_config('expenses.moving_to_partition', 'on', true);
+	EXECUTE format('WITH moved AS (DELETE FROM expenses_default WHERE expense_date >= %L AND expense_date < %L '
+			|| 'RETURNING *) INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+	PERFORM set_config('expenses.moving_to_partition', 'off', true);
+	EXECUTE format('ALTER TABLE expenses ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+			partition_name, month_start, month_end);
+	RETURN partition_name;
+END
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,88 @@
+package com.expensemanager.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Replays an id trace against every CachePolicy and prints the hit rates.
+// Not a unit test; run manually, e.g.
+//   java -cp target/classes:target/test-classes com.expensemanager.cache.CacheTraceReplay logs/app.log 100,1000
+// The trace is either one id per line or an application log, in which case the ids
+// of "Expense with id N ..." lines are replayed. Without a file a synthetic trace
+// with a shifting working set is used.
+public class CacheTraceReplay {
+
+	private static final Pattern LOG_ID = Pattern.compile("Expense with id (\\d+)");
+
+	private static class ReplayCache extends LFUCache<Long> {
+		ReplayCache(int capacity, CachePolicy policy) {
+			super("replay", capacity, policy);
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		long[] trace = args.length > 0 ? readTrace(Path.of(args[0])) : syntheticTrace();
+		int[] capacities = args.length > 1
+				? Stream.of(args[1].split(",")).mapToInt(Integer::parseInt).toArray()
+				: new int[]{100, 1_000};
+
+		System.out.printf("trace of %d accesses%n", trace.length);
+		System.out.printf("%-10s %-12s %10s%n", "capacity", "policy", "hit rate");
+		for (int capacity : capacities) {
+			for (CachePolicy policy : CachePolicy.values()) {
+				System.out.printf("%-10d %-12s %9.2f%%%n", capacity, policy, 100 * replay(trace, capacity, policy));
+			}
+		}
+	}
+
+	static double replay(long[] trace, int capacity, CachePolicy policy) {
+		ReplayCache cache = new ReplayCache(capacity, policy);
+		long hits = 0;
+		for (long id : trace) {
+			if (cache.get(id) != null) {
+				hits++;
+			} else {
+				cache.put(id, id);
+			}
+		}
+		return trace.length == 0 ? 0 : (double) hits / trace.length;
+	}
+
+	private static long[] readTrace(Path path) throws IOException {
+		List<Long> ids = new ArrayList<>();
+		try (Stream<String> lines = Files.lines(path)) {
+			lines.forEach(line -> {
+				Matcher matcher = LOG_ID.matcher(line);
+				if (matcher.find()) {
+					ids.add(Long.parseLong(matcher.group(1)));
+				} else if (!line.isBlank() && line.strip().chars().allMatch(Character::isDigit)) {
+					ids.add(Long.parseLong(line.strip()));
+				}
+			});
+		}
+		return ids.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	// Ten phases, each with its own skewed hot set, like expenses that are popular
+	// for a month and then go cold
+	static long[] syntheticTrace() {
+		Random random = new Random(42);
+		int phases = 10;
+		int perPhase = 200_000;
+		int idsPerPhase = 5_000;
+		long[] trace = new long[phases * perPhase];
+		for (int phase = 0; phase < phases; phase++) {
+			for (int i = 0; i < perPhase; i++) {
+				long offset = (long) (idsPerPhase * Math.pow(random.nextDouble(), 4));
+				trace[phase * perPhase + i] = (long) phase * idsPerPhase + offset;
+			}
+		}
+		return trace;
+	}
+}
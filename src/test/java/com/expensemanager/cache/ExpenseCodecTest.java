@@ -0,0 +1,30 @@
+package com.expensemanager.cache;
+
+import com.expensemanager.dto.ExpenseSnapshot;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpenseCodecTest {
+
+	private final ExpenseCodec codec = new ExpenseCodec();
+
+	@Test
+	void testRoundTrip() {
+		ExpenseSnapshot expense = new ExpenseSnapshot(1L, "Lunch", 12.5, "EUR", LocalDate.of(2026, 3, 15),
+				new ExpenseSnapshot.CategoryRef(2L, "Food"), List.of(new ExpenseSnapshot.TagRef(3L, "work")));
+
+		assertThat(codec.decode(ByteBuffer.wrap(codec.encode(expense)))).isEqualTo(expense);
+	}
+
+	@Test
+	void testRoundTripWithNullsAndNamesOver64Kb() {
+		String name = "\u20ac".repeat(30_000);
+		ExpenseSnapshot expense = new ExpenseSnapshot(1L, name, null, null, null, null, List.of());
+
+		assertThat(codec.decode(ByteBuffer.wrap(codec.encode(expense)))).isEqualTo(expense);
+	}
+}
@@ -0,0 +1,152 @@
+package com.expensemanager.cache;
+
+import com.expensemanager.cache.ExpenseQueryCache.QueryKey;
+import com.expensemanager.cache.ExpenseQueryCache.QueryType;
+import com.expensemanager.config.CacheProperties;
+import com.expensemanager.dto.ExpenseSnapshot;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpenseQueryCacheTest {
+
+	private final ExpenseQueryCache cache = new ExpenseQueryCache(new CacheProperties());
+
+	@Test
+	void testResultIsCachedPerQuery() {
+		AtomicInteger queries = new AtomicInteger();
+
+		cache.get(QueryKey.byCategory("Food"), () -> List.of((long) queries.incrementAndGet()));
+		List<Long> ids = cache.get(QueryKey.byCategory("Food"), () -> List.of((long) queries.incrementAndGet()));
+
+		assertThat(ids).containsExactly(1L);
+		assertThat(queries).hasValue(1);
+	}
+
+	@Test
+	void testInvalidateOnlyDropsQueriesMatchingTheChangedExpense() {
+		cache.get(QueryKey.byCategory("Food"), () -> List.of(1L));
+		cache.get(QueryKey.byCategory("Travel"), () -> List.of(2L));
+		cache.get(QueryKey.byTag("work"), () -> List.of(1L));
+		cache.get(QueryKey.byTag("Work"), () -> List.of(1L));
+		cache.get(QueryKey.byAmountRange(0, 10), () -> List.of(1L));
+		cache.get(QueryKey.byAmountRange(100, 200), () -> List.of(2L));
+		cache.get(QueryKey.byNamePart("lun"), () -> List.of(1L));
+
+		cache.invalidate(List.of(new ExpenseSnapshot(1L, "Lunch", 5.0, "USD", null,
+				new ExpenseSnapshot.CategoryRef(1L, "Food"), List.of(new ExpenseSnapshot.TagRef(1L, "work")))));
+
+		List<Long> reloaded = List.of(99L);
+		assertThat(cache.get(QueryKey.byCategory("Food"), () -> reloaded)).isSameAs(reloaded);
+		assertThat(cache.get(QueryKey.byTag("work"), () -> reloaded)).isSameAs(reloaded);
+		assertThat(cache.get(QueryKey.byTag("Work"), () -> reloaded)).isSameAs(reloaded);
+		assertThat(cache.get(QueryKey.byAmountRange(0, 10), () -> reloaded)).isSameAs(reloaded);
+		assertThat(cache.get(QueryKey.byNamePart("lun"), () -> reloaded)).isSameAs(reloaded);
+		assertThat(cache.get(QueryKey.byCategory("Travel"), () -> reloaded)).containsExactly(2L);
+		assertThat(cache.get(QueryKey.byAmountRange(100, 200), () -> reloaded)).containsExactly(2L);
+	}
+
+	@Test
+	void testNamePartMatchesIgnoringTheDefaultLocale() {
+		Locale defaultLocale = Locale.getDefault();
+		// Lower-cases "I" to a dotless i
+		Locale.setDefault(Locale.forLanguageTag("tr"));
+		try {
+			cache.get(QueryKey.byNamePart("title"), () -> List.of(1L));
+
+			cache.invalidate(List.of(new ExpenseSnapshot(1L, "TITLE", 5.0, "USD", null, null, List.of())));
+
+			List<Long> reloaded = List.of(99L);
+			assertThat(cache.get(QueryKey.byNamePart("title"), () -> reloaded)).isSameAs(reloaded);
+		} finally {
+			Locale.setDefault(defaultLocale);
+		}
+	}
+
+	@Test
+	void testInvalidateTypeDropsAllQueriesOfThatType() {
+		cache.get(QueryKey.byTag("work"), () -> List.of(1L));
+		cache.get(QueryKey.byTag("home"), () -> List.of(2L));
+		cache.get(QueryKey.byCategory("Food"), () -> List.of(3L));
+
+		cache.invalidate(QueryType.TAG);
+
+		List<Long> reloaded = List.of(99L);
+		assertThat(cache.get(QueryKey.byTag("work"), () -> reloaded)).isSameAs(reloaded);
+		assertThat(cache.get(QueryKey.byTag("home"), () -> reloaded)).isSameAs(reloaded);
+		assertThat(cache.get(QueryKey.byCategory("Food"), () -> reloaded)).containsExactly(3L);
+	}
+
+	@Test
+	void testSettingsThatDoNotApplyAreRejected() {
+		CacheProperties weighed = new CacheProperties();
+		weighed.getQueries().setMaximumWeight(DataSize.ofMegabytes(1));
+		CacheProperties withPolicy = new CacheProperties();
+		withPolicy.getQueries().setPolicy(CachePolicy.W_TINY_LFU);
+		CacheProperties supported = new CacheProperties();
+		supported.getQueries().setMaximumSize(10);
+		supported.getQueries().setExpireAfterWrite(Duration.ofMinutes(1));
+
+		assertThatThrownBy(() -> new ExpenseQueryCache(weighed)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new ExpenseQueryCache(withPolicy)).isInstanceOf(IllegalArgumentException.class);
+		new ExpenseQueryCache(supported);
+	}
+
+	@Test
+	void testResultOfQueryOverlappingAnInvalidationIsNotCached() {
+		ExpenseSnapshot changed = new ExpenseSnapshot(1L, "Taxi", 20.0, "USD", null, null, List.of());
+
+		cache.get(QueryKey.byTag("other"), () -> {
+			cache.invalidate(List.of(changed));
+			return List.of(1L);
+		});
+		List<Long> ids = cache.get(QueryKey.byTag("other"), () -> List.of(2L));
+
+		assertThat(ids).containsExactly(2L);
+	}
+
+	@Test
+	void testConcurrentIdenticalQueriesShareOneLoad() throws Exception {
+		AtomicInteger queries = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<List<Long>>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(executor.submit(() -> cache.get(QueryKey.byTag("work"), () -> {
+					queries.incrementAndGet();
+					awaitQuietly(release);
+					return List.of(1L);
+				})));
+			}
+			Thread.sleep(100);
+			release.countDown();
+			for (Future<List<Long>> result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS)).containsExactly(1L);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertThat(queries).hasValue(1);
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.expensemanager.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Hit-path throughput of LFUCache from one thread up to the number of cores.
+// Not a unit test; run manually, e.g.
+//   java -cp target/classes:target/test-classes com.expensemanager.cache.LFUCacheContentionBenchmark [seconds]
+public class LFUCacheContentionBenchmark {
+
+	private static final int CAPACITY = 10_000;
+	private static final int WRITE_PERCENT = 5;
+
+	private static class BenchmarkCache extends LFUCache<Long> {
+		BenchmarkCache() {
+			super("benchmark", CAPACITY);
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		long seconds = args.length > 0 ? Long.parseLong(args[0]) : 3;
+		int cores = Runtime.getRuntime().availableProcessors();
+
+		BenchmarkCache cache = new BenchmarkCache();
+		for (long id = 0; id < CAPACITY; id++) {
+			cache.put(id, id);
+		}
+
+		System.out.printf("%-8s %15s %10s%n", "threads", "ops/s", "scaling");
+		double singleThreaded = 0;
+		for (int threads = 1; threads <= cores; threads = nextThreadCount(threads, cores)) {
+			double throughput = run(cache, threads, seconds);
+			if (threads == 1) {
+				singleThreaded = throughput;
+			}
+			System.out.printf("%-8d %15.0f %9.2fx%n", threads, throughput, throughput / singleThreaded);
+		}
+	}
+
+	private static int nextThreadCount(int threads, int cores) {
+		if (threads == cores) {
+			return cores + 1;
+		}
+		return Math.min(threads * 2, cores);
+	}
+
+	private static double run(BenchmarkCache cache, int threads, long seconds) throws InterruptedException {
+		LongAdder operations = new LongAdder();
+		CountDownLatch start = new CountDownLatch(1);
+		long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+		List<Thread> workers = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			Thread worker = new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				awaitQuietly(start);
+				long local = 0;
+				while ((local & 1023) != 0 || System.nanoTime() < deadline) {
+					// Skewed keys so a few ids stay hot, as with real expense lookups
+					long id = (long) (CAPACITY * Math.pow(random.nextDouble(), 3));
+					if (random.nextInt(100) < WRITE_PERCENT) {
+						cache.put(id, id);
+					} else {
+						cache.get(id);
+					}
+					local++;
+				}
+				operations.add(local);
+			});
+			workers.add(worker);
+			worker.start();
+		}
+		long began = System.nanoTime();
+		start.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		double elapsedSeconds = (System.nanoTime() - began) / 1_000_000_000.0;
+		return operations.sum() / elapsedSeconds;
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
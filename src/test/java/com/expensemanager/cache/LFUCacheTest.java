@@ -0,0 +1,471 @@
+package com.expensemanager.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LFUCacheTest {
+
+	private static final RecordCodec<String> STRING_CODEC = new RecordCodec<>() {
+		@Override
+		public byte[] encode(String value) {
+			return value.getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public String decode(ByteBuffer record) {
+			return StandardCharsets.UTF_8.decode(record).toString();
+		}
+	};
+
+	private static class TestCache extends LFUCache<String> {
+		TestCache(int capacity) {
+			super("test", capacity);
+		}
+
+		TestCache(int capacity, CachePolicy policy) {
+			super("test", capacity, policy);
+		}
+
+		TestCache(CacheSettings settings) {
+			super("test", settings);
+		}
+
+		TestCache(CacheSettings settings, RecordCodec<String> codec) {
+			super("test", settings, codec);
+		}
+
+		TestCache(CacheSettings settings, Ticker ticker, Executor refreshExecutor) {
+			super("test", settings, null, ticker, refreshExecutor);
+		}
+
+		@Override
+		protected long weigh(String value) {
+			return value.length();
+		}
+	}
+
+	@Test
+	void testEvictsLeastFrequentlyUsed() {
+		TestCache cache = new TestCache(2);
+		cache.put(1L, "one");
+		cache.put(2L, "two");
+		cache.get(1L);
+
+		cache.put(3L, "three");
+
+		assertThat(cache.get(1L)).isEqualTo("one");
+		assertThat(cache.get(2L)).isNull();
+		assertThat(cache.get(3L)).isEqualTo("three");
+	}
+
+	@Test
+	void testEvictsOldestAmongEqualFrequencies() {
+		TestCache cache = new TestCache(2);
+		cache.put(1L, "one");
+		cache.put(2L, "two");
+
+		cache.put(3L, "three");
+
+		assertThat(cache.get(1L)).isNull();
+		assertThat(cache.get(2L)).isEqualTo("two");
+	}
+
+	@Test
+	void testPutExistingKeyUpdatesValueWithoutEviction() {
+		TestCache cache = new TestCache(2);
+		cache.put(1L, "one");
+		cache.put(2L, "two");
+		cache.put(1L, "uno");
+
+		assertThat(cache.get(1L)).isEqualTo("uno");
+		assertThat(cache.get(2L)).isEqualTo("two");
+	}
+
+	@Test
+	void testRemoveThenEvictStillRespectsCapacity() {
+		TestCache cache = new TestCache(2);
+		cache.put(1L, "one");
+		cache.get(1L);
+		cache.put(2L, "two");
+		cache.remove(2L);
+		cache.put(3L, "three");
+		cache.get(3L);
+		cache.get(3L);
+
+		cache.put(4L, "four");
+
+		assertThat(cache.get(1L)).isNull();
+		assertThat(cache.get(3L)).isEqualTo("three");
+		assertThat(cache.get(4L)).isEqualTo("four");
+	}
+
+	@Test
+	void testWindowTinyLfuAdmitsNewHotKeysAfterWorkingSetShift() {
+		long[] trace = CacheTraceReplay.syntheticTrace();
+
+		double lfu = CacheTraceReplay.replay(trace, 100, CachePolicy.LFU);
+		double tinyLfu = CacheTraceReplay.replay(trace, 100, CachePolicy.W_TINY_LFU);
+
+		assertThat(tinyLfu).isGreaterThan(lfu * 2);
+	}
+
+	@Test
+	void testWindowTinyLfuKeepsCapacity() {
+		TestCache cache = new TestCache(10, CachePolicy.W_TINY_LFU);
+		for (long id = 0; id < 1_000; id++) {
+			cache.put(id, "value" + id);
+		}
+
+		long present = 0;
+		for (long id = 0; id < 1_000; id++) {
+			if (cache.get(id) != null) {
+				present++;
+			}
+		}
+		assertThat(present).isEqualTo(10);
+	}
+
+	@Test
+	void testLoaderResultIsCached() {
+		TestCache cache = new TestCache(2);
+		AtomicInteger loads = new AtomicInteger();
+
+		assertThat(cache.get(1L, id -> "loaded" + loads.incrementAndGet())).isEqualTo("loaded1");
+		assertThat(cache.get(1L, id -> "loaded" + loads.incrementAndGet())).isEqualTo("loaded1");
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void testConcurrentMissesShareOneLoad() throws Exception {
+		TestCache cache = new TestCache(2);
+		int callers = 8;
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch callersStarted = new CountDownLatch(callers);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				results.add(executor.submit(() -> {
+					callersStarted.countDown();
+					return cache.get(1L, id -> {
+						loads.incrementAndGet();
+						awaitQuietly(release);
+						return "loaded";
+					});
+				}));
+			}
+			// Callers arriving after the release are served the cached value, which
+			// shares the load just the same
+			assertThat(callersStarted.await(5, TimeUnit.SECONDS)).isTrue();
+			release.countDown();
+
+			for (Future<String> result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+			}
+			assertThat(loads).hasValue(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void testLoaderFailureIsRethrownAndNotCached() {
+		TestCache cache = new TestCache(2);
+
+		assertThatThrownBy(() -> cache.get(1L, id -> {
+			throw new IllegalStateException("missing");
+		})).isInstanceOf(IllegalStateException.class).hasMessage("missing");
+		assertThat(cache.get(1L)).isNull();
+	}
+
+	@Test
+	void testStatsRecordHitsMissesLoadsAndEvictions() {
+		TestCache cache = new TestCache(1);
+		cache.get(1L, id -> "one");
+		cache.get(1L);
+		cache.get(2L, id -> "two");
+
+		CacheStats stats = cache.stats();
+		assertThat(stats.name()).isEqualTo("test");
+		assertThat(stats.size()).isEqualTo(1);
+		assertThat(stats.hitCount()).isEqualTo(1);
+		assertThat(stats.missCount()).isEqualTo(2);
+		assertThat(stats.loadSuccessCount()).isEqualTo(2);
+		assertThat(stats.evictionCount()).isEqualTo(1);
+
+		cache.resetStats();
+		assertThat(cache.stats().hitCount()).isZero();
+		assertThat(cache.stats().size()).isEqualTo(1);
+	}
+
+	@Test
+	void testMaximumWeightEvictsUntilNewEntryFits() {
+		CacheSettings settings = new CacheSettings(CachePolicy.LFU, 100);
+		settings.setMaximumWeight(DataSize.ofBytes(10));
+		TestCache cache = new TestCache(settings);
+		cache.put(1L, "aaaa");
+		cache.put(2L, "bbbb");
+		cache.get(2L);
+
+		cache.put(3L, "cccccc");
+
+		assertThat(cache.get(1L)).isNull();
+		assertThat(cache.get(2L)).isEqualTo("bbbb");
+		assertThat(cache.get(3L)).isEqualTo("cccccc");
+		assertThat(cache.stats().weightedSize()).isEqualTo(10);
+	}
+
+	@Test
+	void testEntryHeavierThanMaximumWeightIsNotCached() {
+		CacheSettings settings = new CacheSettings(CachePolicy.LFU, 100);
+		settings.setMaximumWeight(DataSize.ofBytes(4));
+		TestCache cache = new TestCache(settings);
+		cache.put(1L, "one");
+
+		cache.put(1L, "too long");
+
+		assertThat(cache.get(1L)).isNull();
+		assertThat(cache.stats().weightedSize()).isZero();
+	}
+
+	@Test
+	void testExpireAfterWrite() {
+		CacheSettings settings = new CacheSettings(CachePolicy.LFU, 100);
+		settings.setExpireAfterWrite(Duration.ofMinutes(1));
+		FakeTicker ticker = new FakeTicker();
+		TestCache cache = new TestCache(settings, ticker, Runnable::run);
+		cache.put(1L, "one");
+		ticker.advance(Duration.ofSeconds(59));
+		assertThat(cache.get(1L)).isEqualTo("one");
+
+		ticker.advance(Duration.ofSeconds(1));
+
+		assertThat(cache.get(1L)).isNull();
+		assertThat(cache.stats().size()).isZero();
+	}
+
+	@Test
+	void testRefreshAfterWriteServesStaleValueAndReloadsInBackground() throws InterruptedException {
+		CacheSettings settings = new CacheSettings(CachePolicy.LFU, 100);
+		settings.setRefreshAfterWrite(Duration.ofMinutes(5));
+		FakeTicker ticker = new FakeTicker();
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch refreshed = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			TestCache cache = new TestCache(settings, ticker, task -> executor.execute(() -> {
+				task.run();
+				refreshed.countDown();
+			}));
+			cache.put(1L, "old");
+			ticker.advance(Duration.ofMinutes(5));
+
+			assertThat(cache.get(1L, id -> {
+				awaitQuietly(release);
+				return "new";
+			})).isEqualTo("old");
+			assertThat(cache.get(1L)).isEqualTo("old");
+
+			release.countDown();
+			assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(cache.get(1L)).isEqualTo("new");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void testRefreshIsNotTriggeredBeforeRefreshAfterWrite() {
+		CacheSettings settings = new CacheSettings(CachePolicy.LFU, 100);
+		settings.setRefreshAfterWrite(Duration.ofMinutes(5));
+		FakeTicker ticker = new FakeTicker();
+		TestCache cache = new TestCache(settings, ticker, task -> {
+			throw new AssertionError("unexpected refresh");
+		});
+		cache.put(1L, "old");
+		ticker.advance(Duration.ofMinutes(4));
+
+		assertThat(cache.get(1L, id -> "new")).isEqualTo("old");
+	}
+
+	@Test
+	void testOffHeapCacheDecodesValuesAndWeighsBySlot() {
+		CacheSettings settings = new CacheSettings(CachePolicy.LFU, 100);
+		settings.setMaximumWeight(DataSize.ofBytes(64));
+		settings.setOffHeap(true);
+		TestCache cache = new TestCache(settings, STRING_CODEC);
+		cache.put(1L, "one");
+		cache.put(2L, "two");
+		cache.get(2L);
+
+		cache.put(3L, "three");
+		cache.put(2L, "dos");
+
+		assertThat(cache.get(1L)).isNull();
+		assertThat(cache.get(2L)).isEqualTo("dos");
+		assertThat(cache.get(3L)).isEqualTo("three");
+		assertThat(cache.stats().weightedSize()).isEqualTo(64);
+
+		cache.remove(3L);
+
+		assertThat(cache.get(3L)).isNull();
+		assertThat(cache.stats().weightedSize()).isEqualTo(32);
+	}
+
+	@Test
+	void testOffHeapCacheRequiresCodecAndMaximumWeight() {
+		CacheSettings settings = new CacheSettings(CachePolicy.LFU, 100);
+		settings.setOffHeap(true);
+
+		assertThatThrownBy(() -> new TestCache(settings, STRING_CODEC))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testPutAllIfAbsentKeepsCachedValues() {
+		TestCache cache = new TestCache(10);
+		cache.put(1L, "one");
+
+		int added = cache.putAllIfAbsent(Map.of(1L, "uno", 2L, "two", 3L, "three"));
+
+		assertThat(added).isEqualTo(2);
+		assertThat(cache.getAll(List.of(1L, 2L, 3L, 4L)))
+				.containsOnly(Map.entry(1L, "one"), Map.entry(2L, "two"), Map.entry(3L, "three"));
+		assertThat(cache.stats().missCount()).isEqualTo(1);
+	}
+
+	@Test
+	void testWarmRestoresSnapshotFrequencies() {
+		TestCache cache = new TestCache(3);
+		cache.put(1L, "one");
+		cache.put(2L, "two");
+		cache.put(3L, "three");
+		cache.get(1L);
+		cache.get(1L);
+		cache.get(2L);
+		List<HotKey> hotKeys = cache.hotKeys();
+
+		TestCache restarted = new TestCache(3);
+		int added = restarted.warm(hotKeys, Map.of(1L, "one", 2L, "two", 3L, "three"), restarted.generation());
+		restarted.put(4L, "four");
+
+		assertThat(hotKeys).containsExactly(new HotKey(1L, 3), new HotKey(2L, 2), new HotKey(3L, 1));
+		assertThat(added).isEqualTo(3);
+		assertThat(restarted.get(1L)).isEqualTo("one");
+		assertThat(restarted.get(2L)).isEqualTo("two");
+		assertThat(restarted.get(3L)).isNull();
+	}
+
+	@Test
+	void testEvictsTheNextLowestFrequencyAfterItsBucketEmpties() {
+		CacheSettings settings = new CacheSettings(CachePolicy.LFU, 100);
+		settings.setMaximumWeight(DataSize.ofBytes(10));
+		TestCache cache = new TestCache(settings);
+		cache.warm(List.of(new HotKey(1L, 9), new HotKey(2L, 5), new HotKey(3L, 7)),
+				Map.of(1L, "aa", 2L, "bb", 3L, "cc"), cache.generation());
+		cache.put(4L, "d");
+		cache.get(4L);
+		// Empties the bucket of frequency 2, the lowest one
+		cache.remove(4L);
+
+		cache.put(5L, "eeeeee");
+
+		assertThat(cache.get(1L)).isEqualTo("aa");
+		assertThat(cache.get(2L)).isNull();
+		assertThat(cache.get(3L)).isEqualTo("cc");
+		assertThat(cache.get(5L)).isEqualTo("eeeeee");
+	}
+
+	@Test
+	void testFrequencySaturatesAndKeepsRecencyOrder() {
+		TestCache cache = new TestCache(2);
+		cache.put(1L, "one");
+		cache.put(2L, "two");
+		for (int i = 0; i < LfuPolicy.MAX_FREQUENCY + 50; i++) {
+			cache.get(1L);
+			cache.get(2L);
+		}
+		assertThat(cache.hotKeys()).extracting(HotKey::frequency)
+				.containsOnly(LfuPolicy.MAX_FREQUENCY);
+		cache.get(1L);
+
+		cache.put(3L, "three");
+
+		assertThat(cache.get(1L)).isEqualTo("one");
+		assertThat(cache.get(2L)).isNull();
+	}
+
+	@Test
+	void testWarmCapsSnapshotFrequencies() {
+		TestCache cache = new TestCache(1);
+
+		cache.warm(List.of(new HotKey(1L, 10_000)), Map.of(1L, "one"), cache.generation());
+
+		assertThat(cache.hotKeys()).containsExactly(new HotKey(1L, LfuPolicy.MAX_FREQUENCY));
+	}
+
+	@Test
+	void testWarmDropsValuesLoadedBeforeAWrite() {
+		TestCache cache = new TestCache(3);
+		long generation = cache.generation();
+		cache.remove(2L);
+
+		int added = cache.warm(List.of(new HotKey(1L, 1), new HotKey(2L, 1)), Map.of(1L, "one", 2L, "stale"), generation);
+
+		assertThat(added).isZero();
+		assertThat(cache.get(1L)).isNull();
+		assertThat(cache.get(2L)).isNull();
+	}
+
+	@Test
+	void testClear() {
+		TestCache cache = new TestCache(2);
+		cache.put(1L, "one");
+		cache.clear();
+		cache.put(2L, "two");
+		cache.put(3L, "three");
+
+		assertThat(cache.get(1L)).isNull();
+		assertThat(cache.get(2L)).isEqualTo("two");
+		assertThat(cache.get(3L)).isEqualTo("three");
+	}
+
+	private static class FakeTicker implements Ticker {
+		private final AtomicLong nanos = new AtomicLong();
+
+		@Override
+		public long read() {
+			return nanos.get();
+		}
+
+		void advance(Duration duration) {
+			nanos.addAndGet(duration.toNanos());
+		}
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.expensemanager.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapStoreTest {
+
+	private static final int SLAB_SIZE = 4 * 1024 * 1024;
+	// Records taking 32-byte slots
+	private static final byte[] SMALL = new byte[24];
+	private static final byte[] LARGE = new byte[100];
+
+	@Test
+	void testAllocationFailsOnceSlabsAreAtTheirCap() {
+		OffHeapStore store = new OffHeapStore(1024);
+		List<Long> handles = fill(store, SMALL);
+
+		assertThat(handles).hasSize(SLAB_SIZE / 32);
+		assertThat(store.reservedBytes()).isEqualTo(SLAB_SIZE);
+		assertThat(store.allocate(LARGE)).isEqualTo(OffHeapStore.NO_SLOT);
+
+		store.free(handles.get(0));
+
+		assertThat(store.allocate(LARGE)).isEqualTo(OffHeapStore.NO_SLOT);
+		assertThat(store.allocate(SMALL)).isNotEqualTo(OffHeapStore.NO_SLOT);
+		assertThat(store.reservedBytes()).isEqualTo(SLAB_SIZE);
+	}
+
+	@Test
+	void testEmptiedSlabIsReleasedAndItsHandlesGoStale() {
+		OffHeapStore store = new OffHeapStore(SLAB_SIZE);
+		List<Long> first = new ArrayList<>();
+		for (int i = 0; i < SLAB_SIZE / 32; i++) {
+			first.add(store.allocate(SMALL));
+		}
+		long second = store.allocate(SMALL);
+		assertThat(store.reservedBytes()).isEqualTo(2L * SLAB_SIZE);
+
+		first.forEach(store::free);
+
+		assertThat(store.reservedBytes()).isEqualTo(SLAB_SIZE);
+		assertThat(store.read(first.get(0))).isNull();
+		assertThat(store.read(second)).hasSize(SMALL.length);
+
+		// Fills the rest of the second slab, then carves a new first slab over the old slots
+		List<Long> large = fill(store, LARGE);
+
+		assertThat(store.reservedBytes()).isEqualTo(2L * SLAB_SIZE);
+		assertThat(store.read(first.get(0))).isNull();
+		assertThat(store.read(large.get(large.size() - 1))).hasSize(LARGE.length);
+	}
+
+	@Test
+	void testClearReleasesAllSlabs() {
+		OffHeapStore store = new OffHeapStore(1024);
+		long handle = store.allocate(SMALL);
+
+		store.clear();
+
+		assertThat(store.reservedBytes()).isZero();
+		assertThat(store.read(handle)).isNull();
+		long reused = store.allocate(new byte[] {1, 2, 3});
+		assertThat(store.read(handle)).isNull();
+		assertThat(store.read(reused)).containsExactly(1, 2, 3);
+	}
+
+	private static List<Long> fill(OffHeapStore store, byte[] record) {
+		List<Long> handles = new ArrayList<>();
+		for (long handle = store.allocate(record); handle != OffHeapStore.NO_SLOT; handle = store.allocate(record)) {
+			handles.add(handle);
+		}
+		return handles;
+	}
+}
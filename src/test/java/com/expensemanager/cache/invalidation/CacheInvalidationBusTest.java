@@ -0,0 +1,183 @@
+package com.expensemanager.cache.invalidation;
+
+import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.ExpenseQueryCache;
+import com.expensemanager.cache.ExpenseQueryCache.QueryKey;
+import com.expensemanager.cache.LFUCache;
+import com.expensemanager.cache.NameDictionary;
+import com.expensemanager.cache.TagCache;
+import com.expensemanager.cache.TagDictionary;
+import com.expensemanager.config.CacheProperties;
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.model.Tag;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheInvalidationBusTest {
+
+	private final List<String> sent = new CopyOnWriteArrayList<>();
+	private final List<CacheInvalidationBus> buses = new ArrayList<>();
+	private InvalidationTransport transport;
+
+	@BeforeEach
+	void setUp() {
+		LoopbackTransport loopback = new LoopbackTransport();
+		transport = new InvalidationTransport() {
+			@Override
+			public void send(String payload) {
+				sent.add(payload);
+				loopback.send(payload);
+			}
+
+			@Override
+			public Subscription subscribe(Consumer<String> listener, Runnable missedMessages) {
+				return loopback.subscribe(listener, missedMessages);
+			}
+		};
+	}
+
+	@AfterEach
+	void tearDown() {
+		buses.forEach(CacheInvalidationBus::stop);
+	}
+
+	@Test
+	void testWriteOnOneNodeEvictsTheIdOnTheOther() {
+		TagCache cacheA = tagCache();
+		TagCache cacheB = tagCache();
+		CacheInvalidationBus busA = bus(cacheA);
+		bus(cacheB);
+		cacheA.put(1L, new Tag("old"));
+		cacheB.put(1L, new Tag("old"));
+		cacheB.put(2L, new Tag("other"));
+
+		cacheA.put(1L, new Tag("new"));
+		busA.publish(cacheA.getName(), 1L);
+		busA.flush();
+
+		assertThat(cacheA.get(1L).getName()).isEqualTo("new");
+		assertThat(cacheB.get(1L)).isNull();
+		assertThat(cacheB.get(2L)).isNotNull();
+	}
+
+	@Test
+	void testEvictionsArePublishedInBatches() {
+		TagCache cache = tagCache();
+		CacheInvalidationBus bus = bus(cache);
+
+		bus.publish(cache.getName(), 1L);
+		bus.publish(cache.getName(), List.of(2L, 3L));
+		bus.publish(cache.getName(), 1L);
+		bus.flush();
+
+		assertThat(sent).hasSize(1);
+		assertThat(sent.get(0)).endsWith("|tags:1,2,3");
+	}
+
+	@Test
+	void testLargeBatchIsSplitIntoPayloadsPostgresAccepts() {
+		TagCache cacheA = tagCache();
+		TagCache cacheB = tagCache();
+		CacheInvalidationBus busA = bus(cacheA);
+		bus(cacheB);
+		List<Long> ids = LongStream.range(1_000_000, 1_005_000).boxed().toList();
+		ids.forEach(id -> cacheB.put(id, new Tag("tag")));
+
+		busA.publish(cacheA.getName(), ids);
+		busA.flush();
+
+		assertThat(sent).hasSizeGreaterThan(1);
+		assertThat(sent).allSatisfy(payload -> assertThat(payload.length()).isLessThan(8000));
+		assertThat(cacheB.getAll(ids)).isEmpty();
+	}
+
+	@Test
+	void testTagRenameOnOneNodeEvictsExpensesAndTagQueriesWithTheTagOnTheOther() {
+		TagCache tagsA = tagCache();
+		TagCache tagsB = tagCache();
+		ExpenseCache expensesB = new ExpenseCache(new CacheProperties());
+		ExpenseQueryCache queriesB = new ExpenseQueryCache(new CacheProperties());
+		CacheInvalidationBus busA = bus(tagsA);
+		bus(List.of(tagsB, expensesB), queriesB);
+		expensesB.put(1L, new ExpenseSnapshot(1L, "Lunch", 5.0, "USD", null, null,
+				List.of(new ExpenseSnapshot.TagRef(7L, "old"))));
+		expensesB.put(2L, new ExpenseSnapshot(2L, "Taxi", 9.0, "USD", null, null,
+				List.of(new ExpenseSnapshot.TagRef(8L, "other"))));
+		queriesB.get(QueryKey.byTag("old"), () -> List.of(1L));
+		queriesB.get(QueryKey.byCategory("Food"), () -> List.of(2L));
+
+		busA.publish(tagsA.getName(), 7L);
+		busA.flush();
+
+		List<Long> reloaded = List.of();
+		assertThat(expensesB.get(1L)).isNull();
+		assertThat(expensesB.get(2L)).isNotNull();
+		assertThat(queriesB.get(QueryKey.byTag("old"), () -> reloaded)).isSameAs(reloaded);
+		assertThat(queriesB.get(QueryKey.byCategory("Food"), () -> reloaded)).containsExactly(2L);
+	}
+
+	@Test
+	void testNewTagOnOneNodeOnlyReloadsTheTagDictionaryOnTheOther() {
+		TagCache tagsA = tagCache();
+		TagCache tagsB = tagCache();
+		TagDictionary dictionaryA = new TagDictionary();
+		TagDictionary dictionaryB = new TagDictionary();
+		ExpenseCache expensesB = new ExpenseCache(new CacheProperties());
+		ExpenseQueryCache queriesB = new ExpenseQueryCache(new CacheProperties());
+		CacheInvalidationBus busA = bus(List.of(tagsA), List.of(dictionaryA), new ExpenseQueryCache(new CacheProperties()));
+		bus(List.of(tagsB, expensesB), List.of(dictionaryB), queriesB);
+		dictionaryB.ensureLoaded(() -> List.of(tag(7L, "old")));
+		expensesB.put(1L, new ExpenseSnapshot(1L, "Lunch", 5.0, "USD", null, null,
+				List.of(new ExpenseSnapshot.TagRef(7L, "old"))));
+		queriesB.get(QueryKey.byTag("old"), () -> List.of(1L));
+
+		busA.publishAdded(dictionaryA.getName(), List.of(8L));
+		busA.flush();
+
+		assertThat(sent).hasSize(1);
+		assertThat(sent.get(0)).endsWith("|+tags:8");
+		assertThat(dictionaryB.all()).isEmpty();
+		assertThat(dictionaryB.ensureLoaded(() -> List.of(tag(7L, "old"), tag(8L, "new"))).find("new")).isPresent();
+		assertThat(expensesB.get(1L)).isNotNull();
+		assertThat(queriesB.get(QueryKey.byTag("old"), List::of)).containsExactly(1L);
+	}
+
+	private static Tag tag(Long id, String name) {
+		Tag tag = new Tag(name);
+		tag.setId(id);
+		return tag;
+	}
+
+	private TagCache tagCache() {
+		CacheProperties cacheProperties = new CacheProperties();
+		cacheProperties.getTags().setMaximumSize(10_000);
+		return new TagCache(cacheProperties);
+	}
+
+	private CacheInvalidationBus bus(LFUCache<?> cache) {
+		return bus(List.of(cache), new ExpenseQueryCache(new CacheProperties()));
+	}
+
+	private CacheInvalidationBus bus(List<LFUCache<?>> caches, ExpenseQueryCache expenseQueryCache) {
+		return bus(caches, List.of(), expenseQueryCache);
+	}
+
+	private CacheInvalidationBus bus(List<LFUCache<?>> caches,
+	                                 List<NameDictionary<?>> dictionaries,
+	                                 ExpenseQueryCache expenseQueryCache) {
+		CacheProperties cacheProperties = new CacheProperties();
+		CacheInvalidationBus bus = new CacheInvalidationBus(transport, caches, dictionaries, List.of(),
+				expenseQueryCache, cacheProperties);
+		bus.start();
+		buses.add(bus);
+		return bus;
+	}
+}
@@ -0,0 +1,82 @@
+package com.expensemanager.repository;
+
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.dto.ExpenseSort;
+import com.expensemanager.model.Expense;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Pages through expenses two at a time with the keyset predicate of findPageIds, and
+// compares the order with a single query
+@Tag("postgres")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ExpenseRepositoryPagingTest {
+
+	@Autowired
+	private ExpenseRepository expenseRepository;
+
+	private final List<Long> ids = new ArrayList<>();
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		PostgresTestDatabase.register(registry, "paging");
+	}
+
+	@BeforeEach
+	void createExpenses() {
+		save(null, 5.0);
+		save("Taxi", null);
+		save("Lunch", 5.0);
+		save(null, null);
+		save("Lunch", 12.0);
+		save("Rent", null);
+		expenseRepository.flush();
+	}
+
+	@Test
+	void testPagesByAmountIncludeNullAmountsLastAscendingAndFirstDescending() {
+		assertThat(allPages(ExpenseSort.AMOUNT, Sort.Direction.ASC))
+				.containsExactly(ids.get(0), ids.get(2), ids.get(4), ids.get(1), ids.get(3), ids.get(5));
+		assertThat(allPages(ExpenseSort.AMOUNT, Sort.Direction.DESC))
+				.containsExactly(ids.get(5), ids.get(3), ids.get(1), ids.get(4), ids.get(2), ids.get(0));
+	}
+
+	@Test
+	void testPagesByNameIncludeNullNames() {
+		assertThat(allPages(ExpenseSort.NAME, Sort.Direction.ASC))
+				.containsExactly(ids.get(2), ids.get(4), ids.get(5), ids.get(1), ids.get(0), ids.get(3));
+		assertThat(allPages(ExpenseSort.NAME, Sort.Direction.DESC))
+				.containsExactly(ids.get(3), ids.get(0), ids.get(1), ids.get(5), ids.get(4), ids.get(2));
+	}
+
+	private List<Long> allPages(ExpenseSort sort, Sort.Direction direction) {
+		List<Long> all = new ArrayList<>();
+		List<Long> page = expenseRepository.findPageIds(null, sort, direction, null, null, 2);
+		while (!page.isEmpty()) {
+			all.addAll(page);
+			Long lastId = page.get(page.size() - 1);
+			Object lastKey = sort.keyOf(ExpenseSnapshot.of(expenseRepository.findById(lastId).orElseThrow()));
+			page = expenseRepository.findPageIds(null, sort, direction, lastKey, lastId, 2);
+		}
+		return all;
+	}
+
+	private void save(String name, Double amount) {
+		Expense expense = new Expense(name, null, amount, "USD");
+		expense.setExpenseDate(LocalDate.now());
+		ids.add(expenseRepository.save(expense).getId());
+	}
+}
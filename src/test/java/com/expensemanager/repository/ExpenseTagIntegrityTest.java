@@ -0,0 +1,105 @@
+package com.expensemanager.repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The triggers of V6, which stand in for the foreign key from expense_tag to expenses.
+// Each test uses expenses of its own ids and months.
+@Tag("postgres")
+class ExpenseTagIntegrityTest {
+
+	private static final String DATABASE = "tag_integrity";
+
+	@BeforeAll
+	static void migrate() throws SQLException {
+		PostgresTestDatabase.migrate(DATABASE);
+		execute("INSERT INTO tags (id, name) VALUES (1, 'work'), (2, 'home')");
+	}
+
+	@Test
+	void testDeletingAnExpenseDeletesItsLinks() throws SQLException {
+		insertExpense(10, "2026-01-15");
+		execute("INSERT INTO expense_tag (expense_id, tag_id) VALUES (10, 1), (10, 2)");
+
+		execute("DELETE FROM expenses WHERE id = 10");
+
+		assertThat(rows("SELECT tag_id FROM expense_tag WHERE expense_id = 10")).isEmpty();
+	}
+
+	@Test
+	void testLinkToAMissingExpenseIsRejected() {
+		assertThatThrownBy(() -> execute("INSERT INTO expense_tag (expense_id, tag_id) VALUES (999, 1)"))
+				.isInstanceOf(SQLException.class)
+				.extracting(e -> ((SQLException) e).getSQLState())
+				.isEqualTo("23503");
+	}
+
+	@Test
+	void testMovingAnExpenseToAnotherMonthKeepsItsLinks() throws SQLException {
+		execute("SELECT create_expense_partition(DATE '2026-02-01'), create_expense_partition(DATE '2026-03-01')");
+		insertExpense(20, "2026-02-10");
+		execute("INSERT INTO expense_tag (expense_id, tag_id) VALUES (20, 1)");
+
+		execute("UPDATE expenses SET expense_date = DATE '2026-03-05' WHERE id = 20");
+
+		assertThat(rows("SELECT tableoid::regclass::text FROM expenses WHERE id = 20")).containsExactly("expenses_2026_03");
+		assertThat(rows("SELECT tag_id FROM expense_tag WHERE expense_id = 20")).containsExactly("1");
+	}
+
+	@Test
+	void testCreatingAPartitionKeepsTheLinksOfTheExpensesMovedIntoIt() throws SQLException {
+		insertExpense(30, "2027-05-10");
+		execute("INSERT INTO expense_tag (expense_id, tag_id) VALUES (30, 2)");
+
+		execute("SELECT create_expense_partition(DATE '2027-05-01')");
+
+		assertThat(rows("SELECT tableoid::regclass::text FROM expenses WHERE id = 30")).containsExactly("expenses_2027_05");
+		assertThat(rows("SELECT tag_id FROM expense_tag WHERE expense_id = 30")).containsExactly("2");
+	}
+
+	@Test
+	void testArchivingAPartitionMovesItsLinks() throws SQLException {
+		execute("SELECT create_expense_partition(DATE '2025-07-01')");
+		insertExpense(40, "2025-07-10");
+		execute("INSERT INTO expense_tag (expense_id, tag_id) VALUES (40, 1)");
+
+		execute("SELECT archive_expense_partition(DATE '2025-07-01')");
+
+		assertThat(rows("SELECT tag_id FROM expense_tag WHERE expense_id = 40")).isEmpty();
+		assertThat(rows("SELECT tag_id FROM archived_expense_tag_2025_07 WHERE expense_id = 40")).containsExactly("1");
+	}
+
+	private static void insertExpense(long id, String date) throws SQLException {
+		execute("INSERT INTO expenses (id, name, amount, currency, expense_date) "
+				+ "VALUES (" + id + ", 'expense-" + id + "', 1, 'USD', DATE '" + date + "')");
+	}
+
+	private static void execute(String sql) throws SQLException {
+		try (Connection connection = PostgresTestDatabase.connect(DATABASE);
+		     Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	private static List<String> rows(String sql) throws SQLException {
+		try (Connection connection = PostgresTestDatabase.connect(DATABASE);
+		     Statement statement = connection.createStatement();
+		     ResultSet resultSet = statement.executeQuery(sql)) {
+			List<String> rows = new ArrayList<>();
+			while (resultSet.next()) {
+				rows.add(resultSet.getString(1));
+			}
+			return rows;
+		}
+	}
+}
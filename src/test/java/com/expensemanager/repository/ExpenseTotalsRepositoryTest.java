@@ -0,0 +1,155 @@
+package com.expensemanager.repository;
+
+import com.expensemanager.config.TotalsProperties;
+import com.expensemanager.dto.ExpenseGrouping;
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.dto.ExpenseTotal;
+import com.expensemanager.model.Category;
+import com.expensemanager.model.Expense;
+import com.expensemanager.model.Tag;
+import com.expensemanager.service.ExpenseTotalsService;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the native statements of ExpenseTotalsRepository through ExpenseTotalsService, and
+// compares the running totals with those grouped from the expenses by findTotals. The
+// amounts add up exactly in binary, so that the sums can be compared as they are.
+@org.junit.jupiter.api.Tag("postgres")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ExpenseTotalsService.class, TotalsProperties.class})
+class ExpenseTotalsRepositoryTest {
+
+	@Autowired
+	private ExpenseTotalsService expenseTotalsService;
+
+	@Autowired
+	private ExpenseRepository expenseRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private TagRepository tagRepository;
+
+	private Category food;
+	private Category travel;
+	private Tag work;
+	private Tag home;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		PostgresTestDatabase.register(registry, "totals");
+	}
+
+	@BeforeEach
+	void createCategoriesAndTags() {
+		food = categoryRepository.save(new Category("Food"));
+		travel = categoryRepository.save(new Category("Travel"));
+		work = tagRepository.save(new Tag("work"));
+		home = tagRepository.save(new Tag("home"));
+	}
+
+	@Test
+	void testCreateUpdateAndDeleteApplyTheirDeltas() {
+		Expense lunch = create("Lunch", food, 10.0, "USD", work);
+		Expense dinner = create("Dinner", food, 30.0, "USD", work, home);
+		create("Train", travel, 12.5, "EUR", home);
+
+		assertThat(expenseTotalsService.getCategoryTotals()).containsExactly(
+				new ExpenseTotal(food.getId(), "Food", null, null, "USD", 2, 40.0, 10.0, 30.0, 20.0),
+				new ExpenseTotal(travel.getId(), "Travel", null, null, "EUR", 1, 12.5, 12.5, 12.5, 12.5));
+		assertThat(expenseTotalsService.getTagTotals()).containsExactly(
+				new ExpenseTotal(null, null, work.getId(), "work", "USD", 2, 40.0, 10.0, 30.0, 20.0),
+				new ExpenseTotal(null, null, home.getId(), "home", "EUR", 1, 12.5, 12.5, 12.5, 12.5),
+				new ExpenseTotal(null, null, home.getId(), "home", "USD", 1, 30.0, 30.0, 30.0, 30.0));
+		assertRunningTotalsMatchGroupBy();
+
+		// The maximum of Food and work leaves, and home loses its USD group
+		ExpenseSnapshot before = ExpenseSnapshot.of(dinner);
+		dinner.setAmount(5.0);
+		dinner.getTags().remove(home);
+		expenseRepository.save(dinner);
+		expenseTotalsService.applyChange(List.of(before), List.of(ExpenseSnapshot.of(dinner)));
+
+		assertThat(expenseTotalsService.getCategoryTotals()).containsExactly(
+				new ExpenseTotal(food.getId(), "Food", null, null, "USD", 2, 15.0, 5.0, 10.0, 7.5),
+				new ExpenseTotal(travel.getId(), "Travel", null, null, "EUR", 1, 12.5, 12.5, 12.5, 12.5));
+		assertThat(expenseTotalsService.getTagTotals()).containsExactly(
+				new ExpenseTotal(null, null, work.getId(), "work", "USD", 2, 15.0, 5.0, 10.0, 7.5),
+				new ExpenseTotal(null, null, home.getId(), "home", "EUR", 1, 12.5, 12.5, 12.5, 12.5));
+		assertRunningTotalsMatchGroupBy();
+
+		// Moved to another category and currency
+		before = ExpenseSnapshot.of(lunch);
+		lunch.setCategory(travel);
+		lunch.setCurrency("EUR");
+		expenseRepository.save(lunch);
+		expenseTotalsService.applyChange(List.of(before), List.of(ExpenseSnapshot.of(lunch)));
+		assertRunningTotalsMatchGroupBy();
+
+		before = ExpenseSnapshot.of(dinner);
+		expenseRepository.delete(dinner);
+		expenseTotalsService.applyChange(List.of(before), List.of());
+
+		assertThat(expenseTotalsService.getCategoryTotals()).containsExactly(
+				new ExpenseTotal(travel.getId(), "Travel", null, null, "EUR", 2, 22.5, 10.0, 12.5, 11.25));
+		assertThat(expenseTotalsService.getTagTotals()).containsExactly(
+				new ExpenseTotal(null, null, work.getId(), "work", "EUR", 1, 10.0, 10.0, 10.0, 10.0),
+				new ExpenseTotal(null, null, home.getId(), "home", "EUR", 1, 12.5, 12.5, 12.5, 12.5));
+		assertRunningTotalsMatchGroupBy();
+	}
+
+	@Test
+	void testRebuildMatchesAFreshGroupBy() {
+		create("Dinner", food, 30.0, "USD", work, home);
+		// Written without applyChange, as by a bulk change made outside ExpenseService
+		save("Lunch", food, 10.0, "USD", work);
+		save("Taxi", travel, 7.5, "EUR");
+		save("Snack", null, 2.0, "USD");
+		expenseRepository.flush();
+
+		assertThat(expenseTotalsService.rebuildTotals().correctedGroups()).isEqualTo(3);
+
+		assertRunningTotalsMatchGroupBy();
+		assertThat(expenseTotalsService.rebuildTotals().correctedGroups()).isZero();
+	}
+
+	private Expense create(String name, Category category, double amount, String currency, Tag... tags) {
+		Expense expense = save(name, category, amount, currency, tags);
+		expenseTotalsService.applyChange(List.of(), List.of(ExpenseSnapshot.of(expense)));
+		return expense;
+	}
+
+	private Expense save(String name, Category category, double amount, String currency, Tag... tags) {
+		Expense expense = new Expense(name, category, amount, currency);
+		expense.setExpenseDate(LocalDate.now());
+		expense.getTags().addAll(List.of(tags));
+		return expenseRepository.save(expense);
+	}
+
+	// Expenses without a category or tag have no running total
+	private void assertRunningTotalsMatchGroupBy() {
+		assertThat(expenseTotalsService.getCategoryTotals())
+				.isEqualTo(expenseRepository.findTotals(null, Set.of(ExpenseGrouping.CATEGORY, ExpenseGrouping.CURRENCY))
+						.stream()
+						.filter(total -> total.categoryId() != null)
+						.toList());
+		assertThat(expenseTotalsService.getTagTotals())
+				.isEqualTo(expenseRepository.findTotals(null, Set.of(ExpenseGrouping.TAG, ExpenseGrouping.CURRENCY))
+						.stream()
+						.filter(total -> total.tagId() != null)
+						.toList());
+	}
+}
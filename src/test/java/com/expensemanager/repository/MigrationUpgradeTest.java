@@ -0,0 +1,127 @@
+package com.expensemanager.repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the migrations on databases created by ddl-auto=update before they existed, which
+// are baselined at V1 and start from V2
+@Tag("postgres")
+class MigrationUpgradeTest {
+
+	// The DDL Hibernate ran for the entities of that time, with the constraint names it
+	// generates; every id was an identity column and there was no expenses_seq
+	private static final List<String> BASELINE_SCHEMA = List.of(
+			"create table categories (id bigint generated by default as identity, name varchar(255) not null, primary key (id))",
+			"create table expense_tag (expense_id bigint not null, tag_id bigint not null, primary key (expense_id, tag_id))",
+			"create table expenses (amount float(53), category_id bigint, id bigint generated by default as identity, "
+					+ "currency varchar(255), name varchar(255), primary key (id))",
+			"create table tags (id bigint generated by default as identity, name varchar(255) not null, primary key (id))",
+			"alter table if exists categories add constraint UK_t8o6pivur7nn124jehx7cygw5 unique (name)",
+			"alter table if exists tags add constraint UK_t48xdq560gs3gap9g7jg36kgc unique (name)",
+			"alter table if exists expense_tag add constraint FKbm0n4sqbdmr3mmsorhvbq3ysb foreign key (tag_id) references tags",
+			"alter table if exists expense_tag add constraint FK9x4oj3h3b1bsfstb5y0ax1qah foreign key (expense_id) references expenses",
+			"alter table if exists expenses add constraint FKx4ptu4le8ts7eufuvjt3ve1p foreign key (category_id) references categories");
+
+	@Test
+	void testBaselineSchemaEndsUpAsTheMigratedOne() throws SQLException {
+		PostgresTestDatabase.migrate("migrated");
+		createBaselineSchema("upgraded");
+
+		PostgresTestDatabase.migrate("upgraded");
+
+		assertThat(schemaOf("upgraded")).isEqualTo(schemaOf("migrated"));
+	}
+
+	@Test
+	void testExpensesAreKeptAndNewIdsComeAfterTheirs() throws SQLException {
+		createBaselineSchema("with_expenses");
+		try (Connection connection = PostgresTestDatabase.connect("with_expenses");
+		     Statement statement = connection.createStatement()) {
+			statement.execute("insert into categories (name) values ('Food')");
+			statement.execute("insert into tags (name) values ('lunch')");
+			statement.execute("insert into expenses (name, amount, currency, category_id) "
+					+ "select 'expense-' || i, i, 'USD', 1 from generate_series(1, 120) i");
+			statement.execute("insert into expense_tag (expense_id, tag_id) values (7, 1)");
+		}
+
+		PostgresTestDatabase.migrate("with_expenses");
+
+		try (Connection connection = PostgresTestDatabase.connect("with_expenses");
+		     Statement statement = connection.createStatement()) {
+			assertThat(rows(statement, "SELECT COUNT(*) FROM expenses WHERE category_id = 1")).containsExactly("120");
+			assertThat(rows(statement, "SELECT expense_id FROM expense_tag")).containsExactly("7");
+			// The pooled optimizer uses the ids (value - 50, value] of a nextval
+			long next = Long.parseLong(rows(statement, "SELECT nextval('expenses_seq')").get(0));
+			assertThat(next - 50).isGreaterThanOrEqualTo(120);
+			statement.execute("INSERT INTO expenses (id, name, amount, currency, category_id, expense_date) "
+					+ "VALUES (" + next + ", 'new', 1, 'USD', 1, CURRENT_DATE)");
+		}
+	}
+
+	@Test
+	void testTagsThatDifferOnlyInCaseAreMergedIntoTheOldest() throws SQLException {
+		createBaselineSchema("case_duplicates");
+		try (Connection connection = PostgresTestDatabase.connect("case_duplicates");
+		     Statement statement = connection.createStatement()) {
+			statement.execute("insert into tags (name) values ('Food'), ('food'), ('Travel')");
+			statement.execute("insert into expenses (name, amount, currency) values ('Lunch', 10, 'USD'), ('Dinner', 20, 'USD')");
+			statement.execute("insert into expense_tag (expense_id, tag_id) values (1, 1), (1, 2), (2, 2), (2, 3)");
+		}
+
+		PostgresTestDatabase.migrate("case_duplicates");
+
+		try (Connection connection = PostgresTestDatabase.connect("case_duplicates");
+		     Statement statement = connection.createStatement()) {
+			assertThat(rows(statement, "SELECT id || ' ' || name FROM tags ORDER BY id")).containsExactly("1 Food", "3 Travel");
+			assertThat(rows(statement, "SELECT expense_id || ' ' || tag_id FROM expense_tag ORDER BY 1"))
+					.containsExactly("1 1", "2 1", "2 3");
+		}
+	}
+
+	private static void createBaselineSchema(String database) throws SQLException {
+		try (Connection connection = PostgresTestDatabase.connect(database);
+		     Statement statement = connection.createStatement()) {
+			for (String ddl : BASELINE_SCHEMA) {
+				statement.execute(ddl);
+			}
+		}
+	}
+
+	// Columns, constraints, indexes and sequences, apart from Flyway's history table
+	private static List<String> schemaOf(String database) throws SQLException {
+		try (Connection connection = PostgresTestDatabase.connect(database);
+		     Statement statement = connection.createStatement()) {
+			List<String> schema = new ArrayList<>();
+			schema.addAll(rows(statement, "SELECT table_name || '.' || column_name || ' ' || data_type || ' ' || is_nullable "
+					+ "|| ' ' || COALESCE(column_default, '') || ' ' || COALESCE(identity_generation, '') "
+					+ "FROM information_schema.columns "
+					+ "WHERE table_schema = 'public' AND table_name <> 'flyway_schema_history' ORDER BY 1"));
+			schema.addAll(rows(statement, "SELECT conrelid::regclass || ' ' || conname || ' ' || pg_get_constraintdef(oid) "
+					+ "FROM pg_constraint "
+					+ "WHERE connamespace = 'public'::regnamespace AND conrelid <> 'flyway_schema_history'::regclass ORDER BY 1"));
+			schema.addAll(rows(statement, "SELECT indexdef FROM pg_indexes "
+					+ "WHERE schemaname = 'public' AND tablename <> 'flyway_schema_history' ORDER BY 1"));
+			schema.addAll(rows(statement, "SELECT sequencename || ' ' || increment_by FROM pg_sequences "
+					+ "WHERE schemaname = 'public' ORDER BY 1"));
+			return schema;
+		}
+	}
+
+	private static List<String> rows(Statement statement, String sql) throws SQLException {
+		List<String> rows = new ArrayList<>();
+		try (ResultSet resultSet = statement.executeQuery(sql)) {
+			while (resultSet.next()) {
+				rows.add(resultSet.getString(1));
+			}
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,47 @@
+package com.expensemanager.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import org.flywaydb.core.Flyway;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+// PostgreSQL databases for the tests tagged "postgres", which run in the ci profile
+// (mvn -P ci test). The Testcontainers JDBC driver of that profile starts a server in
+// Docker on the first connection to a database, and keeps it until the JVM exits; each
+// database name gets a server of its own.
+final class PostgresTestDatabase {
+
+	static final String USERNAME = "test";
+	static final String PASSWORD = "test";
+
+	private PostgresTestDatabase() {
+	}
+
+	static String url(String name) {
+		return "jdbc:tc:postgresql:16-alpine:///" + name + "?TC_DAEMON=true";
+	}
+
+	static Connection connect(String name) throws SQLException {
+		return DriverManager.getConnection(url(name), USERNAME, PASSWORD);
+	}
+
+	// Runs the migrations as the application does, see spring.flyway in application.yml
+	static void migrate(String name) {
+		Flyway.configure()
+				.dataSource(url(name), USERNAME, PASSWORD)
+				.baselineOnMigrate(true)
+				.baselineVersion("1")
+				.load()
+				.migrate();
+	}
+
+	// Points the Spring test context at the database, which Flyway migrates on startup
+	static void register(DynamicPropertyRegistry registry, String name) {
+		registry.add("spring.datasource.url", () -> url(name));
+		registry.add("spring.datasource.driver-class-name", () -> "org.testcontainers.jdbc.ContainerDatabaseDriver");
+		registry.add("spring.datasource.username", () -> USERNAME);
+		registry.add("spring.datasource.password", () -> PASSWORD);
+		registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+	}
+}
@@ -0,0 +1,213 @@
+package com.expensemanager.repository;
+
+import com.expensemanager.dto.ExpenseSort;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Checks with EXPLAIN that the repository queries are served by the indexes of the
+// migrations. Each test calls a repository method, records the statements Hibernate
+// executes, with their parameters inlined by the driver, and explains them. There are
+// enough rows for PostgreSQL to prefer the indexes on its own. The expenses are spread
+// over the monthly partitions of 2026, whose indexes PostgreSQL names after the partition
+// and the indexed columns, e.g. expenses_2026_03_amount_id_idx for expenses_amount_id_idx
+// and expenses_2026_03_lower_idx for expenses_lower_name_trgm_idx.
+@Tag("postgres")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(QueryPlanTest.StatementRecorder.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+	private static final int PAGE_SIZE = 51;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private StatementRecorder statementRecorder;
+
+	@Autowired
+	private ExpenseRepository expenseRepository;
+
+	@Autowired
+	private TagRepository tagRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		PostgresTestDatabase.register(registry, "query_plans");
+	}
+
+	@BeforeAll
+	void insertExpenses() throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+		     Statement statement = connection.createStatement()) {
+			statement.execute("INSERT INTO categories (name) SELECT 'category-' || i FROM generate_series(1, 1000) i");
+			statement.execute("INSERT INTO tags (name) SELECT 'tag-' || i FROM generate_series(1, 5000) i");
+			statement.execute("SELECT create_expense_partition(CAST(DATE '2026-01-01' + m * INTERVAL '1 month' AS date)) "
+					+ "FROM generate_series(0, 11) m");
+			// Inserted in date order, as the BRIN index on expense_date assumes
+			statement.execute("INSERT INTO expenses (id, name, amount, currency, category_id, expense_date) "
+					+ "SELECT i, md5(i::text), (i * 7919) % 10000 / 100.0, 'USD', i % 1000 + 1, "
+					+ "DATE '2026-01-01' + i * 365 / 120001 "
+					+ "FROM generate_series(1, 120000) i");
+			statement.execute("INSERT INTO expense_tag (expense_id, tag_id) "
+					+ "SELECT i, (i * 31 + j) % 5000 + 1 FROM generate_series(1, 120000) i, generate_series(0, 2) j");
+			statement.execute("ANALYZE");
+		}
+	}
+
+	@Test
+	void testExpensesByCategoryUseCategoryIndex() throws SQLException {
+		assertThat(planOf(() -> expenseRepository.findPageIds(ExpenseSpecifications.hasCategoryName("category-7"),
+				ExpenseSort.ID, Sort.Direction.ASC, null, null, PAGE_SIZE)))
+				.contains("categories_name_key", "expenses_2026_03_category_id_id_idx");
+	}
+
+	@Test
+	void testExpensesByAmountRangeUseAmountIndex() throws SQLException {
+		assertThat(planOf(() -> expenseRepository.findPageIds(ExpenseSpecifications.amountBetween(10, 10.01),
+				ExpenseSort.ID, Sort.Direction.ASC, null, null, PAGE_SIZE)))
+				.contains("expenses_2026_03_amount_id_idx");
+		assertThat(planOf(() -> expenseRepository.findPageIds(ExpenseSpecifications.amountBetween(10, 20),
+				ExpenseSort.AMOUNT, Sort.Direction.ASC, 12.5, 100L, PAGE_SIZE)))
+				.contains("expenses_2026_03_amount_id_idx");
+	}
+
+	@Test
+	void testExpensesByTagUseTagIndex() throws SQLException {
+		assertThat(planOf(() -> expenseRepository.findPageIds(ExpenseSpecifications.hasTagName("tag-7"),
+				ExpenseSort.ID, Sort.Direction.ASC, null, null, PAGE_SIZE)))
+				.contains("tags_lower_name_idx", "expense_tag_tag_id_idx");
+	}
+
+	// Only the trigram index can serve the LIKE. The part is long enough to be known to
+	// match few rows; md5('1234') is 81dc9bdb52d04dc20036dbd8313ed055.
+	@Test
+	void testExpensesByNamePartUseTrigramIndex() throws SQLException {
+		assertThat(planOf(() -> expenseRepository.findPageIds(ExpenseSpecifications.nameContains("DC9BDB52D04D"),
+				ExpenseSort.ID, Sort.Direction.ASC, null, null, PAGE_SIZE)))
+				.contains("Bitmap Index Scan on expenses_2026_03_lower_idx");
+	}
+
+	@Test
+	void testExpensesSortedByNameUseNameIndex() throws SQLException {
+		assertThat(planOf(() -> expenseRepository.findPageIds(null, ExpenseSort.NAME, Sort.Direction.ASC,
+				"abc", 100L, PAGE_SIZE)))
+				.contains("expenses_2026_03_name_id_idx");
+	}
+
+	@Test
+	void testExpenseViewsUsePrimaryKeys() throws SQLException {
+		assertThat(planOf(() -> expenseRepository.findViewsByIdIn(List.of(1L, 2L, 3L))))
+				.contains("expenses_2026_01_pkey", "expense_tag_pkey", "tags_pkey");
+	}
+
+	@Test
+	void testExpensesOfADayReadOnlyTheirPartition() throws SQLException {
+		LocalDate day = LocalDate.of(2026, 3, 15);
+		assertThat(planOf(() -> expenseRepository.findPageIds(ExpenseSpecifications.expenseDateBetween(day, day),
+				ExpenseSort.ID, Sort.Direction.ASC, null, null, PAGE_SIZE)))
+				.contains("expenses_2026_03")
+				.doesNotContain("expenses_2026_02", "expenses_2026_04", "expenses_default");
+	}
+
+	@Test
+	void testNameLookupsUseNameIndexes() throws SQLException {
+		assertThat(planOf(() -> tagRepository.findByNameIgnoreCase("Tag-7")))
+				.contains("tags_lower_name_idx");
+		assertThat(planOf(() -> tagRepository.findAllByLowerNameIn(List.of("tag-7", "tag-8"))))
+				.contains("tags_lower_name_idx");
+		assertThat(planOf(() -> categoryRepository.findByNameIgnoreCase("Category-7")))
+				.contains("categories_lower_name_idx");
+		assertThat(planOf(() -> categoryRepository.existsByName("category-7")))
+				.contains("categories_name_key");
+	}
+
+	// The plans of the statements the call executes
+	private String planOf(Runnable call) throws SQLException {
+		statementRecorder.clear();
+		call.run();
+		List<String> statements = statementRecorder.statements();
+		assertThat(statements).isNotEmpty();
+		StringBuilder plan = new StringBuilder();
+		try (Connection connection = dataSource.getConnection();
+		     Statement statement = connection.createStatement()) {
+			for (String sql : statements) {
+				try (ResultSet rows = statement.executeQuery("EXPLAIN " + sql)) {
+					while (rows.next()) {
+						plan.append(rows.getString(1)).append('\n');
+					}
+				}
+			}
+		}
+		return plan.toString();
+	}
+
+	// Wraps the DataSource to record the queries run through prepared statements. The
+	// toString of a PostgreSQL prepared statement is its SQL with the bound parameters.
+	static class StatementRecorder implements BeanPostProcessor {
+
+		private final List<String> statements = new CopyOnWriteArrayList<>();
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) {
+			return bean instanceof DataSource dataSource ? proxy(DataSource.class, dataSource) : bean;
+		}
+
+		List<String> statements() {
+			return new ArrayList<>(statements);
+		}
+
+		void clear() {
+			statements.clear();
+		}
+
+		private <T> T proxy(Class<T> type, T target) {
+			return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+				if (target instanceof PreparedStatement statement && method.getName().equals("executeQuery") && args == null) {
+					statements.add(statement.unwrap(PreparedStatement.class).toString());
+				}
+				Object result;
+				try {
+					result = method.invoke(target, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+				if (result instanceof Connection connection) {
+					return proxy(Connection.class, connection);
+				}
+				if (method.getName().equals("prepareStatement")) {
+					return proxy(PreparedStatement.class, (PreparedStatement) result);
+				}
+				return result;
+			}));
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.expensemanager.repository;
+
+import com.expensemanager.model.Tag;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@org.junit.jupiter.api.Tag("postgres")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class TagRepositoryTest {
+
+	@Autowired
+	private TagRepository tagRepository;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		PostgresTestDatabase.register(registry, "tags");
+	}
+
+	@Test
+	void testInsertIgnoringDuplicatesSkipsNamesTakenInAnotherCase() {
+		tagRepository.save(new Tag("Food"));
+
+		int inserted = tagRepository.insertIgnoringDuplicates(List.of("food", "FOOD", "Travel"));
+
+		assertThat(inserted).isEqualTo(1);
+		assertThat(tagRepository.findAll()).extracting(Tag::getName).containsExactlyInAnyOrder("Food", "Travel");
+	}
+
+	@Test
+	void testInsertIgnoringDuplicatesKeepsOneOfNamesThatDifferOnlyInCase() {
+		int inserted = tagRepository.insertIgnoringDuplicates(List.of("Gym", "GYM", "gym"));
+
+		assertThat(inserted).isEqualTo(1);
+		assertThat(tagRepository.findAllByLowerNameIn(List.of("gym"))).hasSize(1);
+	}
+
+	@Test
+	void testNamesThatDifferOnlyInCaseAreRejected() {
+		tagRepository.saveAndFlush(new Tag("Rent"));
+
+		assertThatThrownBy(() -> tagRepository.saveAndFlush(new Tag("rent")))
+				.isInstanceOf(DataIntegrityViolationException.class);
+	}
+}
@@ -0,0 +1,94 @@
+package com.expensemanager.search;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FuzzyIndexTest {
+
+	private final FuzzyIndex index = new FuzzyIndex();
+
+	@Test
+	void testSearchRanksByDistanceThenId() {
+		index.put(1L, "Coffee beans", List.of());
+		index.put(2L, "Lunch", List.of("Cafe"));
+		index.put(3L, "Toffee", List.of());
+		index.put(4L, "Rent", List.of());
+
+		assertThat(index.search("COFEE", 2, 10)).containsExactly(
+				new FuzzyIndex.Match(1L, 1, "coffee"),
+				new FuzzyIndex.Match(2L, 2, "cafe"),
+				new FuzzyIndex.Match(3L, 2, "toffee"));
+		assertThat(index.search("cofee", 2, 2)).extracting(FuzzyIndex.Match::id).containsExactly(1L, 2L);
+		assertThat(index.search("coffee beens", 1, 10)).containsExactly(new FuzzyIndex.Match(1L, 1, "coffee beans"));
+	}
+
+	@Test
+	void testPutReplacesAndRemoveDropsTerms() {
+		index.put(1L, "Taxi", List.of("travel"));
+		index.put(1L, "Train", List.of());
+
+		assertThat(index.search("taxi", 1, 10)).isEmpty();
+		assertThat(index.search("travle", 2, 10)).isEmpty();
+		assertThat(index.search("trian", 2, 10)).containsExactly(new FuzzyIndex.Match(1L, 2, "train"));
+
+		index.remove(1L);
+		assertThat(index.search("train", 0, 10)).isEmpty();
+		assertThat(index.size()).isZero();
+	}
+
+	@Test
+	void testDeadTermsArePrunedOnceTheyOutnumberTheLiveOnes() {
+		for (long id = 0; id < 100; id++) {
+			index.put(id, "expense" + id, List.of());
+		}
+		assertThat(index.termCount()).isEqualTo(100);
+
+		for (long id = 0; id < 90; id++) {
+			index.put(id, "renamed" + id, List.of());
+		}
+		for (long id = 0; id < 80; id++) {
+			index.remove(id);
+		}
+
+		assertThat(index.size()).isEqualTo(20);
+		assertThat(index.termCount()).isLessThanOrEqualTo(40);
+		assertThat(index.search("expense95", 0, 10)).containsExactly(new FuzzyIndex.Match(95L, 0, "expense95"));
+		assertThat(index.search("renamed85", 0, 10)).containsExactly(new FuzzyIndex.Match(85L, 0, "renamed85"));
+		assertThat(index.search("expense5", 0, 10)).isEmpty();
+
+		for (long id = 80; id < 100; id++) {
+			index.remove(id);
+		}
+		assertThat(index.termCount()).isZero();
+	}
+
+	@Test
+	void testSearchMatchesBruteForce() {
+		Random random = new Random(7);
+		List<String> words = IntStream.range(0, 500)
+				.mapToObj(i -> random.ints(3 + random.nextInt(5), 'a', 'f')
+						.mapToObj(c -> String.valueOf((char) c))
+						.collect(Collectors.joining()))
+				.toList();
+		for (int i = 0; i < words.size(); i++) {
+			index.put((long) i, words.get(i), List.of());
+		}
+
+		for (String query : List.of("abcd", "eeee", "acebd", "ba")) {
+			List<Long> expected = IntStream.range(0, words.size())
+					.filter(i -> FuzzyIndex.distance(query, words.get(i)) <= 2)
+					.boxed()
+					.sorted(Comparator.comparingInt((Integer i) -> FuzzyIndex.distance(query, words.get(i)))
+							.thenComparing(Comparator.naturalOrder()))
+					.map(Integer::longValue)
+					.toList();
+			assertThat(index.search(query, 2, words.size())).extracting(FuzzyIndex.Match::id).isEqualTo(expected);
+		}
+	}
+}
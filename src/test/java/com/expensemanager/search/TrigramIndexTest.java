@@ -0,0 +1,54 @@
+package com.expensemanager.search;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+	private final TrigramIndex index = new TrigramIndex();
+
+	@Test
+	void testSearchFindsSubstringsIgnoringCase() {
+		index.putAll(Map.of(1L, "Coffee beans", 2L, "Tea", 3L, "Iced COFFEE", 4L, "Toffee"));
+
+		assertThat(index.search("coffee")).containsExactly(1L, 3L);
+		assertThat(index.search("ffee")).containsExactly(1L, 3L, 4L);
+		assertThat(index.search("bean")).containsExactly(1L);
+		assertThat(index.search("coffee cup")).isEmpty();
+	}
+
+	@Test
+	void testTrigramsMustBeAdjacent() {
+		// Has the trigrams of "abcd" but not the substring
+		index.put(1L, "abc bcd");
+
+		assertThat(index.search("abcd")).isEmpty();
+		assertThat(index.search("bc b")).containsExactly(1L);
+	}
+
+	@Test
+	void testShortQueriesCheckEveryName() {
+		index.putAll(Map.of(1L, "Tea", 2L, "Taxi", 3L, "Rent"));
+
+		assertThat(index.search("t")).containsExactly(1L, 2L, 3L);
+		assertThat(index.search("ta")).containsExactly(2L);
+		assertThat(index.search("")).containsExactly(1L, 2L, 3L);
+	}
+
+	@Test
+	void testPutReplacesAndRemoveDropsName() {
+		index.put(1L, "Lunch");
+		index.put(1L, "Dinner");
+		index.put(2L, "Lunch box");
+		index.remove(2L);
+
+		assertThat(index.search("lunch")).isEmpty();
+		assertThat(index.search("dinner")).containsExactly(1L);
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(TrigramIndex.trigrams("aaaa")).hasSize(1);
+		assertThat(index.search("inn")).isEqualTo(List.of(1L));
+	}
+}
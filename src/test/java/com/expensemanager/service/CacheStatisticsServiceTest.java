@@ -0,0 +1,70 @@
+package com.expensemanager.service;
+
+import com.expensemanager.cache.CacheStats;
+import com.expensemanager.cache.CategoryCache;
+import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.TagCache;
+import com.expensemanager.config.CacheProperties;
+import com.expensemanager.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CacheStatisticsServiceTest {
+
+	private ExpenseCache expenseCache;
+	private TagCache tagCache;
+	private CacheStatisticsService cacheStatisticsService;
+
+	@BeforeEach
+	void setUp() {
+		CacheProperties cacheProperties = new CacheProperties();
+		expenseCache = new ExpenseCache(cacheProperties);
+		tagCache = new TagCache(cacheProperties);
+		cacheStatisticsService = new CacheStatisticsService(
+				List.of(expenseCache, tagCache, new CategoryCache(cacheProperties)));
+	}
+
+	@Test
+	void testGetAllStats_PerCacheBreakdown() {
+		expenseCache.get(1L, id -> null);
+		tagCache.get(1L, id -> null);
+		tagCache.get(2L);
+
+		List<CacheStats> stats = cacheStatisticsService.getAllStats();
+
+		assertThat(stats).extracting(CacheStats::name).containsExactly("categories", "expenses", "tags");
+		assertThat(stats).extracting(CacheStats::missCount).containsExactly(0L, 1L, 2L);
+	}
+
+	@Test
+	void testResetStats_OnlyNamedCache() {
+		expenseCache.get(1L);
+		tagCache.get(1L);
+
+		cacheStatisticsService.resetStats("tags");
+
+		assertThat(cacheStatisticsService.getStats("tags").missCount()).isZero();
+		assertThat(cacheStatisticsService.getStats("expenses").missCount()).isEqualTo(1);
+	}
+
+	@Test
+	void testResetAllStats() {
+		expenseCache.get(1L);
+		tagCache.get(1L);
+
+		cacheStatisticsService.resetAllStats();
+
+		assertThat(cacheStatisticsService.getAllStats()).allMatch(stats -> stats.missCount() == 0);
+	}
+
+	@Test
+	void testGetStats_UnknownCache() {
+		assertThatThrownBy(() -> cacheStatisticsService.getStats("unknown"))
+				.isInstanceOf(ResourceNotFoundException.class)
+				.hasMessageContaining("Cache 'unknown' not found");
+	}
+}
@@ -0,0 +1,115 @@
+package com.expensemanager.service;
+
+import com.expensemanager.cache.CategoryCache;
+import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.TagCache;
+import com.expensemanager.config.CacheProperties;
+import com.expensemanager.model.Tag;
+import com.expensemanager.repository.CategoryRepository;
+import com.expensemanager.repository.ExpenseRepository;
+import com.expensemanager.repository.TagRepository;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmUpServiceTest {
+
+	@Mock
+	private ExpenseRepository expenseRepository;
+
+	@Mock
+	private TagRepository tagRepository;
+
+	@Mock
+	private CategoryRepository categoryRepository;
+
+	@TempDir
+	private Path snapshotDirectory;
+
+	private final CacheProperties cacheProperties = new CacheProperties();
+	private final List<Tag> tags = List.of(tag(1L, "groceries"), tag(2L, "travel"), tag(3L, "rent"));
+
+	@BeforeEach
+	void setUp() {
+		cacheProperties.getSnapshot().setDirectory(snapshotDirectory);
+		cacheProperties.getSnapshot().setBatchSize(2);
+		TagCache tagCache = new TagCache(cacheProperties);
+		tags.forEach(tag -> tagCache.put(tag.getId(), tag));
+		service(tagCache).saveSnapshots();
+	}
+
+	@Test
+	void testSnapshotIsReloadedInBatchesOnStartup() {
+		TagCache tagCache = new TagCache(cacheProperties);
+		when(tagRepository.findAllById(any())).thenAnswer(invocation -> {
+			Collection<Long> ids = invocation.getArgument(0);
+			return tags.stream().filter(tag -> ids.contains(tag.getId())).toList();
+		});
+
+		service(tagCache).warmUp();
+
+		assertThat(tagCache.getAll(List.of(1L, 2L, 3L))).hasSize(3);
+		verify(tagRepository, times(2)).findAllById(any());
+		verifyNoInteractions(expenseRepository, categoryRepository);
+	}
+
+	@Test
+	void testWarmUpStopsWaitingWhenBudgetIsUsedUp() {
+		cacheProperties.getSnapshot().setWarmUpBudget(Duration.ofMillis(100));
+		TagCache tagCache = new TagCache(cacheProperties);
+		CountDownLatch slowDatabase = new CountDownLatch(1);
+		when(tagRepository.findAllById(any())).thenAnswer(invocation -> {
+			slowDatabase.await();
+			return tags;
+		});
+
+		try {
+			service(tagCache).warmUp();
+
+			assertThat(tagCache.getAll(List.of(1L, 2L, 3L))).isEmpty();
+		} finally {
+			slowDatabase.countDown();
+		}
+	}
+
+	@Test
+	void testBatchOverlappingAnInvalidationIsDropped() {
+		TagCache tagCache = new TagCache(cacheProperties);
+		when(tagRepository.findAllById(any())).thenAnswer(invocation -> {
+			// Another node changed a tag while the batch was being read
+			tagCache.remove(2L);
+			return tags;
+		});
+
+		service(tagCache).warmUp();
+
+		assertThat(tagCache.getAll(List.of(1L, 2L, 3L))).isEmpty();
+	}
+
+	private CacheWarmUpService service(TagCache tagCache) {
+		return new CacheWarmUpService(new ExpenseCache(cacheProperties), tagCache, new CategoryCache(cacheProperties),
+				expenseRepository, tagRepository, categoryRepository, cacheProperties);
+	}
+
+	private static Tag tag(Long id, String name) {
+		Tag tag = new Tag(name);
+		tag.setId(id);
+		return tag;
+	}
+}
@@ -1,6 +1,11 @@
 package com.expensemanager.service;
 
+import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.ExpenseQueryCache;
+import com.expensemanager.cache.ExpenseQueryCache.QueryType;
 import com.expensemanager.cache.CategoryCache;
+import com.expensemanager.cache.CategoryDictionary;
+import com.expensemanager.cache.invalidation.CacheInvalidationBus;
 import com.expensemanager.dto.CategoryDTO;
 import com.expensemanager.exception.CategoryAlreadyExistsException;
 import com.expensemanager.exception.ResourceNotFoundException;
@@ -11,9 +16,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
@@ -28,6 +36,18 @@ class CategoryServiceTest {
 	@Mock
 	private CategoryCache categoryCache;
 
+	@Spy
+	private CategoryDictionary categoryDictionary = new CategoryDictionary();
+
+	@Mock
+	private ExpenseCache expenseCache;
+
+	@Mock
+	private ExpenseQueryCache expenseQueryCache;
+
+	@Mock
+	private CacheInvalidationBus invalidationBus;
+
 	@InjectMocks
 	private CategoryService categoryService;
 
@@ -40,19 +60,17 @@ class CategoryServiceTest {
 
 	@Test
 	void testGetAllCategories() {
-		Category cat1 = new Category();
+		Category cat1 = new Category("Food");
 		cat1.setId(1L);
-		Category cat2 = new Category();
+		Category cat2 = new Category("Rent");
 		cat2.setId(2L);
 		List<Category> categories = List.of(cat1, cat2);
 		when(categoryRepository.findAll()).thenReturn(categories);
-		when(categoryCache.get(1L)).thenReturn(null);
-		when(categoryCache.get(2L)).thenReturn(cat2);
 
+		categoryService.getAllCategories();
 		List<Category> result = categoryService.getAllCategories();
-		assertThat(result).hasSize(2);
-		verify(categoryCache).put(1L, cat1);
-		verify(categoryCache, never()).put(eq(2L), any());
+		assertThat(result).extracting(Category::getName).containsExactly("Food", "Rent");
+		verify(categoryRepository, times(1)).findAll();
 	}
 
 	// ---------- getCategoryById ----------
@@ -61,7 +79,7 @@ class CategoryServiceTest {
 	void testGetCategoryById_CacheHit() {
 		Category cat = new Category();
 		cat.setId(10L);
-		when(categoryCache.get(10L)).thenReturn(cat);
+		when(categoryCache.get(eq(10L), any())).thenReturn(cat);
 
 		Category result = categoryService.getCategoryById(10L);
 		assertThat(result).isSameAs(cat);
@@ -72,17 +90,16 @@ class CategoryServiceTest {
 	void testGetCategoryById_CacheMissFound() {
 		Category cat = new Category();
 		cat.setId(20L);
-		when(categoryCache.get(20L)).thenReturn(null);
+		when(categoryCache.get(eq(20L), any())).thenAnswer(this::loadThroughCache);
 		when(categoryRepository.findById(20L)).thenReturn(Optional.of(cat));
 
 		Category result = categoryService.getCategoryById(20L);
 		assertThat(result).isSameAs(cat);
-		verify(categoryCache).put(20L, cat);
 	}
 
 	@Test
 	void testGetCategoryById_NotFound() {
-		when(categoryCache.get(30L)).thenReturn(null);
+		when(categoryCache.get(eq(30L), any())).thenAnswer(this::loadThroughCache);
 		when(categoryRepository.findById(30L)).thenReturn(Optional.empty());
 
 		assertThatThrownBy(() -> categoryService.getCategoryById(30L))
@@ -131,7 +148,7 @@ class CategoryServiceTest {
 		Category existing = new Category();
 		existing.setId(50L);
 		existing.setName("OldName");
-		when(categoryCache.get(50L)).thenReturn(existing);
+		when(categoryCache.get(eq(50L), any())).thenReturn(existing);
 
 		CategoryDTO dto = new CategoryDTO();
 		dto.setName("NewName");
@@ -145,6 +162,8 @@ class CategoryServiceTest {
 		Category result = categoryService.updateCategory(50L, dto);
 		assertThat(result.getName()).isEqualTo("NewName");
 		verify(categoryCache).put(50L, updated);
+		verify(expenseCache).removeWithCategories(List.of(50L));
+		verify(expenseQueryCache).invalidate(QueryType.CATEGORY);
 	}
 
 	// ---------- deleteCategory ----------
@@ -153,10 +172,17 @@ class CategoryServiceTest {
 	void testDeleteCategory() {
 		Category existing = new Category();
 		existing.setId(60L);
-		when(categoryCache.get(60L)).thenReturn(existing);
+		when(categoryCache.get(eq(60L), any())).thenReturn(existing);
 
 		categoryService.deleteCategory(60L);
 		verify(categoryRepository).delete(existing);
 		verify(categoryCache).remove(60L);
+		verify(expenseCache).removeWithCategories(List.of(60L));
+		verify(expenseQueryCache).invalidate(QueryType.CATEGORY);
+	}
+
+	private Object loadThroughCache(InvocationOnMock invocation) {
+		Function<Long, Object> loader = invocation.getArgument(1);
+		return loader.apply(invocation.getArgument(0));
 	}
 }
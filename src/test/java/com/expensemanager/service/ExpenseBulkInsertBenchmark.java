@@ -0,0 +1,118 @@
+package com.expensemanager.service;
+
+import com.expensemanager.ExpenseManagerApplication;
+import com.expensemanager.dto.CategoryDTO;
+import com.expensemanager.dto.ExpenseDTO;
+import com.expensemanager.dto.TagDTO;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// Rows per second of ExpenseService.createExpensesBulk for growing bulk sizes.
+// Not a unit test; run manually against an in-memory H2 database or a local,
+// disposable PostgreSQL database (it is emptied and migrated first), e.g.
+//   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+//   java -cp target/classes:target/test-classes:$(cat cp.txt) com.expensemanager.service.ExpenseBulkInsertBenchmark h2
+//   java -cp ... com.expensemanager.service.ExpenseBulkInsertBenchmark jdbc:postgresql://localhost/bench 100,1000
+// PostgreSQL credentials are read from SPRING_DATASOURCE_USERNAME and SPRING_DATASOURCE_PASSWORD,
+// as by the application. Sizes default to 100,1000,10000,100000.
+// Each expense gets two tags, so every row also writes two expense_tag links.
+public class ExpenseBulkInsertBenchmark {
+
+	private static final String CATEGORY = "Benchmark";
+	private static final List<String> TAGS = List.of("bench-a", "bench-b", "bench-c");
+
+	public static void main(String[] args) {
+		String target = args.length > 0 ? args[0] : "h2";
+		int[] sizes = Stream.of((args.length > 1 ? args[1] : "100,1000,10000,100000").split(","))
+				.mapToInt(Integer::parseInt)
+				.toArray();
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ExpenseManagerApplication.class)
+				.web(WebApplicationType.NONE)
+				.initializers(ExpenseBulkInsertBenchmark::recreateSchema)
+				.run(arguments(target))) {
+			CategoryService categoryService = context.getBean(CategoryService.class);
+			TagService tagService = context.getBean(TagService.class);
+			ExpenseService expenseService = context.getBean(ExpenseService.class);
+
+			CategoryDTO category = new CategoryDTO();
+			category.setName(CATEGORY);
+			categoryService.createCategory(category);
+			for (String name : TAGS) {
+				TagDTO tag = new TagDTO();
+				tag.setName(name);
+				tagService.createTag(tag);
+			}
+
+			// Warms up the JIT, connection pool and Hibernate's statement caches
+			expenseService.createExpensesBulk(expenses(1_000));
+
+			System.out.printf("%-10s %10s %12s%n", "rows", "ms", "rows/s");
+			for (int size : sizes) {
+				List<ExpenseDTO> expenses = expenses(size);
+				long start = System.nanoTime();
+				expenseService.createExpensesBulk(expenses);
+				double seconds = (System.nanoTime() - start) / 1e9;
+				System.out.printf("%-10d %10.0f %12.0f%n", size, seconds * 1000, size / seconds);
+			}
+		}
+	}
+
+	// The PostgreSQL schema is dropped and migrated again, so that every run starts empty
+	static void recreateSchema(ConfigurableApplicationContext context) {
+		context.getBeanFactory().registerSingleton("flywayMigrationStrategy", (FlywayMigrationStrategy) flyway -> {
+			flyway.clean();
+			flyway.migrate();
+		});
+	}
+
+	// Passed as command line arguments so that they take precedence over application.yml
+	private static String[] arguments(String target) {
+		Map<String, String> properties = new LinkedHashMap<>();
+		if (target.equals("h2")) {
+			properties.put("spring.datasource.url", "jdbc:h2:mem:benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE");
+			properties.put("spring.datasource.username", "sa");
+			properties.put("spring.datasource.password", "");
+			properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+			properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+			// The migrations are written for PostgreSQL
+			properties.put("spring.flyway.enabled", "false");
+			properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+			properties.put("totals.maintain-running", "false");
+			properties.put("partitions.manage", "false");
+		} else {
+			properties.put("spring.datasource.url", target);
+			properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+			properties.put("spring.flyway.clean-disabled", "false");
+		}
+		properties.put("spring.jpa.show-sql", "false");
+		properties.put("logging.level.root", "warn");
+		properties.put("cache.invalidation.transport", "loopback");
+		properties.put("cache.snapshot.enabled", "false");
+		return properties.entrySet().stream()
+				.map(property -> "--" + property.getKey() + "=" + property.getValue())
+				.toArray(String[]::new);
+	}
+
+	private static List<ExpenseDTO> expenses(int count) {
+		List<ExpenseDTO> expenses = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			ExpenseDTO expense = new ExpenseDTO();
+			expense.setName("Expense " + i);
+			expense.setAmount((double) (i % 500));
+			expense.setCurrency("USD");
+			expense.setCategory(CATEGORY);
+			expense.setTags(Set.of(TAGS.get(i % TAGS.size()), TAGS.get((i + 1) % TAGS.size())));
+			expenses.add(expense);
+		}
+		return expenses;
+	}
+}
@@ -0,0 +1,79 @@
+package com.expensemanager.service;
+
+import com.expensemanager.model.Category;
+import com.expensemanager.model.Expense;
+import com.expensemanager.model.Tag;
+import com.expensemanager.repository.ExpenseRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExpenseExportServiceTest {
+
+	@Mock
+	private ExpenseRepository expenseRepository;
+
+	@Mock
+	private EntityManager entityManager;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void testExportWritesOneLinePerExpenseAndClearsEveryChunk() throws Exception {
+		Category category = new Category();
+		category.setId(1L);
+		category.setName("Food");
+		Tag tag = new Tag();
+		tag.setId(2L);
+		tag.setName("urgent");
+		List<Expense> expenses = LongStream.rangeClosed(1, ExpenseExportService.CHUNK_SIZE + 1)
+				.mapToObj(id -> {
+					Expense expense = new Expense("Expense " + id, category, (double) id, "USD");
+					expense.setId(id);
+					expense.getTags().add(tag);
+					return expense;
+				})
+				.toList();
+		when(expenseRepository.streamAllWithCategory()).thenReturn(expenses.stream());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		long exported = new ExpenseExportService(expenseRepository, entityManager, objectMapper).exportExpenses(out);
+
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertThat(exported).isEqualTo(expenses.size());
+		assertThat(lines).hasSize(expenses.size());
+		JsonNode first = objectMapper.readTree(lines[0]);
+		assertThat(first.get("id").asLong()).isEqualTo(1L);
+		assertThat(first.get("category").get("name").asText()).isEqualTo("Food");
+		assertThat(first.get("tags").get(0).get("name").asText()).isEqualTo("urgent");
+		verify(expenseRepository, times(2)).findAllByIdWithAssociations(anyList());
+		verify(entityManager, times(2)).clear();
+	}
+
+	@Test
+	void testExportOfEmptyTableWritesNothing() throws Exception {
+		when(expenseRepository.streamAllWithCategory()).thenReturn(Stream.empty());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		long exported = new ExpenseExportService(expenseRepository, entityManager, objectMapper).exportExpenses(out);
+
+		assertThat(exported).isZero();
+		assertThat(out.size()).isZero();
+	}
+}
@@ -0,0 +1,160 @@
+package com.expensemanager.service;
+
+import com.expensemanager.ExpenseManagerApplication;
+import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.ExpenseQueryCache;
+import com.expensemanager.dto.CategoryDTO;
+import com.expensemanager.dto.ExpenseDTO;
+import com.expensemanager.dto.ExpensePage;
+import com.expensemanager.dto.ExpensePageRequest;
+import com.expensemanager.dto.FetchPlan;
+import com.expensemanager.dto.TagDTO;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Pages through every expense with each FetchPlan, starting from empty caches, and
+// prints the time, the number of SQL statements and the number of rows returned to load
+// the expenses of the pages. Not a unit test; run manually like ExpenseBulkInsertBenchmark, e.g.
+//   java -cp ... com.expensemanager.service.ExpenseFetchPlanBenchmark h2 10000 3
+//   java -cp ... com.expensemanager.service.ExpenseFetchPlanBenchmark jdbc:postgresql://localhost/bench 100000 5
+// The arguments are the database, the number of expenses (default 10000) and the
+// number of tags per expense (default 3).
+public class ExpenseFetchPlanBenchmark {
+
+	private static final String CATEGORY = "Benchmark";
+	private static final int PAGE_SIZE = ExpensePageRequest.MAX_LIMIT;
+
+	public static void main(String[] args) {
+		String target = args.length > 0 ? args[0] : "h2";
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+		int tagsPerExpense = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ExpenseManagerApplication.class)
+				.web(WebApplicationType.NONE)
+				.initializers(ExpenseBulkInsertBenchmark::recreateSchema)
+				.run(arguments(target))) {
+			ExpenseService expenseService = context.getBean(ExpenseService.class);
+			ExpenseCache expenseCache = context.getBean(ExpenseCache.class);
+			ExpenseQueryCache expenseQueryCache = context.getBean(ExpenseQueryCache.class);
+			JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+			Statistics statistics = context.getBean(EntityManagerFactory.class)
+					.unwrap(SessionFactory.class)
+					.getStatistics();
+
+			List<String> tags = createCategoryAndTags(context, tagsPerExpense * 2);
+			for (int created = 0; created < count; created += 1_000) {
+				expenseService.createExpensesBulk(expenses(created, Math.min(1_000, count - created), tags, tagsPerExpense));
+			}
+			long expenseRows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expenses", Long.class);
+			long tagRows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expense_tag", Long.class);
+			long joinedRows = jdbcTemplate.queryForObject(
+					"SELECT COUNT(*) FROM expenses e LEFT JOIN expense_tag et ON et.expense_id = e.id", Long.class);
+
+			// Warms up the JIT, connection pool and Hibernate's statement caches
+			for (FetchPlan plan : FetchPlan.values()) {
+				readAll(expenseService, expenseCache, expenseQueryCache, plan);
+			}
+
+			System.out.printf("%d expenses, %d tags each, pages of %d%n", expenseRows, tagsPerExpense, PAGE_SIZE);
+			System.out.printf("%-12s %10s %12s %12s%n", "plan", "ms", "statements", "rows");
+			for (FetchPlan plan : FetchPlan.values()) {
+				statistics.clear();
+				long start = System.nanoTime();
+				readAll(expenseService, expenseCache, expenseQueryCache, plan);
+				double millis = (System.nanoTime() - start) / 1e6;
+				// Rows returned by the page queries, not counting the id queries all plans share
+				long rows = switch (plan) {
+					case JOIN_FETCH -> joinedRows;
+					case BATCH -> expenseRows + tagRows;
+					case PROJECTION -> expenseRows;
+				};
+				System.out.printf("%-12s %10.0f %12d %12d%n", plan, millis, statistics.getPrepareStatementCount(), rows);
+			}
+		}
+	}
+
+	private static void readAll(ExpenseService expenseService,
+	                            ExpenseCache expenseCache,
+	                            ExpenseQueryCache expenseQueryCache,
+	                            FetchPlan plan) {
+		expenseCache.clear();
+		expenseQueryCache.clear();
+		String cursor = null;
+		do {
+			ExpensePage page = expenseService.getAllExpenses(new ExpensePageRequest(null, null, cursor, PAGE_SIZE, plan, null, null));
+			cursor = page.nextCursor();
+		} while (cursor != null);
+	}
+
+	private static List<String> createCategoryAndTags(ConfigurableApplicationContext context, int tagCount) {
+		CategoryDTO category = new CategoryDTO();
+		category.setName(CATEGORY);
+		context.getBean(CategoryService.class).createCategory(category);
+		List<String> tags = new ArrayList<>();
+		for (int i = 0; i < tagCount; i++) {
+			TagDTO tag = new TagDTO();
+			tag.setName("bench-" + i);
+			context.getBean(TagService.class).createTag(tag);
+			tags.add(tag.getName());
+		}
+		return tags;
+	}
+
+	// Same as ExpenseBulkInsertBenchmark, with statistics enabled
+	private static String[] arguments(String target) {
+		Map<String, String> properties = new LinkedHashMap<>();
+		if (target.equals("h2")) {
+			properties.put("spring.datasource.url", "jdbc:h2:mem:benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE");
+			properties.put("spring.datasource.username", "sa");
+			properties.put("spring.datasource.password", "");
+			properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+			properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+			// The migrations are written for PostgreSQL
+			properties.put("spring.flyway.enabled", "false");
+			properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+			properties.put("totals.maintain-running", "false");
+			properties.put("partitions.manage", "false");
+		} else {
+			properties.put("spring.datasource.url", target);
+			properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+			properties.put("spring.flyway.clean-disabled", "false");
+		}
+		properties.put("spring.jpa.show-sql", "false");
+		properties.put("spring.jpa.properties.hibernate.generate_statistics", "true");
+		properties.put("logging.level.root", "warn");
+		properties.put("cache.invalidation.transport", "loopback");
+		properties.put("cache.snapshot.enabled", "false");
+		return properties.entrySet().stream()
+				.map(property -> "--" + property.getKey() + "=" + property.getValue())
+				.toArray(String[]::new);
+	}
+
+	private static List<ExpenseDTO> expenses(int first, int count, List<String> tags, int tagsPerExpense) {
+		List<ExpenseDTO> expenses = new ArrayList<>(count);
+		for (int i = first; i < first + count; i++) {
+			ExpenseDTO expense = new ExpenseDTO();
+			expense.setName("Expense " + i);
+			expense.setAmount((double) (i % 500));
+			expense.setCurrency("USD");
+			expense.setCategory(CATEGORY);
+			Set<String> expenseTags = new LinkedHashSet<>();
+			for (int t = 0; t < tagsPerExpense; t++) {
+				expenseTags.add(tags.get((i + t) % tags.size()));
+			}
+			expense.setTags(expenseTags);
+			expenses.add(expense);
+		}
+		return expenses;
+	}
+}
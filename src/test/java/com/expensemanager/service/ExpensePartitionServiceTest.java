@@ -0,0 +1,122 @@
+package com.expensemanager.service;
+
+import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.ExpenseQueryCache;
+import com.expensemanager.cache.invalidation.CacheInvalidationBus;
+import com.expensemanager.config.CacheProperties;
+import com.expensemanager.config.PartitionProperties;
+import com.expensemanager.dto.ExpensePartition;
+import com.expensemanager.dto.ExpensePartitionArchive;
+import com.expensemanager.exception.InvalidInputException;
+import com.expensemanager.repository.ExpensePartitionRepository;
+import com.expensemanager.repository.PartitionRow;
+import com.expensemanager.search.ExpenseNameIndex;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExpensePartitionServiceTest {
+
+	@Mock
+	private ExpensePartitionRepository expensePartitionRepository;
+
+	@Mock
+	private ExpenseTotalsService expenseTotalsService;
+
+	@Mock
+	private ExpenseCache expenseCache;
+
+	@Mock
+	private CacheInvalidationBus invalidationBus;
+
+	@Spy
+	private ExpenseQueryCache expenseQueryCache = new ExpenseQueryCache(new CacheProperties());
+
+	@Spy
+	private ExpenseNameIndex expenseNameIndex = new ExpenseNameIndex();
+
+	@Spy
+	private PartitionProperties partitionProperties = new PartitionProperties();
+
+	@InjectMocks
+	private ExpensePartitionService expensePartitionService;
+
+	@Test
+	void testGetPartitionsReadsMonthFromName() {
+		List<PartitionRow> partitions = List.of(row("expenses_2026_03", 1200), row("expenses_default", 0));
+		when(expensePartitionRepository.findPartitions()).thenReturn(partitions);
+
+		assertThat(expensePartitionService.getPartitions()).containsExactly(
+				new ExpensePartition("expenses_2026_03", YearMonth.of(2026, 3), 1200),
+				new ExpensePartition("expenses_default", null, 0));
+	}
+
+	@Test
+	void testArchivePartitionsDetachesMonthsBeforeAndEvictsTheirExpenses() {
+		List<PartitionRow> partitions = List.of(row("expenses_2025_01", 2), row("expenses_2025_02", 1),
+				row("expenses_2025_03", 5), row("expenses_default", 0));
+		when(expensePartitionRepository.findPartitions()).thenReturn(partitions);
+		when(expensePartitionRepository.findIdsInDateRange(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1)))
+				.thenReturn(List.of(1L, 2L));
+		when(expensePartitionRepository.findIdsInDateRange(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 1)))
+				.thenReturn(List.of(3L));
+		when(expensePartitionRepository.archivePartition(LocalDate.of(2025, 1, 1))).thenReturn("archived_expenses_2025_01");
+		when(expensePartitionRepository.archivePartition(LocalDate.of(2025, 2, 1))).thenReturn("archived_expenses_2025_02");
+		when(expenseCache.getName()).thenReturn("expenses");
+
+		ExpensePartitionArchive archive = expensePartitionService.archivePartitions(YearMonth.of(2025, 3));
+
+		assertThat(archive).isEqualTo(new ExpensePartitionArchive(
+				List.of("archived_expenses_2025_01", "archived_expenses_2025_02"), 3));
+		verify(expensePartitionRepository, never()).archivePartition(LocalDate.of(2025, 3, 1));
+		verify(expenseTotalsService).rebuildTotals();
+		verify(expenseCache).remove(1L);
+		verify(expenseCache).remove(3L);
+		verify(expenseQueryCache).clear();
+		verify(invalidationBus).publish("expenses", List.of(1L, 2L, 3L));
+	}
+
+	@Test
+	void testArchivePartitionsRejectsFutureMonths() {
+		YearMonth next = YearMonth.now().plusMonths(1);
+
+		assertThatThrownBy(() -> expensePartitionService.archivePartitions(next))
+				.isInstanceOf(InvalidInputException.class)
+				.hasMessageContaining("Only the months before the current one can be archived");
+		verifyNoInteractions(expensePartitionRepository, expenseTotalsService);
+	}
+
+	@Test
+	void testArchivePartitionsWithNothingToArchiveLeavesTotalsAlone() {
+		List<PartitionRow> partitions = List.of(row("expenses_2025_03", 5));
+		when(expensePartitionRepository.findPartitions()).thenReturn(partitions);
+
+		assertThat(expensePartitionService.archivePartitions(YearMonth.of(2025, 3)))
+				.isEqualTo(new ExpensePartitionArchive(List.of(), 0));
+		verify(expensePartitionRepository, never()).archivePartition(any());
+		verifyNoInteractions(expenseTotalsService);
+	}
+
+	private static PartitionRow row(String name, long estimatedRows) {
+		PartitionRow row = mock(PartitionRow.class);
+		when(row.getName()).thenReturn(name);
+		when(row.getEstimatedRows()).thenReturn(estimatedRows);
+		return row;
+	}
+}
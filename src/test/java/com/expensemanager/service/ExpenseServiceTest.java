@@ -1,8 +1,23 @@
 package com.expensemanager.service;
 
+import com.expensemanager.cache.CategoryDictionary;
 import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.invalidation.CacheInvalidationBus;
+import com.expensemanager.cache.ExpenseQueryCache;
+import com.expensemanager.cache.TagDictionary;
+import com.expensemanager.config.CacheProperties;
 import com.expensemanager.dto.ExpenseDTO;
+import com.expensemanager.dto.ExpenseMatch;
+import com.expensemanager.dto.ExpensePage;
+import com.expensemanager.dto.ExpensePageRequest;
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.dto.ExpenseSnapshot.CategoryRef;
+import com.expensemanager.dto.ExpenseSnapshot.TagRef;
+import com.expensemanager.dto.ExpenseSort;
 import com.expensemanager.dto.ExpenseUpdateDTO;
+import com.expensemanager.dto.ExpenseView;
+import com.expensemanager.dto.FetchPlan;
+import com.expensemanager.exception.InvalidInputException;
 import com.expensemanager.exception.ResourceNotFoundException;
 import com.expensemanager.integration.ExchangeRateService;
 import com.expensemanager.model.Category;
@@ -10,27 +25,40 @@ import com.expensemanager.model.Expense;
 import com.expensemanager.model.Tag;
 import com.expensemanager.repository.CategoryRepository;
 import com.expensemanager.repository.ExpenseRepository;
+import com.expensemanager.repository.ExpenseRow;
+import com.expensemanager.repository.ExpenseTagRow;
 import com.expensemanager.repository.TagRepository;
+import com.expensemanager.search.ExpenseNameIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ExpenseServiceTest {
 
+	private static final ExpensePageRequest FIRST_PAGE = new ExpensePageRequest(null, null, null, null, null, null, null);
+
 	@Mock
 	private ExpenseRepository expenseRepository;
 
@@ -46,6 +74,24 @@ class ExpenseServiceTest {
 	@Mock
 	private ExpenseCache expenseCache;
 
+	@Mock
+	private CacheInvalidationBus invalidationBus;
+
+	@Mock
+	private ExpenseTotalsService expenseTotalsService;
+
+	@Spy
+	private ExpenseQueryCache expenseQueryCache = new ExpenseQueryCache(new CacheProperties());
+
+	@Spy
+	private TagDictionary tagDictionary = new TagDictionary();
+
+	@Spy
+	private CategoryDictionary categoryDictionary = new CategoryDictionary();
+
+	@Spy
+	private ExpenseNameIndex expenseNameIndex = new ExpenseNameIndex();
+
 	@Spy
 	@InjectMocks
 	private ExpenseService expenseService;
@@ -86,9 +132,28 @@ class ExpenseServiceTest {
 		savedExpense.setCategory(cat);
 		when(expenseRepository.save(any(Expense.class))).thenReturn(savedExpense);
 
-		Expense result = expenseService.createExpense(dto);
-		assertThat(result.getId()).isEqualTo(100L);
-		verify(expenseCache).put(100L, savedExpense);
+		ExpenseSnapshot result = expenseService.createExpense(dto);
+		assertThat(result.id()).isEqualTo(100L);
+		verify(expenseCache).put(100L, ExpenseSnapshot.of(savedExpense));
+	}
+
+	@Test
+	void testCreateExpenseIsDatedTodayUnlessGiven() {
+		ExpenseDTO dto = new ExpenseDTO();
+		dto.setName("Dinner");
+		dto.setAmount(20.0);
+		dto.setCurrency("USD");
+		dto.setCategory("Food");
+		when(categoryRepository.findByNameIgnoreCase("Food")).thenReturn(Optional.of(new Category()));
+		when(expenseRepository.save(any(Expense.class))).thenAnswer(invocation -> {
+			Expense saved = invocation.getArgument(0);
+			saved.setId(100L);
+			return saved;
+		});
+
+		assertThat(expenseService.createExpense(dto).expenseDate()).isEqualTo(LocalDate.now());
+		dto.setExpenseDate(LocalDate.of(2025, 12, 31));
+		assertThat(expenseService.createExpense(dto).expenseDate()).isEqualTo(LocalDate.of(2025, 12, 31));
 	}
 
 	// Ветка с тегами (dto.getTags() != null)
@@ -106,17 +171,13 @@ class ExpenseServiceTest {
 		Category cat = new Category();
 		cat.setName("Meals");
 		when(categoryRepository.findByNameIgnoreCase("Meals")).thenReturn(Optional.of(cat));
-		when(tagRepository.findByNameIgnoreCase("fast")).thenReturn(Optional.empty());
-		when(tagRepository.findByNameIgnoreCase("cheap")).thenReturn(Optional.empty());
-		when(tagRepository.save(any(Tag.class))).thenAnswer(invocation -> {
-			Tag arg = invocation.getArgument(0);
-			if (arg.getName().equals("fast")) {
-				arg.setId(1L);
-			} else if (arg.getName().equals("cheap")) {
-				arg.setId(2L);
-			}
-			return arg;
-		});
+		Tag t1 = new Tag("fast");
+		t1.setId(1L);
+		Tag t2 = new Tag("cheap");
+		t2.setId(2L);
+		when(tagRepository.findAllByLowerNameIn(any()))
+				.thenReturn(List.of())
+				.thenReturn(List.of(t1, t2));
 
 		Expense expense = new Expense();
 		expense.setName("Lunch");
@@ -130,19 +191,66 @@ class ExpenseServiceTest {
 		savedExpense.setAmount(15.0);
 		savedExpense.setCurrency("EUR");
 		savedExpense.setCategory(cat);
-		Tag t1 = new Tag("fast");
-		t1.setId(1L);
-		Tag t2 = new Tag("cheap");
-		t2.setId(2L);
 		savedExpense.getTags().add(t1);
 		savedExpense.getTags().add(t2);
 
 		when(expenseRepository.save(any(Expense.class))).thenReturn(savedExpense);
 
-		Expense result = expenseService.createExpense(dto);
-		assertThat(result.getId()).isEqualTo(101L);
-		assertThat(result.getTags()).hasSize(2);
-		verify(expenseCache).put(101L, savedExpense);
+		ExpenseSnapshot result = expenseService.createExpense(dto);
+		assertThat(result.id()).isEqualTo(101L);
+		assertThat(result.tags()).hasSize(2);
+		verify(tagRepository).insertIgnoringDuplicates(argThat(names -> names.containsAll(List.of("fast", "cheap"))));
+		verify(expenseCache).put(101L, ExpenseSnapshot.of(savedExpense));
+		assertThat(tagDictionary.find("FAST")).map(Tag::getId).contains(1L);
+	}
+
+	@Test
+	void testCreateExpenseResolvesKnownNamesFromDictionaries() {
+		Category food = new Category("Food");
+		food.setId(1L);
+		Tag fast = new Tag("fast");
+		fast.setId(5L);
+		when(categoryRepository.findAll()).thenReturn(List.of(food));
+		when(tagRepository.findAll()).thenReturn(List.of(fast));
+		when(expenseRepository.save(any(Expense.class))).thenAnswer(invocation -> {
+			Expense expense = invocation.getArgument(0);
+			expense.setId(102L);
+			return expense;
+		});
+
+		ExpenseDTO dto = new ExpenseDTO();
+		dto.setName("Burger");
+		dto.setAmount(8.0);
+		dto.setCurrency("USD");
+		dto.setCategory("FOOD");
+		dto.setTags(Set.of("Fast"));
+		expenseService.createExpense(dto);
+		ExpenseSnapshot result = expenseService.createExpense(dto);
+
+		assertThat(result.category()).isEqualTo(new ExpenseSnapshot.CategoryRef(1L, "Food"));
+		assertThat(result.tags()).containsExactly(new ExpenseSnapshot.TagRef(5L, "fast"));
+		verify(categoryRepository, times(1)).findAll();
+		verify(tagRepository, times(1)).findAll();
+		verify(categoryRepository, never()).findByNameIgnoreCase(any());
+		verify(tagRepository, never()).findAllByLowerNameIn(any());
+	}
+
+	// ExpenseView splits the aggregated tag names on a control character
+	@Test
+	void testCreateExpenseRejectsTagNamesWithControlCharacters() {
+		when(tagRepository.findAll()).thenReturn(List.of());
+		ExpenseDTO dto = new ExpenseDTO();
+		dto.setName("Burger");
+		dto.setAmount(8.0);
+		dto.setCurrency("USD");
+		dto.setCategory("Food");
+		dto.setTags(Set.of("fast" + ExpenseView.TAG_NAME_SEPARATOR + "food"));
+
+		assertThatThrownBy(() -> expenseService.createExpense(dto))
+				.isInstanceOf(InvalidInputException.class)
+				.hasMessageContaining("Tag name cannot contain control characters");
+		verify(tagRepository, never()).insertIgnoringDuplicates(any());
+		verify(expenseRepository, never()).save(any());
 	}
 
 	// ---------- getAllExpenses ----------
@@ -153,43 +261,86 @@ class ExpenseServiceTest {
 		e1.setId(1L);
 		Expense e2 = new Expense();
 		e2.setId(2L);
-		List<Expense> list = List.of(e1, e2);
-		when(expenseRepository.findAllWithAssociations()).thenReturn(list);
-		when(expenseCache.get(1L)).thenReturn(null);
-		when(expenseCache.get(2L)).thenReturn(e2);
+		stubPage(List.of(1L, 2L), e1, e2);
 
-		List<Expense> result = expenseService.getAllExpenses();
-		assertThat(result).hasSize(2);
-		verify(expenseCache).put(1L, e1);
+		ExpensePage result = expenseService.getAllExpenses(FIRST_PAGE);
+		assertThat(result.items()).hasSize(2);
+		assertThat(result.nextCursor()).isNull();
+		verify(expenseCache).putAllIfAbsent(Map.of(1L, ExpenseSnapshot.of(e1), 2L, ExpenseSnapshot.of(e2)));
+	}
+
+	@Test
+	void testGetAllExpensesContinuesAfterCursor() {
+		ExpenseSnapshot first = new ExpenseSnapshot(1L, "A", 5.0, "USD", null, null, List.of());
+		ExpenseSnapshot second = new ExpenseSnapshot(2L, "B", 7.0, "USD", null, null, List.of());
+		ExpensePageRequest firstPage = new ExpensePageRequest(ExpenseSort.AMOUNT, null, null, 2, null, null, null);
+		when(expenseRepository.findPageIds(null, ExpenseSort.AMOUNT, Sort.Direction.ASC, null, null, 3))
+				.thenReturn(List.of(1L, 2L, 3L));
+		when(expenseCache.getAll(List.of(1L, 2L))).thenReturn(Map.of(1L, first, 2L, second));
+
+		ExpensePage page = expenseService.getAllExpenses(firstPage);
+		assertThat(page.items()).containsExactly(first, second);
+		assertThat(page.nextCursor()).isNotNull();
+
+		ExpenseSnapshot third = new ExpenseSnapshot(3L, "C", 7.0, "USD", null, null, List.of());
+		when(expenseRepository.findPageIds(null, ExpenseSort.AMOUNT, Sort.Direction.ASC, 7.0, 2L, 3))
+				.thenReturn(List.of(3L));
+		when(expenseCache.getAll(List.of(3L))).thenReturn(Map.of(3L, third));
+
+		ExpensePage last = expenseService.getAllExpenses(new ExpensePageRequest(ExpenseSort.AMOUNT, null, page.nextCursor(), 2, null, null, null));
+		assertThat(last.items()).containsExactly(third);
+		assertThat(last.nextCursor()).isNull();
+
+		ExpensePageRequest otherOrder = new ExpensePageRequest(ExpenseSort.AMOUNT, Sort.Direction.DESC, page.nextCursor(), 2, null, null, null);
+		assertThatThrownBy(() -> expenseService.getAllExpenses(otherOrder))
+				.isInstanceOf(InvalidInputException.class);
+		assertThatThrownBy(() -> expenseService.getAllExpenses(new ExpensePageRequest(null, null, "garbage!", 2, null, null, null)))
+				.isInstanceOf(InvalidInputException.class);
+		assertThatThrownBy(() -> expenseService.getAllExpenses(ExpensePageRequest.first(1_000)))
+				.isInstanceOf(InvalidInputException.class);
+	}
+
+	@Test
+	void testGetAllExpensesContinuesAfterNullSortKey() {
+		ExpenseSnapshot unnamed = new ExpenseSnapshot(4L, null, 5.0, "USD", null, null, List.of());
+		ExpensePageRequest firstPage = new ExpensePageRequest(ExpenseSort.NAME, Sort.Direction.DESC, null, 1, null, null, null);
+		when(expenseRepository.findPageIds(null, ExpenseSort.NAME, Sort.Direction.DESC, null, null, 2))
+				.thenReturn(List.of(4L, 2L));
+		when(expenseCache.getAll(List.of(4L))).thenReturn(Map.of(4L, unnamed));
+
+		ExpensePage page = expenseService.getAllExpenses(firstPage);
+
+		when(expenseRepository.findPageIds(null, ExpenseSort.NAME, Sort.Direction.DESC, null, 4L, 2))
+				.thenReturn(List.of());
+		ExpensePageRequest nextPage = new ExpensePageRequest(ExpenseSort.NAME, Sort.Direction.DESC, page.nextCursor(), 1, null, null, null);
+		assertThat(expenseService.getAllExpenses(nextPage).items()).isEmpty();
 	}
 
 	// ---------- getExpenseById ----------
 
 	@Test
 	void testGetExpenseByIdCacheHit() {
-		Expense cached = new Expense();
-		cached.setId(10L);
-		when(expenseCache.get(10L)).thenReturn(cached);
-		Expense result = expenseService.getExpenseById(10L);
+		ExpenseSnapshot cached = new ExpenseSnapshot(10L, "Cached", 1.0, "USD", null, null, List.of());
+		when(expenseCache.get(eq(10L), any())).thenReturn(cached);
+		ExpenseSnapshot result = expenseService.getExpenseById(10L);
 		assertThat(result).isSameAs(cached);
-		verify(expenseRepository, never()).findByIdWithAssociations(anyLong());
+		verify(expenseRepository, never()).findViewsByIdIn(any());
 	}
 
 	@Test
 	void testGetExpenseByIdCacheMiss() {
-		when(expenseCache.get(20L)).thenReturn(null);
-		Expense repoExpense = new Expense();
-		repoExpense.setId(20L);
-		when(expenseRepository.findByIdWithAssociations(20L)).thenReturn(Optional.of(repoExpense));
-		Expense result = expenseService.getExpenseById(20L);
-		assertThat(result).isSameAs(repoExpense);
-		verify(expenseCache).put(20L, repoExpense);
+		when(expenseCache.get(eq(20L), any())).thenAnswer(this::loadThroughCache);
+		when(expenseRepository.findViewsByIdIn(List.of(20L))).thenReturn(List.of(
+				new ExpenseView(20L, "Hotel", 80.0, "EUR", LocalDate.of(2026, 3, 14), 3L, "Travel", "4,5",
+						"work" + ExpenseView.TAG_NAME_SEPARATOR + "trip")));
+		ExpenseSnapshot result = expenseService.getExpenseById(20L);
+		assertThat(result).isEqualTo(new ExpenseSnapshot(20L, "Hotel", 80.0, "EUR", LocalDate.of(2026, 3, 14),
+				new CategoryRef(3L, "Travel"), List.of(new TagRef(4L, "work"), new TagRef(5L, "trip"))));
 	}
 
 	@Test
 	void testGetExpenseByIdNotFound() {
-		when(expenseCache.get(30L)).thenReturn(null);
-		when(expenseRepository.findByIdWithAssociations(30L)).thenReturn(Optional.empty());
+		when(expenseCache.get(eq(30L), any())).thenAnswer(this::loadThroughCache);
 		assertThatThrownBy(() -> expenseService.getExpenseById(30L))
 				.isInstanceOf(ResourceNotFoundException.class)
 				.hasMessageContaining("Expense with ID 30 not found");
@@ -202,7 +353,7 @@ class ExpenseServiceTest {
 		Expense existing = new Expense();
 		existing.setId(40L);
 		existing.setName("OldName");
-		when(expenseCache.get(40L)).thenReturn(existing);
+		when(expenseRepository.findByIdWithAssociations(40L)).thenReturn(Optional.of(existing));
 
 		ExpenseDTO dto = new ExpenseDTO();
 		dto.setName("NewName");
@@ -217,17 +368,13 @@ class ExpenseServiceTest {
 		when(categoryRepository.findByNameIgnoreCase("NewCat")).thenReturn(Optional.of(newCat));
 
 		// Разрешение тегов
-		when(tagRepository.findByNameIgnoreCase("tag1")).thenReturn(Optional.empty());
-		when(tagRepository.findByNameIgnoreCase("tag2")).thenReturn(Optional.empty());
-		when(tagRepository.save(any(Tag.class))).thenAnswer(invocation -> {
-			Tag arg = invocation.getArgument(0);
-			if (arg.getName().equals("tag1")) {
-				arg.setId(11L);
-			} else if (arg.getName().equals("tag2")) {
-				arg.setId(12L);
-			}
-			return arg;
-		});
+		Tag t1 = new Tag("tag1");
+		t1.setId(11L);
+		Tag t2 = new Tag("tag2");
+		t2.setId(12L);
+		when(tagRepository.findAllByLowerNameIn(any()))
+				.thenReturn(List.of())
+				.thenReturn(List.of(t1, t2));
 
 		Expense updated = new Expense();
 		updated.setId(40L);
@@ -235,18 +382,38 @@ class ExpenseServiceTest {
 		updated.setAmount(50.0);
 		updated.setCurrency("GBP");
 		updated.setCategory(newCat);
-		Tag t1 = new Tag("tag1");
-		t1.setId(11L);
-		Tag t2 = new Tag("tag2");
-		t2.setId(12L);
 		updated.getTags().add(t1);
 		updated.getTags().add(t2);
 		when(expenseRepository.save(existing)).thenReturn(updated);
 
-		Expense result = expenseService.updateExpense(40L, dto);
-		assertThat(result.getName()).isEqualTo("NewName");
-		assertThat(result.getTags()).hasSize(2);
-		verify(expenseCache).put(40L, updated);
+		ExpenseSnapshot result = expenseService.updateExpense(40L, dto);
+		assertThat(result.name()).isEqualTo("NewName");
+		assertThat(result.tags()).hasSize(2);
+		verify(expenseCache).put(40L, ExpenseSnapshot.of(updated));
+	}
+
+	@Test
+	void testUpdateExpenseRefreshesCacheOnlyAfterCommit() {
+		Expense existing = new Expense();
+		existing.setId(41L);
+		existing.setName("Before");
+		when(expenseRepository.findByIdWithAssociations(41L)).thenReturn(Optional.of(existing));
+		when(expenseRepository.save(existing)).thenReturn(existing);
+
+		ExpenseUpdateDTO updateDTO = new ExpenseUpdateDTO();
+		updateDTO.setName("After");
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			ExpenseSnapshot result = expenseService.updateExpensePartial(41L, updateDTO);
+			verify(expenseCache, never()).put(anyLong(), any());
+
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+			verify(expenseCache).put(41L, result);
+			assertThat(result.name()).isEqualTo("After");
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
 	}
 
 	// ---------- updateExpensePartial ----------
@@ -258,7 +425,7 @@ class ExpenseServiceTest {
 		existing.setName("Old");
 		existing.setAmount(100.0);
 		existing.setCurrency("USD");
-		when(expenseCache.get(50L)).thenReturn(existing);
+		when(expenseRepository.findByIdWithAssociations(50L)).thenReturn(Optional.of(existing));
 
 		ExpenseUpdateDTO updateDTO = new ExpenseUpdateDTO();
 		updateDTO.setName("PartialNew");
@@ -272,10 +439,9 @@ class ExpenseServiceTest {
 		updatedCat.setName("UpdatedCat");
 		when(categoryRepository.findByNameIgnoreCase("UpdatedCat")).thenReturn(Optional.of(updatedCat));
 
-		when(tagRepository.findByNameIgnoreCase("newTag")).thenReturn(Optional.empty());
 		Tag newTag = new Tag("newTag");
 		newTag.setId(21L);
-		when(tagRepository.save(any(Tag.class))).thenReturn(newTag);
+		when(tagRepository.findAllByLowerNameIn(Set.of("newtag"))).thenReturn(List.of(newTag));
 
 		Expense updatedExpense = new Expense();
 		updatedExpense.setId(50L);
@@ -286,13 +452,13 @@ class ExpenseServiceTest {
 		updatedExpense.getTags().add(newTag);
 		when(expenseRepository.save(existing)).thenReturn(updatedExpense);
 
-		Expense result = expenseService.updateExpensePartial(50L, updateDTO);
-		assertThat(result.getName()).isEqualTo("PartialNew");
-		assertThat(result.getAmount()).isEqualTo(150.0);
-		assertThat(result.getCurrency()).isEqualTo("EUR");
-		assertThat(result.getCategory()).isEqualTo(updatedCat);
-		assertThat(result.getTags()).hasSize(1);
-		verify(expenseCache).put(50L, updatedExpense);
+		ExpenseSnapshot result = expenseService.updateExpensePartial(50L, updateDTO);
+		assertThat(result.name()).isEqualTo("PartialNew");
+		assertThat(result.amount()).isEqualTo(150.0);
+		assertThat(result.currency()).isEqualTo("EUR");
+		assertThat(result.category().name()).isEqualTo("UpdatedCat");
+		assertThat(result.tags()).hasSize(1);
+		verify(expenseCache).put(50L, ExpenseSnapshot.of(updatedExpense));
 	}
 
 	@Test
@@ -302,7 +468,7 @@ class ExpenseServiceTest {
 		existing.setName("Original");
 		existing.setAmount(200.0);
 		existing.setCurrency("USD");
-		when(expenseCache.get(60L)).thenReturn(existing);
+		when(expenseRepository.findByIdWithAssociations(60L)).thenReturn(Optional.of(existing));
 
 		ExpenseUpdateDTO updateDTO = new ExpenseUpdateDTO();
 		updateDTO.setName("   ");
@@ -313,11 +479,11 @@ class ExpenseServiceTest {
 
 		when(expenseRepository.save(existing)).thenReturn(existing);
 
-		Expense result = expenseService.updateExpensePartial(60L, updateDTO);
-		assertThat(result.getName()).isEqualTo("Original");
-		assertThat(result.getAmount()).isEqualTo(200.0);
-		assertThat(result.getCurrency()).isEqualTo("USD");
-		verify(expenseCache).put(60L, existing);
+		ExpenseSnapshot result = expenseService.updateExpensePartial(60L, updateDTO);
+		assertThat(result.name()).isEqualTo("Original");
+		assertThat(result.amount()).isEqualTo(200.0);
+		assertThat(result.currency()).isEqualTo("USD");
+		verify(expenseCache).put(60L, ExpenseSnapshot.of(existing));
 	}
 
 	// ---------- deleteExpense ----------
@@ -326,10 +492,11 @@ class ExpenseServiceTest {
 	void testDeleteExpense() {
 		Expense existing = new Expense();
 		existing.setId(70L);
-		when(expenseCache.get(70L)).thenReturn(existing);
+		when(expenseRepository.findByIdWithAssociations(70L)).thenReturn(Optional.of(existing));
 
 		expenseService.deleteExpense(70L);
 		verify(expenseRepository).delete(existing);
+		verify(expenseTotalsService).applyChange(List.of(ExpenseSnapshot.of(existing)), List.of());
 		verify(expenseCache).remove(70L);
 	}
 
@@ -341,20 +508,16 @@ class ExpenseServiceTest {
 		e1.setId(80L);
 		Expense e2 = new Expense();
 		e2.setId(81L);
-		List<Expense> list = List.of(e1, e2);
-		when(expenseRepository.findByCategoryName("CatA")).thenReturn(list);
-		when(expenseCache.get(80L)).thenReturn(null);
-		when(expenseCache.get(81L)).thenReturn(e2);
+		stubPage(List.of(80L, 81L), e1, e2);
 
-		List<Expense> result = expenseService.getExpensesByCategory("CatA");
-		assertThat(result).containsExactly(e1, e2);
-		verify(expenseCache).put(80L, e1);
+		ExpensePage result = expenseService.getExpensesByCategory("CatA", FIRST_PAGE);
+		assertThat(result.items()).containsExactly(ExpenseSnapshot.of(e1), ExpenseSnapshot.of(e2));
+		verify(expenseCache).putAllIfAbsent(Map.of(80L, ExpenseSnapshot.of(e1), 81L, ExpenseSnapshot.of(e2)));
 	}
 
 	@Test
 	void testGetExpensesByCategoryNotFound() {
-		when(expenseRepository.findByCategoryName("EmptyCat")).thenReturn(Collections.emptyList());
-		assertThatThrownBy(() -> expenseService.getExpensesByCategory("EmptyCat"))
+		assertThatThrownBy(() -> expenseService.getExpensesByCategory("EmptyCat", FIRST_PAGE))
 				.isInstanceOf(ResourceNotFoundException.class)
 				.hasMessageContaining("No expenses found for category 'EmptyCat'");
 	}
@@ -367,20 +530,16 @@ class ExpenseServiceTest {
 		e1.setId(90L);
 		Expense e2 = new Expense();
 		e2.setId(91L);
-		List<Expense> list = List.of(e1, e2);
-		when(expenseRepository.findByAmountRange(10.0, 50.0)).thenReturn(list);
-		when(expenseCache.get(90L)).thenReturn(null);
-		when(expenseCache.get(91L)).thenReturn(e2);
+		stubPage(List.of(90L, 91L), e1, e2);
 
-		List<Expense> result = expenseService.getExpensesByAmountRange(10.0, 50.0);
-		assertThat(result).containsExactly(e1, e2);
-		verify(expenseCache).put(90L, e1);
+		ExpensePage result = expenseService.getExpensesByAmountRange(10.0, 50.0, FIRST_PAGE);
+		assertThat(result.items()).containsExactly(ExpenseSnapshot.of(e1), ExpenseSnapshot.of(e2));
+		verify(expenseCache).putAllIfAbsent(Map.of(90L, ExpenseSnapshot.of(e1), 91L, ExpenseSnapshot.of(e2)));
 	}
 
 	@Test
 	void testGetExpensesByAmountRangeNotFound() {
-		when(expenseRepository.findByAmountRange(1000.0, 2000.0)).thenReturn(Collections.emptyList());
-		assertThatThrownBy(() -> expenseService.getExpensesByAmountRange(1000.0, 2000.0))
+		assertThatThrownBy(() -> expenseService.getExpensesByAmountRange(1000.0, 2000.0, FIRST_PAGE))
 				.isInstanceOf(ResourceNotFoundException.class)
 				.hasMessageContaining("No expenses found in amount range [1000.0, 2000.0]");
 	}
@@ -393,24 +552,112 @@ class ExpenseServiceTest {
 		e1.setId(92L);
 		Expense e2 = new Expense();
 		e2.setId(93L);
-		List<Expense> list = List.of(e1, e2);
-		when(expenseRepository.searchByNamePart("part")).thenReturn(list);
-		when(expenseCache.get(92L)).thenReturn(null);
-		when(expenseCache.get(93L)).thenReturn(e2);
+		stubPage(List.of(92L, 93L), e1, e2);
 
-		List<Expense> result = expenseService.searchByNamePart("part");
-		assertThat(result).containsExactly(e1, e2);
-		verify(expenseCache).put(92L, e1);
+		ExpensePage result = expenseService.searchByNamePart("part", FIRST_PAGE);
+		assertThat(result.items()).containsExactly(ExpenseSnapshot.of(e1), ExpenseSnapshot.of(e2));
+		verify(expenseCache).putAllIfAbsent(Map.of(92L, ExpenseSnapshot.of(e1), 93L, ExpenseSnapshot.of(e2)));
 	}
 
 	@Test
 	void testSearchByNamePartNotFound() {
-		when(expenseRepository.searchByNamePart("nope")).thenReturn(Collections.emptyList());
-		assertThatThrownBy(() -> expenseService.searchByNamePart("nope"))
+		assertThatThrownBy(() -> expenseService.searchByNamePart("nope", FIRST_PAGE))
 				.isInstanceOf(ResourceNotFoundException.class)
 				.hasMessageContaining("No expenses found matching name part 'nope'");
 	}
 
+	@Test
+	void testSearchByNamePartUsesNameIndexOnceLoaded() {
+		expenseNameIndex.rebuild(index -> index.putAll(List.of(named(1L, "Coffee beans"), named(2L, "Tea"), named(3L, "Iced coffee"))));
+		Expense e3 = new Expense();
+		e3.setId(3L);
+		stubViews(List.of(3L), e3);
+
+		ExpensePage result = expenseService.searchByNamePart("COFFEE",
+				new ExpensePageRequest(null, Sort.Direction.DESC, null, 1, null, null, null));
+
+		assertThat(result.items()).containsExactly(ExpenseSnapshot.of(e3));
+		assertThat(result.nextCursor()).isNotNull();
+		verify(expenseRepository, never()).findPageIds(any(), any(), any(), any(), any(), anyInt());
+	}
+
+	@Test
+	void testSearchByNamePartWithinDatesIsPagedInDatabase() {
+		expenseNameIndex.rebuild(index -> index.putAll(List.of(named(1L, "Coffee beans"), named(3L, "Iced coffee"))));
+		Expense e3 = new Expense();
+		e3.setId(3L);
+		stubPage(List.of(3L), e3);
+		ExpensePageRequest march = new ExpensePageRequest(null, null, null, null, null,
+				LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31));
+
+		ExpensePage result = expenseService.searchByNamePart("coffee", march);
+
+		assertThat(result.items()).containsExactly(ExpenseSnapshot.of(e3));
+		verify(expenseRepository).findPageIds(notNull(), eq(ExpenseSort.ID), eq(Sort.Direction.ASC), isNull(), isNull(), eq(51));
+	}
+
+	@Test
+	void testSearchRejectsInvertedDateRange() {
+		ExpensePageRequest inverted = new ExpensePageRequest(null, null, null, null, null,
+				LocalDate.of(2026, 3, 31), LocalDate.of(2026, 3, 1));
+
+		assertThatThrownBy(() -> expenseService.getAllExpenses(inverted))
+				.isInstanceOf(InvalidInputException.class)
+				.hasMessageContaining("from must not be after to");
+		verifyNoInteractions(expenseRepository);
+	}
+
+	@Test
+	void testNameIndexFollowsWrites() {
+		expenseNameIndex.rebuild(index -> {
+		});
+		Expense saved = new Expense();
+		saved.setId(5L);
+		saved.setName("Gym membership");
+		when(expenseRepository.save(any(Expense.class))).thenReturn(saved);
+		ExpenseDTO dto = new ExpenseDTO();
+		dto.setName("Gym membership");
+		dto.setAmount(30.0);
+		dto.setCurrency("USD");
+		dto.setCategory("Health");
+		Category health = new Category();
+		health.setName("Health");
+		when(categoryRepository.findByNameIgnoreCase("Health")).thenReturn(Optional.of(health));
+
+		expenseService.createExpense(dto);
+		assertThat(expenseNameIndex.search("member")).contains(List.of(5L));
+
+		when(expenseRepository.findByIdWithAssociations(5L)).thenReturn(Optional.of(saved));
+		expenseService.deleteExpense(5L);
+		assertThat(expenseNameIndex.search("member")).contains(List.of());
+	}
+
+	@Test
+	void testSearchFuzzyRanksByEditDistance() {
+		ExpenseSnapshot lunch = new ExpenseSnapshot(2L, "Lunch", 12.0, "USD", null, null, List.of(new TagRef(7L, "Cafe")));
+		expenseNameIndex.rebuild(index -> index.putAll(List.of(named(1L, "Coffee beans"), lunch, named(3L, "Rent"))));
+		Expense e1 = new Expense();
+		e1.setId(1L);
+		e1.setName("Coffee beans");
+		Expense e2 = new Expense();
+		e2.setId(2L);
+		e2.setName("Lunch");
+		stubViews(List.of(1L, 2L), e1, e2);
+
+		List<ExpenseMatch> result = expenseService.searchFuzzy("cofee", 2, 10);
+
+		assertThat(result).extracting(match -> match.expense().id()).containsExactly(1L, 2L);
+		assertThat(result).extracting(ExpenseMatch::distance).containsExactly(1, 2);
+		assertThat(result).extracting(ExpenseMatch::matchedTerm).containsExactly("coffee", "cafe");
+	}
+
+	@Test
+	void testSearchFuzzyRejectsLargeDistances() {
+		assertThatThrownBy(() -> expenseService.searchFuzzy("rent", 4, 10))
+				.isInstanceOf(InvalidInputException.class)
+				.hasMessageContaining("maxDistance must be between 0 and 3");
+	}
+
 	// ---------- getExpensesByTag ----------
 
 	@Test
@@ -419,33 +666,97 @@ class ExpenseServiceTest {
 		e1.setId(94L);
 		Expense e2 = new Expense();
 		e2.setId(95L);
-		List<Expense> list = List.of(e1, e2);
-		when(expenseRepository.findByTagName("urgent")).thenReturn(list);
-		when(expenseCache.get(94L)).thenReturn(null);
-		when(expenseCache.get(95L)).thenReturn(e2);
+		stubPage(List.of(94L, 95L), e1, e2);
 
-		List<Expense> result = expenseService.getExpensesByTag("urgent");
-		assertThat(result).containsExactly(e1, e2);
-		verify(expenseCache).put(94L, e1);
+		ExpensePage result = expenseService.getExpensesByTag("urgent", FIRST_PAGE);
+		assertThat(result.items()).containsExactly(ExpenseSnapshot.of(e1), ExpenseSnapshot.of(e2));
+		verify(expenseCache).putAllIfAbsent(Map.of(94L, ExpenseSnapshot.of(e1), 95L, ExpenseSnapshot.of(e2)));
 	}
 
 	@Test
 	void testGetExpensesByTagNotFound() {
-		when(expenseRepository.findByTagName("nonexistent")).thenReturn(Collections.emptyList());
-		assertThatThrownBy(() -> expenseService.getExpensesByTag("nonexistent"))
+		assertThatThrownBy(() -> expenseService.getExpensesByTag("nonexistent", FIRST_PAGE))
 				.isInstanceOf(ResourceNotFoundException.class)
 				.hasMessageContaining("No expenses found for tag 'nonexistent'");
 	}
 
+	@Test
+	void testSearchResultIdsAreCachedAndResolvedThroughExpenseCache() {
+		Expense e1 = new Expense();
+		e1.setId(97L);
+		when(expenseRepository.findPageIds(any(), any(), any(), any(), any(), anyInt())).thenReturn(List.of(97L));
+		when(expenseCache.getAll(List.of(97L))).thenReturn(Map.of(97L, ExpenseSnapshot.of(e1)));
+
+		expenseService.getExpensesByTag("travel", FIRST_PAGE);
+		ExpensePage result = expenseService.getExpensesByTag("travel", FIRST_PAGE);
+
+		assertThat(result.items()).containsExactly(ExpenseSnapshot.of(e1));
+		verify(expenseRepository, times(1)).findPageIds(any(), any(), any(), any(), any(), anyInt());
+		verify(expenseRepository, never()).findViewsByIdIn(any());
+	}
+
+	@Test
+	void testBatchFetchPlanBuildsSnapshotsFromRowsAndDictionary() {
+		Category food = new Category();
+		food.setId(5L);
+		food.setName("Food");
+		when(categoryRepository.findAll()).thenReturn(List.of(food));
+		when(expenseRepository.findPageIds(any(), any(), any(), any(), any(), anyInt())).thenReturn(List.of(1L, 2L));
+		when(expenseRepository.findRowsByIdIn(List.of(1L, 2L))).thenReturn(List.of(
+				new ExpenseRow(1L, "Lunch", 12.0, "USD", null, 5L),
+				new ExpenseRow(2L, "Taxi", 30.0, "EUR", null, 6L)));
+		when(expenseRepository.findTagRowsByExpenseIdIn(List.of(1L, 2L))).thenReturn(List.of(
+				new ExpenseTagRow(1L, 7L, "work"),
+				new ExpenseTagRow(1L, 8L, "urgent")));
+		Category travel = new Category();
+		travel.setId(6L);
+		travel.setName("Travel");
+		when(categoryRepository.findAllById(Set.of(6L))).thenReturn(List.of(travel));
+
+		ExpensePage result = expenseService.getAllExpenses(new ExpensePageRequest(null, null, null, null, FetchPlan.BATCH, null, null));
+
+		assertThat(result.items()).containsExactly(
+				new ExpenseSnapshot(1L, "Lunch", 12.0, "USD", null, new CategoryRef(5L, "Food"),
+						List.of(new TagRef(7L, "work"), new TagRef(8L, "urgent"))),
+				new ExpenseSnapshot(2L, "Taxi", 30.0, "EUR", null, new CategoryRef(6L, "Travel"), List.of()));
+		verify(expenseRepository, never()).findAllByIdWithAssociations(any());
+	}
+
+	@Test
+	void testJoinFetchPlanLoadsEntities() {
+		Expense e1 = new Expense();
+		e1.setId(1L);
+		when(expenseRepository.findPageIds(any(), any(), any(), any(), any(), anyInt())).thenReturn(List.of(1L));
+		when(expenseRepository.findAllByIdWithAssociations(List.of(1L))).thenReturn(List.of(e1));
+
+		ExpensePage result = expenseService.getAllExpenses(new ExpensePageRequest(null, null, null, null, FetchPlan.JOIN_FETCH, null, null));
+
+		assertThat(result.items()).containsExactly(ExpenseSnapshot.of(e1));
+		verify(expenseRepository, never()).findViewsByIdIn(any());
+	}
+
+	private static ExpenseSnapshot named(Long id, String name) {
+		return new ExpenseSnapshot(id, name, null, null, null, null, List.of());
+	}
+
+	private void stubPage(List<Long> ids, Expense... expenses) {
+		when(expenseRepository.findPageIds(any(), any(), any(), any(), any(), anyInt())).thenReturn(ids);
+		stubViews(ids, expenses);
+	}
+
+	private void stubViews(List<Long> ids, Expense... expenses) {
+		when(expenseRepository.findViewsByIdIn(ids)).thenReturn(Stream.of(expenses)
+				.map(expense -> new ExpenseView(expense.getId(), expense.getName(), expense.getAmount(),
+						expense.getCurrency(), expense.getExpenseDate(), null, null, null, null))
+				.toList());
+	}
+
 	// ---------- getExpenseAmountInCurrency ----------
 
 	@Test
 	void testGetExpenseAmountInCurrency() {
-		Expense expense = new Expense();
-		expense.setId(96L);
-		expense.setAmount(100.0);
-		expense.setCurrency("USD");
-		when(expenseCache.get(96L)).thenReturn(expense);
+		ExpenseSnapshot expense = new ExpenseSnapshot(96L, "Trip", 100.0, "USD", null, null, List.of());
+		when(expenseCache.get(eq(96L), any())).thenReturn(expense);
 		when(exchangeRateService.getExchangeRate("USD", "INR")).thenReturn(75.0);
 
 		Double converted = expenseService.getExpenseAmountInCurrency(96L, "INR");
@@ -487,9 +798,48 @@ class ExpenseServiceTest {
 		e2.setCategory(bulkCat);
 		when(expenseRepository.saveAll(anyList())).thenReturn(List.of(e1, e2));
 
-		List<Expense> result = expenseService.createExpensesBulk(dtoList);
-		assertThat(result).containsExactly(e1, e2);
-		verify(expenseCache).put(101L, e1);
-		verify(expenseCache).put(102L, e2);
+		List<ExpenseSnapshot> result = expenseService.createExpensesBulk(dtoList);
+		assertThat(result).containsExactly(ExpenseSnapshot.of(e1), ExpenseSnapshot.of(e2));
+		verify(expenseCache).put(101L, ExpenseSnapshot.of(e1));
+		verify(expenseCache).put(102L, ExpenseSnapshot.of(e2));
+	}
+
+	@Test
+	void testCreateExpensesBulkResolvesTagsOfTheWholeBatchAtOnce() {
+		Category bulkCat = new Category("BulkCat");
+		bulkCat.setId(3L);
+		when(categoryRepository.findAll()).thenReturn(List.of(bulkCat));
+		Tag rent = new Tag("rent");
+		rent.setId(31L);
+		Tag home = new Tag("home");
+		home.setId(32L);
+		Tag bills = new Tag("bills");
+		bills.setId(33L);
+		when(tagRepository.findAll()).thenReturn(List.of(rent));
+		when(tagRepository.findAllByLowerNameIn(Set.of("home", "bills"))).thenReturn(List.of(home));
+		when(tagRepository.findAllByLowerNameIn(List.of("bills"))).thenReturn(List.of(bills));
+		when(expenseRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		List<ExpenseDTO> dtos = new ArrayList<>();
+		for (Set<String> tags : List.of(Set.of("rent", "home"), Set.of("Home", "bills"), Set.of("BILLS", "rent"))) {
+			ExpenseDTO dto = new ExpenseDTO();
+			dto.setName("Bulk");
+			dto.setAmount(1.0);
+			dto.setCurrency("USD");
+			dto.setCategory("BulkCat");
+			dto.setTags(tags);
+			dtos.add(dto);
+		}
+		List<ExpenseSnapshot> result = expenseService.createExpensesBulk(dtos);
+
+		assertThat(result).extracting(expense -> expense.tags().stream().map(ExpenseSnapshot.TagRef::id).sorted().toList())
+				.containsExactly(List.of(31L, 32L), List.of(32L, 33L), List.of(31L, 33L));
+		verify(tagRepository, times(2)).findAllByLowerNameIn(any());
+		verify(tagRepository).insertIgnoringDuplicates(List.of("bills"));
+	}
+
+	private Object loadThroughCache(InvocationOnMock invocation) {
+		Function<Long, Object> loader = invocation.getArgument(1);
+		return loader.apply(invocation.getArgument(0));
 	}
 }
@@ -0,0 +1,151 @@
+package com.expensemanager.service;
+
+import com.expensemanager.config.TotalsProperties;
+import com.expensemanager.dto.ExpenseGrouping;
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.dto.ExpenseSnapshot.CategoryRef;
+import com.expensemanager.dto.ExpenseSnapshot.TagRef;
+import com.expensemanager.dto.ExpenseTotal;
+import com.expensemanager.dto.ExpenseTotalsRebuild;
+import com.expensemanager.dto.ExpenseTotalsRequest;
+import com.expensemanager.exception.InvalidInputException;
+import com.expensemanager.repository.ExpenseRepository;
+import com.expensemanager.repository.ExpenseTotalsRepository;
+import com.expensemanager.repository.TotalRow;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExpenseTotalsServiceTest {
+
+	@Mock
+	private ExpenseRepository expenseRepository;
+
+	@Mock
+	private ExpenseTotalsRepository expenseTotalsRepository;
+
+	@Spy
+	private TotalsProperties totalsProperties = new TotalsProperties();
+
+	@InjectMocks
+	private ExpenseTotalsService expenseTotalsService;
+
+	@Test
+	void testGetTotalsReturnsOneRowPerGroup() {
+		Set<ExpenseGrouping> groupBy = Set.of(ExpenseGrouping.CATEGORY, ExpenseGrouping.CURRENCY);
+		List<ExpenseTotal> totals = List.of(
+				new ExpenseTotal(1L, "Food", null, null, "EUR", 2, 30.0, 10.0, 20.0, 15.0),
+				new ExpenseTotal(1L, "Food", null, null, "USD", 1, 5.0, 5.0, 5.0, 5.0));
+		when(expenseRepository.findTotals(any(), eq(groupBy))).thenReturn(totals);
+
+		assertThat(expenseTotalsService.getTotals(new ExpenseTotalsRequest(groupBy, "Food", null, null, 1.0, null, null, null)))
+				.isEqualTo(totals);
+	}
+
+	@Test
+	void testGetTotalsRejectsInvertedAmountRange() {
+		ExpenseTotalsRequest request = new ExpenseTotalsRequest(null, null, null, null, 20.0, 10.0, null, null);
+
+		assertThatThrownBy(() -> expenseTotalsService.getTotals(request))
+				.isInstanceOf(InvalidInputException.class)
+				.hasMessageContaining("minAmount must not be greater than maxAmount");
+		verifyNoInteractions(expenseRepository);
+	}
+
+	@Test
+	void testApplyChangeAddsDeltasAndRefreshesRangeOfRemovedAmounts() {
+		CategoryRef food = new CategoryRef(1L, "Food");
+		CategoryRef travel = new CategoryRef(2L, "Travel");
+		ExpenseSnapshot before = new ExpenseSnapshot(10L, "Taxi", 30.0, "EUR", null, food, List.of(new TagRef(5L, "work")));
+		ExpenseSnapshot after = new ExpenseSnapshot(10L, "Taxi", 30.0, "EUR", null, travel, List.of(new TagRef(5L, "work")));
+
+		expenseTotalsService.applyChange(List.of(before), List.of(after));
+
+		InOrder inOrder = inOrder(expenseRepository, expenseTotalsRepository);
+		inOrder.verify(expenseRepository).flush();
+		inOrder.verify(expenseTotalsRepository).addCategoryTotal(1L, "EUR", -1, -30.0,
+				Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+		inOrder.verify(expenseTotalsRepository).refreshCategoryRange(1L, "EUR", 30.0, 30.0);
+		inOrder.verify(expenseTotalsRepository).addCategoryTotal(2L, "EUR", 1, 30.0, 30.0, 30.0);
+		inOrder.verify(expenseTotalsRepository).deleteEmptyCategoryTotals();
+		// The tag group and the amount did not change
+		verify(expenseTotalsRepository, never()).addTagTotal(any(), any(), anyLong(), anyDouble(), anyDouble(), anyDouble());
+	}
+
+	// Whatever the order of the tags of the expenses, so that concurrent writes lock the
+	// total rows in the same order
+	@Test
+	void testApplyChangeUpsertsGroupsOrderedByIdAndCurrency() {
+		CategoryRef food = new CategoryRef(1L, "Food");
+		CategoryRef travel = new CategoryRef(2L, "Travel");
+		ExpenseSnapshot taxi = new ExpenseSnapshot(10L, "Taxi", 30.0, "USD", null, travel,
+				List.of(new TagRef(9L, "work"), new TagRef(3L, "trip")));
+		ExpenseSnapshot lunch = new ExpenseSnapshot(11L, "Lunch", 12.0, "EUR", null, food,
+				List.of(new TagRef(9L, "work"), new TagRef(3L, "trip")));
+
+		expenseTotalsService.applyChange(List.of(), List.of(taxi, lunch));
+
+		InOrder inOrder = inOrder(expenseTotalsRepository);
+		inOrder.verify(expenseTotalsRepository).addCategoryTotal(1L, "EUR", 1, 12.0, 12.0, 12.0);
+		inOrder.verify(expenseTotalsRepository).addCategoryTotal(2L, "USD", 1, 30.0, 30.0, 30.0);
+		inOrder.verify(expenseTotalsRepository).addTagTotal(3L, "EUR", 1, 12.0, 12.0, 12.0);
+		inOrder.verify(expenseTotalsRepository).addTagTotal(3L, "USD", 1, 30.0, 30.0, 30.0);
+		inOrder.verify(expenseTotalsRepository).addTagTotal(9L, "EUR", 1, 12.0, 12.0, 12.0);
+		inOrder.verify(expenseTotalsRepository).addTagTotal(9L, "USD", 1, 30.0, 30.0, 30.0);
+	}
+
+	@Test
+	void testApplyChangeSkipsWritesThatLeaveTotalsUnchanged() {
+		ExpenseSnapshot expense = new ExpenseSnapshot(10L, "Taxi", 30.0, "EUR", null, new CategoryRef(1L, "Food"), List.of());
+		ExpenseSnapshot renamed = new ExpenseSnapshot(10L, "Cab", 30.0, "EUR", null, new CategoryRef(1L, "Food"), List.of());
+
+		expenseTotalsService.applyChange(List.of(expense), List.of(renamed));
+
+		verifyNoInteractions(expenseRepository, expenseTotalsRepository);
+	}
+
+	@Test
+	void testRebuildTotalsCountsDriftedGroups() {
+		TotalRow stale = row(1L, 2, 40.0);
+		TotalRow rebuilt = row(1L, 3, 55.0);
+		when(expenseTotalsRepository.findCategoryTotals()).thenReturn(List.of(stale), List.of(rebuilt));
+		when(expenseTotalsRepository.findTagTotals()).thenReturn(List.of(), List.of());
+
+		ExpenseTotalsRebuild result = expenseTotalsService.rebuildTotals();
+
+		assertThat(result).isEqualTo(new ExpenseTotalsRebuild(1, 0, 1));
+		InOrder inOrder = inOrder(expenseTotalsRepository);
+		inOrder.verify(expenseTotalsRepository).lockTotals();
+		inOrder.verify(expenseTotalsRepository).deleteCategoryTotals();
+		inOrder.verify(expenseTotalsRepository).insertCategoryTotals();
+	}
+
+	private static TotalRow row(Long groupId, long count, double sum) {
+		TotalRow row = mock(TotalRow.class);
+		when(row.getGroupId()).thenReturn(groupId);
+		when(row.getCurrency()).thenReturn("EUR");
+		when(row.getCount()).thenReturn(count);
+		when(row.getSum()).thenReturn(sum);
+		return row;
+	}
+}
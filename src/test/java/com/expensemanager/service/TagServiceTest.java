@@ -1,17 +1,32 @@
 package com.expensemanager.service;
 
+import com.expensemanager.cache.ExpenseCache;
+import com.expensemanager.cache.ExpenseQueryCache;
+import com.expensemanager.cache.ExpenseQueryCache.QueryType;
 import com.expensemanager.cache.TagCache;
+import com.expensemanager.cache.TagDictionary;
+import com.expensemanager.cache.invalidation.CacheInvalidationBus;
+import com.expensemanager.config.SearchProperties;
+import com.expensemanager.dto.ExpenseSnapshot;
+import com.expensemanager.dto.ExpenseSnapshot.TagRef;
+import com.expensemanager.dto.ExpenseView;
 import com.expensemanager.dto.TagDTO;
 import com.expensemanager.exception.ResourceNotFoundException;
 import com.expensemanager.model.Tag;
+import com.expensemanager.repository.ExpenseRepository;
 import com.expensemanager.repository.TagRepository;
+import com.expensemanager.search.ExpenseNameIndex;
+import com.expensemanager.search.FuzzyIndex;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -21,29 +36,89 @@ class TagServiceTest {
 	@Mock
 	private TagRepository tagRepository;
 
+	@Mock
+	private ExpenseRepository expenseRepository;
+
 	@Mock
 	private TagCache tagCache;
 
+	@Spy
+	private TagDictionary tagDictionary = new TagDictionary();
+
+	@Mock
+	private ExpenseCache expenseCache;
+
+	@Mock
+	private ExpenseQueryCache expenseQueryCache;
+
+	@Mock
+	private ExpenseNameIndexService expenseNameIndexService;
+
+	@Mock
+	private CacheInvalidationBus invalidationBus;
+
 	@InjectMocks
 	private TagService tagService;
 
 	// ---------- getAllTags ----------
 
 	@Test
-	void testGetAllTags_CacheMissAndHit() {
-		Tag tag1 = new Tag();
+	void testGetAllTags_LoadedOnceIntoDictionary() {
+		Tag tag1 = new Tag("food");
 		tag1.setId(1L);
-		Tag tag2 = new Tag();
+		Tag tag2 = new Tag("travel");
 		tag2.setId(2L);
 
-		when(tagRepository.findAll()).thenReturn(List.of(tag1, tag2));
-		when(tagCache.get(1L)).thenReturn(null); // cache miss
-		when(tagCache.get(2L)).thenReturn(tag2); // cache hit
+		when(tagRepository.findAll()).thenReturn(List.of(tag2, tag1));
 
+		tagService.getAllTags();
 		List<Tag> result = tagService.getAllTags();
-		assertThat(result).containsExactly(tag1, tag2);
-		verify(tagCache).put(1L, tag1);
-		verify(tagCache, never()).put(eq(2L), any());
+		assertThat(result).extracting(Tag::getId, Tag::getName)
+				.containsExactly(tuple(1L, "food"), tuple(2L, "travel"));
+		verify(tagRepository, times(1)).findAll();
+	}
+
+	@Test
+	void testUpdateTag_RenamesDictionaryEntry() {
+		Tag existing = new Tag("old");
+		existing.setId(55L);
+		when(tagRepository.findAll()).thenReturn(List.of(existing));
+		tagService.getAllTags();
+		when(tagCache.get(eq(55L), any())).thenReturn(existing);
+		TagDTO dto = new TagDTO();
+		dto.setName("new");
+		when(tagRepository.save(existing)).thenReturn(existing);
+
+		tagService.updateTag(55L, dto);
+
+		assertThat(tagDictionary.find("OLD")).isEmpty();
+		assertThat(tagDictionary.find("NEW")).map(Tag::getId).contains(55L);
+	}
+
+	// Tag names are terms of the fuzzy index of the expenses
+	@Test
+	void testUpdateTag_ReindexesExpensesWithTheTag() {
+		ExpenseNameIndex expenseNameIndex = new ExpenseNameIndex();
+		ExpenseNameIndexService indexService = new ExpenseNameIndexService(expenseNameIndex, expenseRepository,
+				expenseCache, tagCache, new SearchProperties());
+		TagService service = new TagService(tagRepository, expenseRepository, tagCache, tagDictionary, expenseCache,
+				expenseQueryCache, indexService, invalidationBus);
+		expenseNameIndex.rebuild(index -> index.putAll(List.of(
+				new ExpenseSnapshot(1L, "Lunch", 12.0, "USD", null, null, List.of(new TagRef(7L, "groceries"))))));
+		Tag existing = new Tag("groceries");
+		existing.setId(7L);
+		when(tagCache.get(eq(7L), any())).thenReturn(existing);
+		when(tagRepository.save(existing)).thenReturn(existing);
+		when(expenseRepository.findIdsByTagIdIn(List.of(7L))).thenReturn(List.of(1L));
+		when(expenseRepository.findViewsByIdIn(List.of(1L)))
+				.thenReturn(List.of(new ExpenseView(1L, "Lunch", 12.0, "USD", null, null, null, "7", "food")));
+		TagDTO dto = new TagDTO();
+		dto.setName("food");
+
+		service.updateTag(7L, dto);
+
+		assertThat(expenseNameIndex.searchFuzzy("groceries", 0, 10)).contains(List.of());
+		assertThat(expenseNameIndex.searchFuzzy("food", 0, 10)).contains(List.of(new FuzzyIndex.Match(1L, 0, "food")));
 	}
 
 	// ---------- getTagById ----------
@@ -52,7 +127,7 @@ class TagServiceTest {
 	void testGetTagById_FromCache() {
 		Tag tag = new Tag();
 		tag.setId(10L);
-		when(tagCache.get(10L)).thenReturn(tag);
+		when(tagCache.get(eq(10L), any())).thenReturn(tag);
 
 		Tag result = tagService.getTagById(10L);
 		assertThat(result).isEqualTo(tag);
@@ -63,17 +138,16 @@ class TagServiceTest {
 	void testGetTagById_FromRepositoryAndCached() {
 		Tag tag = new Tag();
 		tag.setId(20L);
-		when(tagCache.get(20L)).thenReturn(null);
+		when(tagCache.get(eq(20L), any())).thenAnswer(this::loadThroughCache);
 		when(tagRepository.findById(20L)).thenReturn(Optional.of(tag));
 
 		Tag result = tagService.getTagById(20L);
 		assertThat(result).isEqualTo(tag);
-		verify(tagCache).put(20L, tag);
 	}
 
 	@Test
 	void testGetTagById_NotFound() {
-		when(tagCache.get(30L)).thenReturn(null);
+		when(tagCache.get(eq(30L), any())).thenAnswer(this::loadThroughCache);
 		when(tagRepository.findById(30L)).thenReturn(Optional.empty());
 
 		assertThatThrownBy(() -> tagService.getTagById(30L))
@@ -111,7 +185,7 @@ class TagServiceTest {
 		existing.setId(50L);
 		existing.setName("old");
 
-		when(tagCache.get(50L)).thenReturn(existing);
+		when(tagCache.get(eq(50L), any())).thenReturn(existing);
 
 		TagDTO dto = new TagDTO();
 		dto.setName("new");
@@ -125,6 +199,9 @@ class TagServiceTest {
 		Tag result = tagService.updateTag(50L, dto);
 		assertThat(result.getName()).isEqualTo("new");
 		verify(tagCache).put(50L, updated);
+		verify(expenseCache).removeWithTags(List.of(50L));
+		verify(expenseQueryCache).invalidate(QueryType.TAG);
+		verify(expenseNameIndexService).refresh(List.of());
 	}
 
 	// ---------- deleteTag ----------
@@ -133,10 +210,19 @@ class TagServiceTest {
 	void testDeleteTag() {
 		Tag existing = new Tag();
 		existing.setId(60L);
-		when(tagCache.get(60L)).thenReturn(existing);
+		when(tagCache.get(eq(60L), any())).thenReturn(existing);
+		when(expenseRepository.findIdsByTagIdIn(List.of(60L))).thenReturn(List.of(3L, 4L));
 
 		tagService.deleteTag(60L);
 		verify(tagRepository).delete(existing);
 		verify(tagCache).remove(60L);
+		verify(expenseCache).removeWithTags(List.of(60L));
+		verify(expenseQueryCache).invalidate(QueryType.TAG);
+		verify(expenseNameIndexService).refresh(List.of(3L, 4L));
+	}
+
+	private Object loadThroughCache(InvocationOnMock invocation) {
+		Function<Long, Object> loader = invocation.getArgument(1);
+		return loader.apply(invocation.getArgument(0));
 	}
 }